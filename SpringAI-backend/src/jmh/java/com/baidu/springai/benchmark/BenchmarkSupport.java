@@ -0,0 +1,96 @@
+package com.baidu.springai.benchmark;
+
+import com.baidu.springai.config.WeChatConfig;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
+/**
+ * 基准测试辅助方法
+ * 组件依赖字段注入，基准测试中不启动Spring容器，按字段名直接注入依赖；
+ * 响应写入丢弃输出的空响应，只计算编码本身的开销
+ *
+ * @author baidu
+ * @version 1.0
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    /**
+     * 丢弃所有写入内容的输出流
+     */
+    static final OutputStream NULL_OUTPUT = OutputStream.nullOutputStream();
+
+    /**
+     * 按字段名注入依赖
+     *
+     * @param target 目标对象
+     * @param fieldName 字段名
+     * @param value 注入的值
+     * @return 目标对象
+     */
+    static <T> T inject(T target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getSimpleName() + "没有字段: " + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+        return target;
+    }
+
+    /**
+     * 使用默认配置的微信配置
+     *
+     * @return 微信配置
+     */
+    static WeChatConfig weChatConfig() {
+        WeChatConfig config = new WeChatConfig();
+        config.setAppId("wx0000000000000000");
+        config.setAppSecret("benchmark-secret");
+        config.setToken("benchmark-token");
+        return config;
+    }
+
+    /**
+     * 丢弃输出的HTTP响应，头信息的设置全部忽略
+     *
+     * @return HTTP响应
+     */
+    static HttpServletResponse nullResponse() {
+        ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        PrintWriter writer = new PrintWriter(NULL_OUTPUT);
+        return (HttpServletResponse) Proxy.newProxyInstance(BenchmarkSupport.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getOutputStream" -> out;
+                    case "getWriter" -> writer;
+                    case "isCommitted" -> false;
+                    case "getStatus", "getBufferSize" -> 0;
+                    default -> null;
+                });
+    }
+}
\ No newline at end of file
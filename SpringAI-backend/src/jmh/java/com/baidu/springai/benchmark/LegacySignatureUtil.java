@@ -0,0 +1,55 @@
+package com.baidu.springai.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * 改写前的签名验证实现，作为SignatureBenchmark的对照组
+ * 与原实现相同：排序数组、拼接字符串、每次新建MessageDigest、逐字节生成十六进制字符串后比较；
+ * 去掉了原实现中每次验证的日志，只比较计算本身
+ *
+ * @author baidu
+ * @version 1.0
+ */
+final class LegacySignatureUtil {
+
+    private LegacySignatureUtil() {}
+
+    static boolean verifyWeChatSignature(String signature, String timestamp, String nonce, String token) {
+        if (signature == null || timestamp == null || nonce == null || token == null) {
+            return false;
+        }
+        String[] params = {token, timestamp, nonce};
+        Arrays.sort(params);
+        StringBuilder content = new StringBuilder();
+        for (String param : params) {
+            content.append(param);
+        }
+        String encryptedStr = sha1Encrypt(content.toString());
+        return encryptedStr != null && encryptedStr.equals(signature.toUpperCase());
+    }
+
+    private static String sha1Encrypt(String content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            byte[] digest = md.digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder();
+            for (byte b : digest) {
+                result.append(byteToHex(b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private static String byteToHex(byte b) {
+        char[] hexDigits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+        char[] hexChars = new char[2];
+        hexChars[0] = hexDigits[(b >>> 4) & 0x0F];
+        hexChars[1] = hexDigits[b & 0x0F];
+        return new String(hexChars);
+    }
+}
\ No newline at end of file
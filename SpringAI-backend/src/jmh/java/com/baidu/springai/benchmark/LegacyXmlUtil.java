@@ -0,0 +1,68 @@
+package com.baidu.springai.benchmark;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 改写前的XML消息解析和回复构建，作为XmlParseBenchmark和WeChatReplyBenchmark的对照组
+ * 与原XmlUtil相同：每次新建DocumentBuilderFactory解析出完整DOM再复制到Map，回复用String.format拼接；
+ * 去掉了原实现中每条消息的日志，只比较计算本身
+ *
+ * @author baidu
+ * @version 1.0
+ */
+final class LegacyXmlUtil {
+
+    private LegacyXmlUtil() {}
+
+    static Map<String, String> parseWeChatXmlMessage(ByteArrayInputStream inputStream) {
+        Map<String, String> xmlMap = new HashMap<>();
+        try {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            dbf.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            dbf.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            dbf.setExpandEntityReferences(false);
+            DocumentBuilder db = dbf.newDocumentBuilder();
+            Document document = db.parse(inputStream);
+            Element root = document.getDocumentElement();
+
+            NodeList nodeList = root.getChildNodes();
+            for (int i = 0; i < nodeList.getLength(); i++) {
+                Node node = nodeList.item(i);
+                if (node instanceof Element) {
+                    Element element = (Element) node;
+                    String nodeName = element.getNodeName();
+                    String nodeValue = element.getFirstChild() != null
+                            ? element.getFirstChild().getNodeValue() : "";
+                    xmlMap.put(nodeName, nodeValue);
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("解析微信XML消息失败: " + e.getMessage(), e);
+        }
+        return xmlMap;
+    }
+
+    static String buildWeChatXmlResponse(String toUserName, String fromUserName, String content) {
+        long createTime = System.currentTimeMillis() / 1000;
+        return String.format(
+                "<xml>"
+                        + "<ToUserName><![CDATA[%s]]></ToUserName>"
+                        + "<FromUserName><![CDATA[%s]]></FromUserName>"
+                        + "<CreateTime>%d</CreateTime>"
+                        + "<MsgType><![CDATA[text]]></MsgType>"
+                        + "<Content><![CDATA[%s]]></Content>"
+                        + "</xml>",
+                toUserName, fromUserName, createTime, content);
+    }
+}
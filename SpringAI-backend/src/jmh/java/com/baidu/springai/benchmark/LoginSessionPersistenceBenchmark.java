@@ -0,0 +1,146 @@
+package com.baidu.springai.benchmark;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.manager.LoginSessionRepository;
+import com.baidu.springai.mapper.LoginSessionMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 每次登录的持久化开销基准
+ * 以内存中的Mapper替身代替MySQL，每次调用按roundTripMicros模拟一次数据库往返；
+ * writeBehind为请求线程上LoginSessionRepository.save的开销（写入由后台线程批量完成），
+ * synchronous为每次登记或登录都同步写一行的开销
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoginSessionPersistenceBenchmark {
+
+    private static final int SESSIONS = 1 << 16;
+
+    /**
+     * 模拟的数据库往返时间（微秒）
+     */
+    @Param({"0", "200"})
+    public long roundTripMicros;
+
+    private final LoginSession[] sessions = new LoginSession[SESSIONS];
+
+    private StandInMapper mapper;
+
+    private LoginSessionRepository repository;
+
+    @Setup
+    public void setup() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions[i] = new LoginSession("ticket-" + i, String.valueOf(100000 + i), null, now,
+                    now + TimeUnit.HOURS.toMillis(1));
+        }
+        WeChatConfig config = BenchmarkSupport.weChatConfig();
+        config.setSessionPersistenceEnabled(true);
+        mapper = new StandInMapper(TimeUnit.MICROSECONDS.toNanos(roundTripMicros));
+        repository = new LoginSessionRepository();
+        BenchmarkSupport.inject(repository, "weChatConfig", config);
+        BenchmarkSupport.inject(repository, "loginSessionMapper", mapper);
+        repository.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.shutdown();
+        System.out.printf("%n数据库调用次数: %d，写入行数: %d%n", mapper.calls.sum(), mapper.rows.sum());
+    }
+
+    @Benchmark
+    public void writeBehind() {
+        repository.save(randomSession());
+    }
+
+    @Benchmark
+    public int synchronous() {
+        return mapper.batchUpsert(List.of(randomSession()));
+    }
+
+    private LoginSession randomSession() {
+        return sessions[ThreadLocalRandom.current().nextInt(SESSIONS)];
+    }
+
+    /**
+     * 内存中的Mapper替身，每次调用停顿固定时间模拟一次数据库往返
+     */
+    private static final class StandInMapper implements LoginSessionMapper {
+        private final long roundTripNanos;
+        private final Map<String, LoginSession> table = new ConcurrentHashMap<>();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        private StandInMapper(long roundTripNanos) {
+            this.roundTripNanos = roundTripNanos;
+        }
+
+        private void roundTrip() {
+            calls.increment();
+            if (roundTripNanos > 0) {
+                LockSupport.parkNanos(roundTripNanos);
+            }
+        }
+
+        @Override
+        public int batchUpsert(List<LoginSession> sessions) {
+            roundTrip();
+            for (LoginSession session : sessions) {
+                table.put(session.getTicket(), session);
+            }
+            rows.add(sessions.size());
+            return sessions.size();
+        }
+
+        @Override
+        public LoginSession selectByTicket(String ticket, long now) {
+            roundTrip();
+            LoginSession session = table.get(ticket);
+            return session != null && !session.isExpired(now) ? session : null;
+        }
+
+        @Override
+        public String selectTicketBySceneId(String sceneId, long now) {
+            roundTrip();
+            return null;
+        }
+
+        @Override
+        public int deleteExpired(long before, int limit) {
+            roundTrip();
+            return 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.baidu.springai.benchmark;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.manager.LoginSessionReplicator;
+import com.baidu.springai.manager.LoginSessionRepository;
+import com.baidu.springai.manager.LoginSessionStore;
+import com.baidu.springai.manager.LoginStatusNotifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话存储并发基准
+ * 一个线程持续登记新会话（超过容量时淘汰最早到期的会话），其余线程按票据查询状态、按场景ID查找票据、标记登录，
+ * 对应二维码创建、状态轮询和扫码事件同时到达时两个并发索引的争用；查询落在最近登记的会话上，保证命中
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginSessionStoreBenchmark {
+
+    private static final int CAPACITY = 1 << 16;
+
+    private static final int KEY_SPACE = 1 << 20;
+
+    private static final int KEY_MASK = KEY_SPACE - 1;
+
+    private final String[] tickets = new String[KEY_SPACE];
+
+    private final String[] sceneIds = new String[KEY_SPACE];
+
+    private final AtomicLong registered = new AtomicLong();
+
+    private LoginSessionStore store;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < KEY_SPACE; i++) {
+            tickets[i] = "gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL" + i;
+            sceneIds[i] = String.valueOf(100000 + i);
+        }
+        WeChatConfig config = BenchmarkSupport.weChatConfig();
+        config.setSessionMaxSize(CAPACITY);
+        store = new LoginSessionStore();
+        BenchmarkSupport.inject(store, "weChatConfig", config);
+        BenchmarkSupport.inject(store, "loginStatusNotifier", new LoginStatusNotifier());
+        BenchmarkSupport.inject(store, "loginSessionRepository",
+                BenchmarkSupport.inject(new LoginSessionRepository(), "weChatConfig", config));
+        BenchmarkSupport.inject(store, "loginSessionReplicator",
+                BenchmarkSupport.inject(new LoginSessionReplicator(), "weChatConfig", config));
+        store.init();
+        for (int i = 0; i < CAPACITY; i++) {
+            register();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public LoginSession register() {
+        long n = registered.get();
+        int index = (int) (n & KEY_MASK);
+        LoginSession session = store.register(tickets[index], sceneIds[index]);
+        registered.lazySet(n + 1);
+        return session;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public LoginSession get() {
+        return store.get(tickets[recentIndex()]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public String findTicketByScene() {
+        return store.findTicketByScene(sceneIds[recentIndex()]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean markLoggedIn() {
+        return store.markLoggedIn(tickets[recentIndex()], "oABCD1234567890abcdefghijklmn");
+    }
+
+    /**
+     * 最近登记的一半容量范围内随机选一个会话
+     */
+    private int recentIndex() {
+        long latest = registered.get() - 1;
+        return (int) ((latest - ThreadLocalRandom.current().nextInt(CAPACITY / 2)) & KEY_MASK);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+package com.baidu.springai.benchmark;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.QrCodeImage;
+import com.baidu.springai.manager.QrCodeImageCache;
+import com.baidu.springai.manager.QrCodeRenderer;
+import com.baidu.springai.utils.WeChatApiUtil;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二维码图片获取基准：本地渲染、从showqrcode下载，以及请求实际走的按票据缓存命中路径（cachedPng）
+ * 下载走WeChatApiUtil和共享HttpClient，对端是本机的showqrcode替身，按latencyMillis模拟微信的响应时间；
+ * latencyMillis为0时只剩HTTP本身的开销
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QrCodeImageBenchmark {
+
+    private static final String QRCODE_URL = "http://weixin.qq.com/q/02kZgfwMTm72WWPkovabbJ";
+
+    private static final String TICKET =
+            "gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL2taZ2Z3TVRtNzJXV1Brb3ZhYmJJAAIEZ23sUwMEmm3sUw==";
+
+    /**
+     * 模拟的showqrcode响应时间（毫秒）
+     */
+    @Param({"0", "30"})
+    public long latencyMillis;
+
+    /**
+     * 渲染使用的掩码，-1为按罚分自动选择（默认配置）
+     */
+    @Param({"-1", "0"})
+    public int maskPattern;
+
+    private QrCodeRenderer renderer;
+
+    private QrCodeImageCache cache;
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    @Setup
+    public void setup() throws IOException {
+        WeChatConfig config = BenchmarkSupport.weChatConfig();
+        config.setQrcodeMaskPattern(maskPattern);
+        renderer = BenchmarkSupport.inject(new QrCodeRenderer(), "weChatConfig", config);
+        renderer.init();
+        byte[] png = renderer.renderPng(QRCODE_URL);
+        cache = BenchmarkSupport.inject(new QrCodeImageCache(), "weChatConfig", config);
+        cache.put(TICKET, new QrCodeImage(png, QrCodeRenderer.PNG_CONTENT_TYPE), Long.MAX_VALUE);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/cgi-bin/showqrcode", exchange -> {
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                exchange.getResponseHeaders().set("Content-Type", QrCodeRenderer.PNG_CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, png.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(png);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        config.setMpBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        WeChatApiUtil apiUtil = new WeChatApiUtil();
+        apiUtil.setWeChatConfig(config);
+        apiUtil.setHttpClient(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.getHttpConnectTimeoutMillis()))
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public byte[] renderPng() {
+        return renderer.renderPng(QRCODE_URL);
+    }
+
+    @Benchmark
+    public String renderSvg() {
+        return renderer.renderSvg(QRCODE_URL);
+    }
+
+    @Benchmark
+    public QrCodeImage cachedPng() {
+        return cache.getImage(TICKET, Long.MAX_VALUE, () -> {
+            throw new IllegalStateException("缓存未命中");
+        });
+    }
+
+    @Benchmark
+    public byte[] download() {
+        return WeChatApiUtil.downloadQrCodeImage(TICKET);
+    }
+}
\ No newline at end of file
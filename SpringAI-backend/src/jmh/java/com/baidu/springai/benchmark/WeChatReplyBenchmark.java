@@ -0,0 +1,62 @@
+package com.baidu.springai.benchmark;
+
+import com.baidu.springai.domain.WeChatReply;
+import com.baidu.springai.utils.WeChatReplyWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 被动回复构建基准
+ * LegacyXmlUtil.buildWeChatXmlResponse以String.format拼出整条回复再编码为UTF-8，是改为WeChatReplyWriter之前的路径；
+ * 配合-prof gc比较每条回复分配的字节数
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeChatReplyBenchmark {
+
+    private static final String TO_USER = "oABCD1234567890abcdefghijklmn";
+
+    private static final String FROM_USER = "gh_0123456789ab";
+
+    private static final String CONTENT = "登录成功！欢迎使用本系统。";
+
+    private final byte[] precompiled = WeChatReplyWriter.precompile(CONTENT);
+
+    @Benchmark
+    public byte[] stringFormat() {
+        return LegacyXmlUtil.buildWeChatXmlResponse(TO_USER, FROM_USER, CONTENT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void replyWriter() throws IOException {
+        WeChatReplyWriter.write(WeChatReply.text(TO_USER, FROM_USER, CONTENT), BenchmarkSupport.NULL_OUTPUT);
+    }
+
+    @Benchmark
+    public void replyWriterPrecompiled() throws IOException {
+        WeChatReplyWriter.write(WeChatReply.text(TO_USER, FROM_USER, precompiled), BenchmarkSupport.NULL_OUTPUT);
+    }
+
+    @Benchmark
+    public void replyWriterEmpty() throws IOException {
+        WeChatReplyWriter.write(WeChatReply.empty(), BenchmarkSupport.NULL_OUTPUT);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.baidu.springai.benchmark;
+
+import com.baidu.springai.domain.WeChatMessage;
+import com.baidu.springai.utils.XmlUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * webhook消息解析基准
+ * StAX流式解析直接得到消息实体；DOM解析得到Map后再经WeChatMessage.fromMap转换，是改为StAX之前的路径
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlParseBenchmark {
+
+    private static final String SCAN_EVENT = "<xml>"
+            + "<ToUserName><![CDATA[gh_0123456789ab]]></ToUserName>"
+            + "<FromUserName><![CDATA[oABCD1234567890abcdefghijklmn]]></FromUserName>"
+            + "<CreateTime>1760659200</CreateTime>"
+            + "<MsgType><![CDATA[event]]></MsgType>"
+            + "<Event><![CDATA[SCAN]]></Event>"
+            + "<EventKey><![CDATA[100123]]></EventKey>"
+            + "<Ticket><![CDATA[gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL2taZ2Z3TVRtNzJXV1Brb3ZhYmJJAAIEZ23sUwMEmm3sUw==]]></Ticket>"
+            + "</xml>";
+
+    private static final String TEXT_MESSAGE = "<xml>"
+            + "<ToUserName><![CDATA[gh_0123456789ab]]></ToUserName>"
+            + "<FromUserName><![CDATA[oABCD1234567890abcdefghijklmn]]></FromUserName>"
+            + "<CreateTime>1760659200</CreateTime>"
+            + "<MsgType><![CDATA[text]]></MsgType>"
+            + "<Content><![CDATA[你好，请问怎么扫码登录？]]></Content>"
+            + "<MsgId>24301234567890123</MsgId>"
+            + "<MsgDataId>xxxx</MsgDataId>"
+            + "<Idx>0</Idx>"
+            + "</xml>";
+
+    @Param({"scan", "text"})
+    public String message;
+
+    private byte[] body;
+
+    private Map<String, String> parsedMap;
+
+    @Setup
+    public void setup() {
+        body = ("scan".equals(message) ? SCAN_EVENT : TEXT_MESSAGE).getBytes(StandardCharsets.UTF_8);
+        parsedMap = LegacyXmlUtil.parseWeChatXmlMessage(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public WeChatMessage stax() {
+        return XmlUtil.parseWeChatMessage(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public WeChatMessage domAndFromMap() {
+        return WeChatMessage.fromMap(LegacyXmlUtil.parseWeChatXmlMessage(new ByteArrayInputStream(body)));
+    }
+
+    @Benchmark
+    public Map<String, String> dom() {
+        return LegacyXmlUtil.parseWeChatXmlMessage(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public WeChatMessage fromMap() {
+        return WeChatMessage.fromMap(parsedMap);
+    }
+}
\ No newline at end of file
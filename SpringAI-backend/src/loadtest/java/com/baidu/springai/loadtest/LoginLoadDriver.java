@@ -0,0 +1,326 @@
+package com.baidu.springai.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 扫码登录压测驱动
+ * 每个模拟浏览器循环执行：GET /api/auth/qrcode取二维码，按间隔轮询/api/auth/status；
+ * 同时模拟微信在扫码延迟后向webhook推送签名的SCAN事件。统计各接口吞吐、错误和延迟分位，
+ * 以及从推送扫码事件到浏览器轮询看到登录成功的延迟。后端需以loadtest配置连接WeChatApiStub，只依赖JDK：
+ * <pre>
+ * java src/loadtest/java/com/baidu/springai/loadtest/LoginLoadDriver.java \
+ *     --base-url=http://127.0.0.1:8080 --browsers=200 --duration=60
+ * </pre>
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public class LoginLoadDriver {
+
+    private static final Pattern QR_CODE_ID = Pattern.compile("\"qrCodeId\"\\s*:\\s*\"([^\"]+)\"");
+
+    private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final String token;
+    private final int browsers;
+    private final long durationMillis;
+    private final long warmupMillis;
+    private final long pollIntervalMillis;
+    private final long loginTimeoutMillis;
+    private final long scanDelayMinMillis;
+    private final long scanDelayMaxMillis;
+    private final double scanRate;
+    private final String label;
+
+    private final HttpClient httpClient;
+
+    private final AtomicLong openIdSequence = new AtomicLong();
+
+    private final Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    private volatile boolean measuring;
+
+    public LoginLoadDriver(Map<String, String> options) {
+        this.baseUrl = options.getOrDefault("base-url", "http://127.0.0.1:8080");
+        this.token = options.getOrDefault("token", "loadtest-token");
+        this.browsers = Integer.parseInt(options.getOrDefault("browsers", "100"));
+        this.durationMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("duration", "60")));
+        this.warmupMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("warmup", "10")));
+        this.pollIntervalMillis = Long.parseLong(options.getOrDefault("poll-interval", "1000"));
+        this.loginTimeoutMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("login-timeout", "30")));
+        String[] scanDelay = options.getOrDefault("scan-delay", "500:3000").split(":");
+        this.scanDelayMinMillis = Long.parseLong(scanDelay[0]);
+        this.scanDelayMaxMillis = Long.parseLong(scanDelay[scanDelay.length - 1]);
+        this.scanRate = Double.parseDouble(options.getOrDefault("scan-rate", "1.0"));
+        this.label = options.getOrDefault("label", "");
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        for (String name : new String[]{"qrcode", "status", "webhook", "scan-to-login"}) {
+            latencies.put(name, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        new LoginLoadDriver(options).run();
+    }
+
+    private void run() throws InterruptedException {
+        System.out.printf("压测 %s：%d个浏览器，预热%ds，测量%ds，轮询间隔%dms%n", baseUrl, browsers,
+                warmupMillis / 1000, durationMillis / 1000, pollIntervalMillis);
+        long start = System.currentTimeMillis();
+        long measureStart = start + warmupMillis;
+        long deadline = measureStart + durationMillis;
+        CountDownLatch done = new CountDownLatch(browsers);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < browsers; i++) {
+                int browser = i;
+                executor.execute(() -> {
+                    try {
+                        // 错开启动，避免所有浏览器同时请求
+                        Thread.sleep(ThreadLocalRandom.current().nextLong(Math.max(pollIntervalMillis, 1)));
+                        while (System.currentTimeMillis() < deadline) {
+                            runSession(browser, deadline);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            Thread.sleep(Math.max(measureStart - System.currentTimeMillis(), 0));
+            measuring = true;
+            long measuredFrom = System.nanoTime();
+            done.await();
+            measuring = false;
+            report((System.nanoTime() - measuredFrom) / 1e9);
+        }
+    }
+
+    /**
+     * 一次完整的扫码登录：取二维码、推送扫码事件、轮询直到登录成功或超时
+     */
+    private void runSession(int browser, long deadline) throws InterruptedException {
+        String forwardedFor = "10." + (browser >> 16 & 0xFF) + "." + (browser >> 8 & 0xFF) + "." + (browser & 0xFF);
+        String body = call("qrcode", HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/qrcode"))
+                .header("X-Forwarded-For", forwardedFor).GET());
+        Matcher qrCodeIdMatcher = body != null ? QR_CODE_ID.matcher(body) : null;
+        if (qrCodeIdMatcher == null || !qrCodeIdMatcher.find()) {
+            if (body != null) {
+                error("qrcode-body");
+            }
+            Thread.sleep(pollIntervalMillis);
+            return;
+        }
+        String qrCodeId = qrCodeIdMatcher.group(1);
+
+        AtomicLong scannedAt = new AtomicLong();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < scanRate) {
+            long delay = scanDelayMinMillis + random.nextLong(scanDelayMaxMillis - scanDelayMinMillis + 1);
+            Thread.ofVirtual().start(() -> scan(qrCodeId, delay, scannedAt));
+        }
+
+        String statusUrl = baseUrl + "/api/auth/status?qrCodeId=" + URLEncoder.encode(qrCodeId, StandardCharsets.UTF_8);
+        long giveUpAt = System.currentTimeMillis() + loginTimeoutMillis;
+        while (System.currentTimeMillis() < Math.min(giveUpAt, deadline)) {
+            Thread.sleep(pollIntervalMillis);
+            String statusBody = call("status", HttpRequest.newBuilder(URI.create(statusUrl))
+                    .header("X-Forwarded-For", forwardedFor).GET());
+            Matcher status = statusBody != null ? STATUS.matcher(statusBody) : null;
+            if (status == null || !status.find()) {
+                continue;
+            }
+            if ("success".equals(status.group(1))) {
+                long scanned = scannedAt.get();
+                if (measuring && scanned > 0) {
+                    logins.increment();
+                    latencies.get("scan-to-login").record(System.nanoTime() - scanned);
+                }
+                return;
+            }
+            if ("expired".equals(status.group(1))) {
+                error("status-expired");
+                return;
+            }
+        }
+        if (measuring) {
+            abandoned.increment();
+        }
+    }
+
+    /**
+     * 模拟微信推送SCAN事件，事件标识取自票据（WeChatApiStub的票据为STUB_场景ID_序号）
+     */
+    private void scan(String ticket, long delayMillis, AtomicLong scannedAt) {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            return;
+        }
+        String[] parts = ticket.split("_");
+        if (parts.length != 3) {
+            error("ticket-format");
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        String timestamp = String.valueOf(now);
+        String nonce = String.valueOf(ThreadLocalRandom.current().nextInt(1_000_000_000));
+        String openId = "oLOADTEST" + openIdSequence.incrementAndGet();
+        String xml = "<xml>"
+                + "<ToUserName><![CDATA[gh_loadtest]]></ToUserName>"
+                + "<FromUserName><![CDATA[" + openId + "]]></FromUserName>"
+                + "<CreateTime>" + now + "</CreateTime>"
+                + "<MsgType><![CDATA[event]]></MsgType>"
+                + "<Event><![CDATA[SCAN]]></Event>"
+                + "<EventKey><![CDATA[" + parts[1] + "]]></EventKey>"
+                + "<Ticket><![CDATA[" + ticket + "]]></Ticket>"
+                + "</xml>";
+        String url = baseUrl + "/api/v1/wechat/webhook?signature=" + sign(timestamp, nonce)
+                + "&timestamp=" + timestamp + "&nonce=" + nonce;
+        scannedAt.set(System.nanoTime());
+        call("webhook", HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "text/xml;charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofString(xml, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 发送请求并记录延迟，非2xx或I/O错误按类别计数
+     *
+     * @return 响应体，失败时返回null
+     */
+    private String call(String name, HttpRequest.Builder builder) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(builder.timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (measuring) {
+                latencies.get(name).record(System.nanoTime() - start);
+            }
+            if (response.statusCode() / 100 != 2) {
+                error(name + "-http-" + response.statusCode());
+                return null;
+            }
+            return response.body();
+        } catch (IOException e) {
+            error(name + "-" + e.getClass().getSimpleName());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void error(String kind) {
+        if (measuring) {
+            errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        }
+    }
+
+    private String sign(String timestamp, String nonce) {
+        String[] params = {token, timestamp, nonce};
+        Arrays.sort(params);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(String.join("", params).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void report(double seconds) {
+        System.out.println();
+        System.out.printf("==== 压测结果 %s（测量%.1fs）====%n", label, seconds);
+        System.out.printf("%-14s %10s %10s %9s %9s %9s %9s %9s%n",
+                "接口", "请求数", "吞吐/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9", "max");
+        latencies.forEach((name, recorder) -> {
+            long[] samples = recorder.snapshot();
+            System.out.printf("%-14s %10d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, samples.length,
+                    samples.length / seconds, percentile(samples, 50), percentile(samples, 90),
+                    percentile(samples, 99), percentile(samples, 99.9), percentile(samples, 100));
+        });
+        System.out.printf("登录成功 %d（%.1f/s），未登录（未扫码或超时）%d%n",
+                logins.sum(), logins.sum() / seconds, abandoned.sum());
+        if (errors.isEmpty()) {
+            System.out.println("错误: 无");
+        } else {
+            System.out.println("错误:");
+            errors.forEach((kind, count) -> System.out.printf("  %-30s %d%n", kind, count.sum()));
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.min(Math.max(index, 0), sorted.length - 1)] / 1e6;
+    }
+
+    /**
+     * 解析--key=value形式的参数
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("参数格式应为--key=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    /**
+     * 延迟样本记录（纳秒），报告时排序后取分位
+     */
+    private static final class LatencyRecorder {
+        private long[] samples = new long[1024];
+        private int size;
+
+        private synchronized void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        private synchronized long[] snapshot() {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
\ No newline at end of file
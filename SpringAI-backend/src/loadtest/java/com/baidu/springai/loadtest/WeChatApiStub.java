@@ -0,0 +1,312 @@
+package com.baidu.springai.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 微信接口替身
+ * 在本机实现cgi-bin/token、cgi-bin/qrcode/create和cgi-bin/showqrcode，用于离线压测扫码登录链路；
+ * 每个接口可单独配置响应延迟分布、微信错误码比例和HTTP错误比例。只依赖JDK，可直接以源文件启动：
+ * <pre>
+ * java src/loadtest/java/com/baidu/springai/loadtest/WeChatApiStub.java --port=18080 \
+ *     --qrcode-latency=lognormal:40:250 --qrcode-error-rate=0.01
+ * </pre>
+ * 延迟分布：fixed:毫秒、uniform:最小:最大、lognormal:中位数:p99。
+ * 票据格式为STUB_场景ID_序号（与真实票据一样只含URL安全的Base64字符），压测驱动据此构造对应的SCAN事件
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public class WeChatApiStub {
+
+    private static final Pattern SCENE_ID = Pattern.compile("\"scene_id\"\\s*:\\s*(\\d+)");
+
+    private static final Pattern EXPIRE_SECONDS = Pattern.compile("\"expire_seconds\"\\s*:\\s*(\\d+)");
+
+    private static final int TOKEN_EXPIRES_IN = 7200;
+
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    private final Set<String> issuedTokens = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong tokenSequence = new AtomicLong();
+
+    private final AtomicLong ticketSequence = new AtomicLong();
+
+    private final byte[] qrcodePng;
+
+    public WeChatApiStub(Map<String, String> options) throws IOException {
+        for (String name : new String[]{"token", "qrcode", "showqrcode"}) {
+            endpoints.put(name, new Endpoint(name,
+                    Latency.parse(options.getOrDefault(name + "-latency", "fixed:0")),
+                    Double.parseDouble(options.getOrDefault(name + "-error-rate", "0")),
+                    Double.parseDouble(options.getOrDefault(name + "-http-error-rate", "0"))));
+        }
+        this.qrcodePng = blankPng(430);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+        WeChatApiStub stub = new WeChatApiStub(options);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        // 模拟延迟时请求线程休眠，用虚拟线程避免延迟限制住并发
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/cgi-bin/token", exchange -> stub.handle(exchange, "token"));
+        server.createContext("/cgi-bin/qrcode/create", exchange -> stub.handle(exchange, "qrcode"));
+        server.createContext("/cgi-bin/showqrcode", exchange -> stub.handle(exchange, "showqrcode"));
+        server.createContext("/stub/stats", stub::handleStats);
+        server.start();
+
+        System.out.printf("微信接口替身已启动: http://127.0.0.1:%d%n", port);
+        stub.endpoints.values().forEach(endpoint -> System.out.println("  " + endpoint.describe()));
+
+        long interval = Long.parseLong(options.getOrDefault("report-interval", "10"));
+        if (interval > 0) {
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "stub-report");
+                thread.setDaemon(true);
+                return thread;
+            }).scheduleAtFixedRate(() -> System.out.println(stub.stats()), interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    private void handle(HttpExchange exchange, String name) throws IOException {
+        Endpoint endpoint = endpoints.get(name);
+        try (exchange) {
+            byte[] body = readBody(exchange.getRequestBody());
+            endpoint.requests.increment();
+            sleep(endpoint.latency.sample());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < endpoint.httpErrorRate) {
+                endpoint.httpErrors.increment();
+                send(exchange, 503, "text/plain", "stub injected error".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (random.nextDouble() < endpoint.errorRate) {
+                endpoint.errcodes.increment();
+                // 45009为接口调用超过限制，是压测中最常见的真实错误
+                sendJson(exchange, "{\"errcode\":45009,\"errmsg\":\"reach max api daily quota limit\"}");
+                return;
+            }
+            switch (name) {
+                case "token" -> handleToken(exchange);
+                case "qrcode" -> handleQrCode(exchange, new String(body, StandardCharsets.UTF_8));
+                default -> send(exchange, 200, "image/png", qrcodePng);
+            }
+        }
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (isBlank(query.get("appid")) || isBlank(query.get("secret"))) {
+            sendJson(exchange, "{\"errcode\":41002,\"errmsg\":\"appid missing\"}");
+            return;
+        }
+        String token = "STUB_TOKEN_" + tokenSequence.incrementAndGet();
+        issuedTokens.add(token);
+        sendJson(exchange, "{\"access_token\":\"" + token + "\",\"expires_in\":" + TOKEN_EXPIRES_IN + "}");
+    }
+
+    private void handleQrCode(HttpExchange exchange, String body) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (!issuedTokens.contains(query.getOrDefault("access_token", ""))) {
+            sendJson(exchange, "{\"errcode\":40001,\"errmsg\":\"invalid credential, access_token is invalid\"}");
+            return;
+        }
+        Matcher scene = SCENE_ID.matcher(body);
+        if (!scene.find()) {
+            sendJson(exchange, "{\"errcode\":40053,\"errmsg\":\"invalid action info\"}");
+            return;
+        }
+        Matcher expire = EXPIRE_SECONDS.matcher(body);
+        String expireSeconds = expire.find() ? expire.group(1) : "60";
+        long sequence = ticketSequence.incrementAndGet();
+        String ticket = "STUB_" + scene.group(1) + "_" + sequence;
+        sendJson(exchange, "{\"ticket\":\"" + ticket + "\",\"expire_seconds\":" + expireSeconds
+                + ",\"url\":\"http://weixin.qq.com/q/stub" + sequence + "\"}");
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder json = new StringBuilder("{");
+            for (Endpoint endpoint : endpoints.values()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append('"').append(endpoint.name).append("\":{\"requests\":").append(endpoint.requests.sum())
+                        .append(",\"errcodes\":").append(endpoint.errcodes.sum())
+                        .append(",\"httpErrors\":").append(endpoint.httpErrors.sum()).append('}');
+            }
+            sendJson(exchange, json.append('}').toString());
+        }
+    }
+
+    private String stats() {
+        StringBuilder line = new StringBuilder("[stub]");
+        for (Endpoint endpoint : endpoints.values()) {
+            line.append(' ').append(endpoint.name).append(": ").append(endpoint.requests.sum())
+                    .append(" (errcode ").append(endpoint.errcodes.sum())
+                    .append(", http ").append(endpoint.httpErrors.sum()).append(')');
+        }
+        return line.toString();
+    }
+
+    private static void sendJson(HttpExchange exchange, String json) throws IOException {
+        send(exchange, 200, "application/json; encoding=utf-8", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] blankPng(int size) throws IOException {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_BINARY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * 解析--key=value形式的参数
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("参数格式应为--key=value: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    /**
+     * 单个接口的故障注入配置与计数
+     */
+    private static final class Endpoint {
+        private final String name;
+        private final Latency latency;
+        private final double errorRate;
+        private final double httpErrorRate;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errcodes = new LongAdder();
+        private final LongAdder httpErrors = new LongAdder();
+
+        private Endpoint(String name, Latency latency, double errorRate, double httpErrorRate) {
+            this.name = name;
+            this.latency = latency;
+            this.errorRate = errorRate;
+            this.httpErrorRate = httpErrorRate;
+        }
+
+        private String describe() {
+            return String.format("%-10s 延迟 %s，错误码比例 %.4f，HTTP错误比例 %.4f", name, latency, errorRate, httpErrorRate);
+        }
+    }
+
+    /**
+     * 延迟分布
+     */
+    record Latency(String kind, double a, double b) {
+
+        /**
+         * 标准正态分布的99分位
+         */
+        private static final double Z99 = 2.326;
+
+        static Latency parse(String spec) {
+            String[] parts = spec.split(":");
+            return switch (parts[0]) {
+                case "fixed" -> new Latency("fixed", Double.parseDouble(parts[1]), 0);
+                case "uniform", "lognormal" ->
+                        new Latency(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default -> throw new IllegalArgumentException("未知的延迟分布: " + spec);
+            };
+        }
+
+        /**
+         * 取一个样本（毫秒）
+         */
+        long sample() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return switch (kind) {
+                case "uniform" -> Math.round(a + random.nextDouble() * (b - a));
+                // a为中位数，b为p99
+                case "lognormal" -> Math.round(a * Math.exp(Math.log(b / a) / Z99 * random.nextGaussian()));
+                default -> Math.round(a);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return switch (kind) {
+                case "uniform" -> String.format("uniform[%.0f, %.0f]ms", a, b);
+                case "lognormal" -> String.format("lognormal(p50=%.0fms, p99=%.0fms)", a, b);
+                default -> String.format("%.0fms", a);
+            };
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+# 扫码登录压测：启动WeChatApiStub和loadtest配置的后端，分别在平台线程和虚拟线程下跑一轮LoginLoadDriver
+# 用法（在SpringAI-backend目录下）：src/loadtest/run-loadtest.sh [传给LoginLoadDriver的参数，如 --browsers=500 --duration=120]
+# 环境变量：STUB_ARGS 传给WeChatApiStub的参数，如 "--qrcode-latency=lognormal:80:400 --qrcode-error-rate=0.01"
+#          MODES 要对比的虚拟线程开关，默认 "false true"
+#          BROWSERS 模拟浏览器数，默认500，命令行的--browsers优先
+#          TOMCAT_THREADS 平台线程模式下Tomcat的最大工作线程数（server.tomcat.threads.max），默认50；
+#                         浏览器数要明显高于它，否则平台线程池始终够用，两种模式对比不出容量上限
+#          APP_JAVA_OPTS 后端的JVM参数，如 "-Djdk.virtualThreadScheduler.parallelism=4"
+# 虚拟线程模式加-Djdk.tracePinnedThreads=short，跑完统计日志中钉住载体线程的堆栈
+set -euo pipefail
+
+cd "$(dirname "$0")/../.."
+
+LOADTEST_DIR=src/loadtest/java/com/baidu/springai/loadtest
+APP_PORT=${APP_PORT:-8080}
+STUB_PORT=18080
+MODES=${MODES:-"false true"}
+BROWSERS=${BROWSERS:-500}
+TOMCAT_THREADS=${TOMCAT_THREADS:-50}
+
+mvn -B -q compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+
+pids=()
+cleanup() {
+    for pid in "${pids[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+}
+trap cleanup EXIT
+
+wait_for() {
+    for _ in $(seq 1 60); do
+        if curl -sf -o /dev/null "$1"; then
+            return 0
+        fi
+        sleep 1
+    done
+    echo "等待 $1 超时" >&2
+    return 1
+}
+
+java -Dstdout.encoding=UTF-8 "$LOADTEST_DIR/WeChatApiStub.java" --port=$STUB_PORT ${STUB_ARGS:-} > target/wechat-stub.log 2>&1 &
+pids+=($!)
+wait_for "http://127.0.0.1:$STUB_PORT/stub/stats"
+
+for virtual in $MODES; do
+    app_log="target/loadtest-app-virtual-$virtual.log"
+    jvm_args=(${APP_JAVA_OPTS:-})
+    if [ "$virtual" = "true" ]; then
+        jvm_args+=(-Djdk.tracePinnedThreads=short)
+    fi
+    java ${jvm_args[@]+"${jvm_args[@]}"} -cp "target/classes:$(cat target/classpath.txt)" com.baidu.springai.Application \
+        --spring.profiles.active=loadtest \
+        --server.port="$APP_PORT" \
+        --server.tomcat.threads.max="$TOMCAT_THREADS" \
+        --spring.threads.virtual.enabled="$virtual" > "$app_log" 2>&1 &
+    app_pid=$!
+    pids+=($app_pid)
+    wait_for "http://127.0.0.1:$APP_PORT/actuator/health"
+
+    java -Dstdout.encoding=UTF-8 "$LOADTEST_DIR/LoginLoadDriver.java" \
+        --base-url="http://127.0.0.1:$APP_PORT" \
+        --token=loadtest-token \
+        --label="virtual-$virtual" \
+        --browsers="$BROWSERS" "$@"
+
+    kill "$app_pid"
+    wait "$app_pid" 2>/dev/null || true
+    if [ "$virtual" = "true" ]; then
+        # JDK 21每个不同的钉住堆栈只打印一次，以虚拟线程名开头，锁所在的栈帧标有<== monitors
+        echo "virtual-$virtual 钉住载体线程的不同堆栈数: $(grep -c '^VirtualThread\[' "$app_log" || true)（堆栈见 $app_log）"
+    else
+        echo "virtual-$virtual Tomcat最大工作线程数: $TOMCAT_THREADS"
+    fi
+done
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.baidu.springai.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 做阻塞I/O（调用微信接口、下载图片）的后台线程池
+ * 线程数固定，用来限制对微信接口的并发；启用虚拟线程时池中是虚拟线程，否则是守护平台线程
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public class BlockingIoExecutors {
+
+    private final boolean virtualThreads;
+
+    public BlockingIoExecutors(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 创建固定线程数的线程池
+     *
+     * @param namePrefix 线程名前缀，后接从1开始的序号
+     * @param threads 线程数
+     * @return 线程池
+     */
+    public ExecutorService newFixedThreadPool(String namePrefix, int threads) {
+        return Executors.newFixedThreadPool(Math.max(threads, 1), threadFactory(namePrefix));
+    }
+
+    private ThreadFactory threadFactory(String namePrefix) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name(namePrefix, 1).factory();
+        }
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, namePrefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
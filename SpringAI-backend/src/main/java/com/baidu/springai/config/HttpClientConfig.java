@@ -0,0 +1,30 @@
+package com.baidu.springai.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * HTTP客户端配置
+ * 调用微信接口共用一个HttpClient：连接保持复用，服务端支持时使用HTTP/2，连接超时统一配置，
+ * 各接口的读取超时由调用方按请求设置。
+ * 异步回调始终用HttpClient默认的平台线程池：回调很短，但放在虚拟线程上要和渲染二维码等不让出的计算排队等载体线程，
+ * 载体线程少时响应处理被推迟到读取超时之后，大量请求误判为超时并触发熔断
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient weChatHttpClient(WeChatConfig weChatConfig) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(weChatConfig.getHttpConnectTimeoutMillis()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.baidu.springai.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 线程配置
+ * spring.threads.virtual.enabled只在这里读取：Tomcat请求线程由Spring Boot按该开关切换，
+ * 应用自己的阻塞I/O线程池都从BlockingIoExecutors创建，随同一个开关使用虚拟线程
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Configuration
+public class ThreadingConfig {
+
+    @Bean
+    public BlockingIoExecutors blockingIoExecutors(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return new BlockingIoExecutors(virtualThreads);
+    }
+}
@@ -4,6 +4,11 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 微信配置类
  * 
@@ -22,16 +27,145 @@ public class WeChatConfig {
     // 可配置的值，如果配置文件中没有设置，则使用默认值
     private int qrcodeExpireSeconds = WeChatConstants.DEFAULT_QRCODE_EXPIRE_SECONDS;
     
+    // access_token在过期前多少秒由后台提前刷新
+    private int accessTokenRefreshAheadSeconds = WeChatConstants.DEFAULT_ACCESS_TOKEN_REFRESH_AHEAD_SECONDS;
+    // 后台刷新失败后的重试间隔（秒）
+    private int accessTokenRetrySeconds = WeChatConstants.DEFAULT_ACCESS_TOKEN_RETRY_SECONDS;
+    
+    // 登录窗口（秒），会话有效期取该值与二维码有效期中的较小值，小于等于0表示仅按二维码有效期
+    private int loginWindowSeconds = WeChatConstants.DEFAULT_LOGIN_WINDOW_SECONDS;
+    // 内存中最多保留的登录会话数
+    private int sessionMaxSize = WeChatConstants.DEFAULT_SESSION_MAX_SIZE;
+    // 长轮询登录状态的最长挂起时间（毫秒）
+    private long longPollTimeoutMillis = WeChatConstants.DEFAULT_LONG_POLL_TIMEOUT_MILLIS;
+    // SSE登录状态推送的心跳间隔（秒）
+    private int sseHeartbeatSeconds = WeChatConstants.DEFAULT_SSE_HEARTBEAT_SECONDS;
+    // SSE发送线程数，需大于同时可能卡住的连接数（每个卡住的连接在写超时前占住一个线程）
+    private int sseSenderThreads = WeChatConstants.DEFAULT_SSE_SENDER_THREADS;
+    
+    // 二维码预热池：是否启用、容量、低水位、补充并发度、票据最少剩余有效期（秒）、统计取用量的窗口（秒）
+    private boolean qrcodePoolEnabled = false;
+    private int qrcodePoolSize = WeChatConstants.DEFAULT_QRCODE_POOL_SIZE;
+    private int qrcodePoolLowWater = WeChatConstants.DEFAULT_QRCODE_POOL_LOW_WATER;
+    private int qrcodePoolRefillConcurrency = WeChatConstants.DEFAULT_QRCODE_POOL_REFILL_CONCURRENCY;
+    private int qrcodePoolMinRemainingSeconds = WeChatConstants.DEFAULT_QRCODE_POOL_MIN_REMAINING_SECONDS;
+    private int qrcodePoolDemandWindowSeconds = WeChatConstants.DEFAULT_QRCODE_POOL_DEMAND_WINDOW_SECONDS;
+    
+    // 二维码图片缓存的字节上限
+    private long qrcodeImageCacheMaxBytes = WeChatConstants.DEFAULT_QRCODE_IMAGE_CACHE_MAX_BYTES;
+    
+    // 二维码图片来源：local-根据url本地渲染，remote-从showqrcode下载
+    private String qrcodeRenderMode = WeChatConstants.QRCODE_RENDER_MODE_LOCAL;
+    // 本地渲染时每个模块的像素数、静区模块数、纠错等级（L/M/Q/H）、掩码（0-7，-1表示按罚分从8种掩码中择优）
+    private int qrcodeModuleSize = WeChatConstants.DEFAULT_QRCODE_MODULE_SIZE;
+    private int qrcodeQuietZone = WeChatConstants.DEFAULT_QRCODE_QUIET_ZONE;
+    private String qrcodeErrorCorrection = WeChatConstants.DEFAULT_QRCODE_ERROR_CORRECTION;
+    private int qrcodeMaskPattern = WeChatConstants.DEFAULT_QRCODE_MASK_PATTERN;
+    
+    // 批量创建二维码：单次最多数量、并发调用微信接口的线程数（所有批量请求共享）
+    private int qrcodeBatchMaxSize = WeChatConstants.DEFAULT_QRCODE_BATCH_MAX_SIZE;
+    private int qrcodeBatchParallelism = WeChatConstants.DEFAULT_QRCODE_BATCH_PARALLELISM;
+    
+    // 登录状态响应使用预编码JSON的接口（status-轮询、long-poll-长轮询、stream-SSE推送），未列出的接口由Jackson序列化
+    private List<String> precomputedJsonEndpoints = new ArrayList<>(WeChatConstants.DEFAULT_PRECOMPUTED_JSON_ENDPOINTS);
+    
+    // 场景ID号段租约存储：file-本地文件（单节点），database-MySQL（多节点）
+    private String sceneIdStore = WeChatConstants.SCENE_ID_STORE_FILE;
+    // 本地租约文件路径、每次租用的号段长度、等待二维码过期回收的场景ID数上限
+    private String sceneIdLeaseFile = WeChatConstants.DEFAULT_SCENE_ID_LEASE_FILE;
+    private int sceneIdLeaseSize = WeChatConstants.DEFAULT_SCENE_ID_LEASE_SIZE;
+    private int sceneIdRecycleMaxPending = WeChatConstants.DEFAULT_SCENE_ID_RECYCLE_MAX_PENDING;
+    
+    // 登录会话持久化：是否启用、批量写入间隔（毫秒）、单批最大行数（积累到该数量时立即写入）
+    private boolean sessionPersistenceEnabled = false;
+    private long sessionFlushIntervalMillis = WeChatConstants.DEFAULT_SESSION_FLUSH_INTERVAL_MILLIS;
+    private int sessionFlushBatchSize = WeChatConstants.DEFAULT_SESSION_FLUSH_BATCH_SIZE;
+    // 数据库中也查不到的票据与场景ID在多长时间内（毫秒）不再回源、最多记录多少条
+    private long sessionMissCacheMillis = WeChatConstants.DEFAULT_SESSION_MISS_CACHE_MILLIS;
+    private int sessionMissCacheMaxSize = WeChatConstants.DEFAULT_SESSION_MISS_CACHE_MAX_SIZE;
+    
+    // 集群模式：是否启用、节点ID（为空时自动生成）、会话变更的写出与读取间隔（毫秒）
+    private boolean clusterEnabled = false;
+    private String clusterNodeId;
+    private long clusterSyncIntervalMillis = WeChatConstants.DEFAULT_CLUSTER_SYNC_INTERVAL_MILLIS;
+    // 序号空洞（尚未提交的事务）继续重读的时长（毫秒），超过后视为回滚留下的空洞
+    private long clusterGapRetryMillis = WeChatConstants.DEFAULT_CLUSTER_GAP_RETRY_MILLIS;
+    // 本节点查不到的票据等待其他节点复制过来的最长时间（毫秒），超过后才按已过期答复
+    private long clusterReplicaWaitMillis = WeChatConstants.DEFAULT_CLUSTER_REPLICA_WAIT_MILLIS;
+    
+    // webhook异步处理：是否启用、事件队列容量（向上取2的幂）、工作线程数
+    private boolean webhookAsyncEnabled = false;
+    private int webhookQueueCapacity = WeChatConstants.DEFAULT_WEBHOOK_QUEUE_CAPACITY;
+    private int webhookWorkers = WeChatConstants.DEFAULT_WEBHOOK_WORKERS;
+    
+    // webhook去重：是否启用、槽位数（向上取2的幂）、去重时间窗口（毫秒）、
+    // 重推到达时首次处理仍未完成，等待首次处理结果的最长时间（毫秒，须小于微信的5秒超时）
+    private boolean webhookDedupEnabled = true;
+    private int webhookDedupCapacity = WeChatConstants.DEFAULT_WEBHOOK_DEDUP_CAPACITY;
+    private long webhookDedupWindowMillis = WeChatConstants.DEFAULT_WEBHOOK_DEDUP_WINDOW_MILLIS;
+    private long webhookDedupInFlightWaitMillis = WeChatConstants.DEFAULT_WEBHOOK_DEDUP_IN_FLIGHT_WAIT_MILLIS;
+    
+    // webhook消息推送签名校验：是否启用、时间戳允许的最大偏差（秒）
+    private boolean webhookSignatureRequired = true;
+    private long webhookTimestampToleranceSeconds = WeChatConstants.DEFAULT_WEBHOOK_TIMESTAMP_TOLERANCE_SECONDS;
+    
+    // 微信接口地址：api.weixin.qq.com与mp.weixin.qq.com的根地址，可指向本地模拟服务
+    private String apiBaseUrl = WeChatConstants.DEFAULT_API_BASE_URL;
+    private String mpBaseUrl = WeChatConstants.DEFAULT_MP_BASE_URL;
+    
+    // HTTP客户端超时（毫秒）：建立连接、获取access_token、创建二维码、下载二维码图片
+    private long httpConnectTimeoutMillis = WeChatConstants.DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS;
+    private long apiTokenTimeoutMillis = WeChatConstants.DEFAULT_API_TOKEN_TIMEOUT_MILLIS;
+    private long apiQrcodeTimeoutMillis = WeChatConstants.DEFAULT_API_QRCODE_TIMEOUT_MILLIS;
+    private long qrcodeDownloadTimeoutMillis = WeChatConstants.DEFAULT_QRCODE_DOWNLOAD_TIMEOUT_MILLIS;
+    
+    // 微信接口对冲：是否启用、触发对冲的耗时分位数、最小对冲延迟（毫秒）、对冲次数占正常请求的百分比上限
+    private boolean apiHedgeEnabled = false;
+    private int apiHedgePercentile = WeChatConstants.DEFAULT_API_HEDGE_PERCENTILE;
+    private long apiHedgeMinDelayMillis = WeChatConstants.DEFAULT_API_HEDGE_MIN_DELAY_MILLIS;
+    private int apiHedgeBudgetPercent = WeChatConstants.DEFAULT_API_HEDGE_BUDGET_PERCENT;
+    
+    // 微信接口熔断：是否启用、失败率阈值（百分比）、窗口内最少调用数、统计窗口（秒）、熔断时长（毫秒）
+    private boolean apiCircuitEnabled = true;
+    private int apiCircuitFailureRatePercent = WeChatConstants.DEFAULT_API_CIRCUIT_FAILURE_RATE_PERCENT;
+    private int apiCircuitMinimumCalls = WeChatConstants.DEFAULT_API_CIRCUIT_MINIMUM_CALLS;
+    private int apiCircuitWindowSeconds = WeChatConstants.DEFAULT_API_CIRCUIT_WINDOW_SECONDS;
+    private long apiCircuitOpenMillis = WeChatConstants.DEFAULT_API_CIRCUIT_OPEN_MILLIS;
+    
+    // 二维码创建限流：是否启用、是否信任X-Forwarded-For及可信代理层数、客户端桶表容量、锁分段数、
+    // 全局每日配额（北京时间零点重置）、全局每秒平滑速率及突发量（速率为0时不做平滑）
+    private boolean rateLimitEnabled = true;
+    private boolean rateLimitTrustForwardedFor = false;
+    private int rateLimitTrustedProxyHops = WeChatConstants.DEFAULT_RATE_LIMIT_TRUSTED_PROXY_HOPS;
+    private int rateLimitClientCapacity = WeChatConstants.DEFAULT_RATE_LIMIT_CLIENT_CAPACITY;
+    private int rateLimitStripes = WeChatConstants.DEFAULT_RATE_LIMIT_STRIPES;
+    private int rateLimitGlobalDailyQuota = WeChatConstants.DEFAULT_RATE_LIMIT_GLOBAL_DAILY_QUOTA;
+    private int rateLimitGlobalPermitsPerSecond = WeChatConstants.DEFAULT_RATE_LIMIT_GLOBAL_PERMITS_PER_SECOND;
+    private int rateLimitGlobalBurst = WeChatConstants.DEFAULT_RATE_LIMIT_GLOBAL_BURST;
+    // 按接口的客户端限流规则，键为规则名称（qrcode、qrcode-ticket、qrcode-batch）
+    private Map<String, RateLimitRule> rateLimitRules = new LinkedHashMap<>();
+    
     // 获取URL模板的方法
     public String getQrcodeUrlTemplate() {
-        return WeChatConstants.QRCODE_URL_TEMPLATE;
+        return mpBaseUrl + WeChatConstants.QRCODE_SHOW_PATH;
     }
     
     public String getApiTokenUrl() {
-        return WeChatConstants.API_TOKEN_URL;
+        return apiBaseUrl + WeChatConstants.API_TOKEN_PATH;
     }
     
     public String getApiQrcodeUrl() {
-        return WeChatConstants.API_QRCODE_URL;
+        return apiBaseUrl + WeChatConstants.API_QRCODE_PATH;
+    }
+    
+    /**
+     * 客户端限流规则
+     */
+    @Data
+    public static class RateLimitRule {
+        // 每分钟补充的许可数
+        private int permitsPerMinute;
+        // 突发容量，即桶的大小
+        private int burst = 1;
     }
 }
\ No newline at end of file
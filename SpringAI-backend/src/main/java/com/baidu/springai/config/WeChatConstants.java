@@ -1,5 +1,7 @@
 package com.baidu.springai.config;
 
+import java.util.List;
+
 /**
  * 微信相关常量
  * 
@@ -12,9 +14,100 @@ public final class WeChatConstants {
     
     // 二维码相关常量
     public static final int DEFAULT_QRCODE_EXPIRE_SECONDS = 604800;
-    public static final String QRCODE_URL_TEMPLATE = "https://mp.weixin.qq.com/cgi-bin/showqrcode?ticket=%s";
+    public static final String QRCODE_REMOTE_CONTENT_TYPE = "image/jpeg";
     
     // API相关常量
-    public static final String API_TOKEN_URL = "https://api.weixin.qq.com/cgi-bin/token?grant_type=client_credential&appid=%s&secret=%s";
-    public static final String API_QRCODE_URL = "https://api.weixin.qq.com/cgi-bin/qrcode/create?access_token=%s";
+    public static final String DEFAULT_API_BASE_URL = "https://api.weixin.qq.com";
+    public static final String DEFAULT_MP_BASE_URL = "https://mp.weixin.qq.com";
+    public static final String API_TOKEN_PATH = "/cgi-bin/token?grant_type=client_credential&appid=%s&secret=%s";
+    public static final String API_QRCODE_PATH = "/cgi-bin/qrcode/create?access_token=%s";
+    public static final String QRCODE_SHOW_PATH = "/cgi-bin/showqrcode?ticket=%s";
+    
+    // HTTP客户端相关常量
+    public static final long DEFAULT_HTTP_CONNECT_TIMEOUT_MILLIS = 2000L;
+    public static final long DEFAULT_API_TOKEN_TIMEOUT_MILLIS = 5000L;
+    public static final long DEFAULT_API_QRCODE_TIMEOUT_MILLIS = 3000L;
+    public static final long DEFAULT_QRCODE_DOWNLOAD_TIMEOUT_MILLIS = 5000L;
+    
+    // 微信接口对冲与熔断相关常量
+    public static final int DEFAULT_API_HEDGE_PERCENTILE = 95;
+    public static final long DEFAULT_API_HEDGE_MIN_DELAY_MILLIS = 50L;
+    public static final int DEFAULT_API_HEDGE_BUDGET_PERCENT = 10;
+    public static final int DEFAULT_API_CIRCUIT_FAILURE_RATE_PERCENT = 50;
+    public static final int DEFAULT_API_CIRCUIT_MINIMUM_CALLS = 20;
+    public static final int DEFAULT_API_CIRCUIT_WINDOW_SECONDS = 10;
+    public static final long DEFAULT_API_CIRCUIT_OPEN_MILLIS = 10000L;
+    
+    // 限流相关常量
+    public static final int DEFAULT_RATE_LIMIT_CLIENT_CAPACITY = 65536;
+    public static final int DEFAULT_RATE_LIMIT_STRIPES = 64;
+    public static final int DEFAULT_RATE_LIMIT_TRUSTED_PROXY_HOPS = 1;
+    public static final int DEFAULT_RATE_LIMIT_GLOBAL_DAILY_QUOTA = 100000;
+    public static final int DEFAULT_RATE_LIMIT_GLOBAL_PERMITS_PER_SECOND = 200;
+    public static final int DEFAULT_RATE_LIMIT_GLOBAL_BURST = 200;
+    
+    // access_token相关常量
+    public static final int DEFAULT_ACCESS_TOKEN_EXPIRE_SECONDS = 7200;
+    public static final int DEFAULT_ACCESS_TOKEN_REFRESH_AHEAD_SECONDS = 300;
+    public static final int DEFAULT_ACCESS_TOKEN_RETRY_SECONDS = 30;
+    
+    // 登录会话相关常量
+    public static final int DEFAULT_LOGIN_WINDOW_SECONDS = 600;
+    public static final int DEFAULT_SESSION_MAX_SIZE = 100000;
+    public static final long DEFAULT_LONG_POLL_TIMEOUT_MILLIS = 25000L;
+    public static final int DEFAULT_SSE_HEARTBEAT_SECONDS = 15;
+    public static final int DEFAULT_SSE_SENDER_THREADS = 8;
+    
+    // 二维码预热池相关常量
+    public static final int DEFAULT_QRCODE_POOL_SIZE = 20;
+    public static final int DEFAULT_QRCODE_POOL_LOW_WATER = 5;
+    public static final int DEFAULT_QRCODE_POOL_REFILL_CONCURRENCY = 2;
+    public static final int DEFAULT_QRCODE_POOL_MIN_REMAINING_SECONDS = 600;
+    public static final int DEFAULT_QRCODE_POOL_DEMAND_WINDOW_SECONDS = 600;
+    
+    // 二维码图片缓存相关常量
+    public static final long DEFAULT_QRCODE_IMAGE_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+    
+    // 二维码本地渲染相关常量
+    public static final String QRCODE_RENDER_MODE_LOCAL = "local";
+    public static final String QRCODE_RENDER_MODE_REMOTE = "remote";
+    public static final int DEFAULT_QRCODE_MODULE_SIZE = 8;
+    public static final int DEFAULT_QRCODE_QUIET_ZONE = 4;
+    public static final String DEFAULT_QRCODE_ERROR_CORRECTION = "M";
+    public static final int DEFAULT_QRCODE_MASK_PATTERN = -1;
+    
+    // 批量创建二维码相关常量
+    public static final int DEFAULT_QRCODE_BATCH_MAX_SIZE = 50;
+    public static final int DEFAULT_QRCODE_BATCH_PARALLELISM = 8;
+    
+    // 响应写出相关常量
+    public static final List<String> DEFAULT_PRECOMPUTED_JSON_ENDPOINTS = List.of("status", "long-poll", "stream");
+    
+    // 场景ID分配相关常量
+    public static final String SCENE_ID_STORE_FILE = "file";
+    public static final String SCENE_ID_STORE_DATABASE = "database";
+    public static final String DEFAULT_SCENE_ID_LEASE_FILE = "data/scene-id.lease";
+    public static final int DEFAULT_SCENE_ID_LEASE_SIZE = 10000;
+    public static final int DEFAULT_SCENE_ID_RECYCLE_MAX_PENDING = 200000;
+    
+    // 登录会话持久化相关常量
+    public static final long DEFAULT_SESSION_FLUSH_INTERVAL_MILLIS = 200L;
+    public static final int DEFAULT_SESSION_FLUSH_BATCH_SIZE = 500;
+    public static final long DEFAULT_SESSION_MISS_CACHE_MILLIS = 2000L;
+    public static final int DEFAULT_SESSION_MISS_CACHE_MAX_SIZE = 65536;
+    
+    // 集群模式相关常量
+    public static final long DEFAULT_CLUSTER_SYNC_INTERVAL_MILLIS = 20L;
+    public static final long DEFAULT_CLUSTER_GAP_RETRY_MILLIS = 5000L;
+    public static final long DEFAULT_CLUSTER_REPLICA_WAIT_MILLIS = 300L;
+    
+    // webhook异步处理相关常量
+    public static final int DEFAULT_WEBHOOK_QUEUE_CAPACITY = 4096;
+    public static final int DEFAULT_WEBHOOK_WORKERS = 2;
+    
+    // webhook去重相关常量（微信5秒超时后最多重推三次）
+    public static final int DEFAULT_WEBHOOK_DEDUP_CAPACITY = 65536;
+    public static final long DEFAULT_WEBHOOK_DEDUP_WINDOW_MILLIS = 30000L;
+    public static final long DEFAULT_WEBHOOK_DEDUP_IN_FLIGHT_WAIT_MILLIS = 3000L;
+    public static final long DEFAULT_WEBHOOK_TIMESTAMP_TOLERANCE_SECONDS = 300L;
 }
\ No newline at end of file
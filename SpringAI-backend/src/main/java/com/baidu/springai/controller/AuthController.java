@@ -1,15 +1,35 @@
 package com.baidu.springai.controller;
 
-import cn.hutool.core.codec.Base64;
-import cn.hutool.http.HttpUtil;
 import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
 import com.baidu.springai.domain.LoginStatusResponse;
-import com.baidu.springai.domain.QrCodeResponse;
+import com.baidu.springai.domain.QrCodeBatchItem;
+import com.baidu.springai.domain.QrCodeBatchResponse;
+import com.baidu.springai.domain.QrCodeImage;
+import com.baidu.springai.domain.QrCodeTicket;
+import com.baidu.springai.manager.LoginStatusResponseWriter;
+import com.baidu.springai.manager.LoginStatusStreamManager;
+import com.baidu.springai.manager.QrCodeResponseWriter;
+import com.baidu.springai.manager.RateLimiter;
 import com.baidu.springai.resp.Response;
 import com.baidu.springai.service.WeiXinLoginService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * 认证控制器
@@ -24,38 +44,202 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin
 public class AuthController {
 
+    /**
+     * SSE连接超时时间在会话剩余有效期之上的余量（毫秒）
+     */
+    private static final long SSE_TIMEOUT_MARGIN_MILLIS = 5000L;
+
     @Autowired
     private WeiXinLoginService weiXinLoginService;
     
     @Autowired
     private WeChatConfig weChatConfig;
+    
+    @Autowired
+    private LoginStatusStreamManager loginStatusStreamManager;
+    
+    @Autowired
+    private QrCodeResponseWriter qrCodeResponseWriter;
+    
+    @Autowired
+    private LoginStatusResponseWriter loginStatusResponseWriter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
 
     /**
      * 获取二维码
+     * 响应体为{qrCodeId, qrCodeImage}，写出随图片缓存的Base64字节，不再拼接data URI字符串
      */
     @GetMapping("/qrcode")
-    public Response<QrCodeResponse> getQrCode() {
-        String ticket = weiXinLoginService.createQrCodeTicket();
-        String base64Image = generateQrCodeBase64(ticket);
-        
-        QrCodeResponse qrCodeResponse = QrCodeResponse.builder()
-                .qrCodeId(ticket)
-                .qrCodeImage(base64Image)
+    public void getQrCode(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        rateLimiter.acquire(RateLimiter.QRCODE, request, 1);
+        QrCodeTicket qrCodeTicket;
+        try {
+            qrCodeTicket = weiXinLoginService.createQrCode();
+        } catch (RuntimeException e) {
+            // 未创建出二维码，退还客户端许可
+            rateLimiter.release(RateLimiter.QRCODE, request, 1);
+            throw e;
+        }
+        QrCodeImage image = weiXinLoginService.getQrCodeImage(qrCodeTicket.getTicket());
+        qrCodeResponseWriter.writeQrCodeResponse(response, "获取二维码成功", qrCodeTicket.getTicket(), image);
+    }
+
+    /**
+     * 批量获取二维码
+     * 供签到机、服务端渲染页面一次取多个二维码，inline为true时附带Base64图片，否则附带图片地址；单项失败在结果中单独标出
+     */
+    @PostMapping("/qrcode/batch")
+    public Response<QrCodeBatchResponse> createQrCodeBatch(@RequestParam int count,
+                                                          @RequestParam(defaultValue = "false") boolean inline,
+                                                          HttpServletRequest request) {
+        // 先由服务层校验数量，非法请求返回400且不占用客户端配额；再按数量扣减许可，整体失败时全部退还
+        weiXinLoginService.validateBatchCount(count);
+        rateLimiter.acquire(RateLimiter.QRCODE_BATCH, request, count);
+        List<QrCodeBatchItem> items;
+        try {
+            items = weiXinLoginService.createQrCodes(count, inline);
+        } catch (RuntimeException e) {
+            rateLimiter.release(RateLimiter.QRCODE_BATCH, request, count);
+            throw e;
+        }
+        int succeeded = 0;
+        for (QrCodeBatchItem item : items) {
+            if (item.isSuccess()) {
+                succeeded++;
+            }
+        }
+        // 失败的项未创建出二维码，退还对应的客户端许可
+        rateLimiter.release(RateLimiter.QRCODE_BATCH, request, count - succeeded);
+        QrCodeBatchResponse batchResponse = QrCodeBatchResponse.builder()
+                .requested(count)
+                .succeeded(succeeded)
+                .failed(count - succeeded)
+                .items(items)
                 .build();
-        
-        return Response.success("获取二维码成功", qrCodeResponse);
+        return Response.success("批量获取二维码完成", batchResponse);
     }
 
     /**
      * 轮询登录状态
+     * 响应体与Response<LoginStatusResponse>一致，启用预编码时直接写出预先编码的JSON。
+     * 集群模式下本节点还没有收到的票据短暂等待复制，不把刚在其他节点创建的二维码答复为已过期
      */
     @GetMapping("/status")
-    public Response<LoginStatusResponse> checkLoginStatus(@RequestParam String qrCodeId) {
-        String userOpenId = weiXinLoginService.checkLoginStatus(qrCodeId.trim());
-        
-        if (userOpenId != null && !userOpenId.isEmpty()) {
+    public void checkLoginStatus(@RequestParam String qrCodeId, HttpServletResponse response) throws IOException {
+        CompletableFuture<LoginSession> lookup = new CompletableFuture<>();
+        weiXinLoginService.getLoginSession(qrCodeId.trim(), lookup::complete);
+        LoginSession session = lookup.join();
+        if (loginStatusResponseWriter.isPrecomputed(LoginStatusResponseWriter.STATUS)) {
+            loginStatusResponseWriter.write(response, session);
+            return;
+        }
+        byte[] json = objectMapper.writeValueAsBytes(buildLoginStatusResponse(session));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+
+    /**
+     * 长轮询登录状态
+     * 请求异步挂起，直到扫码登录成功、二维码过期或超时才返回，挂起期间不占用Tomcat工作线程
+     */
+    @GetMapping("/status/long-poll")
+    public DeferredResult<Object> longPollLoginStatus(@RequestParam String qrCodeId) {
+        String ticket = qrCodeId.trim();
+        boolean precomputed = loginStatusResponseWriter.isPrecomputed(LoginStatusResponseWriter.LONG_POLL);
+        DeferredResult<Object> deferredResult = new DeferredResult<>(weChatConfig.getLongPollTimeoutMillis());
+        Consumer<LoginSession> listener = session ->
+                deferredResult.setResult(buildLongPollResult(session, precomputed));
+
+        weiXinLoginService.addLoginStatusListener(ticket, listener);
+        deferredResult.onTimeout(() -> deferredResult.setResult(
+                buildLongPollResult(weiXinLoginService.getLoginSession(ticket), precomputed)));
+        deferredResult.onCompletion(() -> weiXinLoginService.removeLoginStatusListener(ticket, listener));
+
+        // 先订阅再检查当前状态，避免订阅前已发生的状态变化被遗漏；集群模式下尚未复制过来的票据等复制到达再判断
+        weiXinLoginService.getLoginSession(ticket, session -> {
+            if (session == null || session.isLoggedIn()) {
+                deferredResult.setResult(buildLongPollResult(session, precomputed));
+            }
+        });
+        return deferredResult;
+    }
+
+    /**
+     * 以SSE推送登录状态
+     * 连接建立时推送当前状态，之后在登录成功或二维码过期时推送终态并结束连接。
+     * 集群模式下本节点还没有收到的票据先等待复制，确认存在后再推送当前状态
+     */
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLoginStatus(@RequestParam String qrCodeId) {
+        String ticket = qrCodeId.trim();
+        boolean precomputed = loginStatusResponseWriter.isPrecomputed(LoginStatusResponseWriter.STREAM);
+        LoginSession session = weiXinLoginService.getLoginSession(ticket);
+        // 会话还不可见时按二维码的最长有效期设置连接超时，会话过期时会推送终态并结束连接
+        long remaining = session != null
+                ? Math.max(session.getExpireTime() - System.currentTimeMillis(), 0)
+                : TimeUnit.SECONDS.toMillis(weChatConfig.getQrcodeExpireSeconds());
+        long timeout = SSE_TIMEOUT_MARGIN_MILLIS + remaining;
+
+        AtomicReference<SseEmitter> emitterRef = new AtomicReference<>();
+        AtomicBoolean delivered = new AtomicBoolean();
+        Consumer<LoginSession> listener = changed -> {
+            if (delivered.compareAndSet(false, true)) {
+                loginStatusStreamManager.sendStatus(emitterRef.get(), buildStreamData(changed, precomputed), true);
+            }
+        };
+        SseEmitter emitter = loginStatusStreamManager.open(timeout,
+                () -> weiXinLoginService.removeLoginStatusListener(ticket, listener));
+        emitterRef.set(emitter);
+
+        weiXinLoginService.getLoginSession(ticket, known -> {
+            if (known == null || known.isLoggedIn()) {
+                listener.accept(known);
+                return;
+            }
+            loginStatusStreamManager.sendStatus(emitter, buildStreamData(known, precomputed), false);
+            // 先订阅再检查当前状态，避免订阅前已发生的状态变化被遗漏
+            weiXinLoginService.addLoginStatusListener(ticket, listener);
+            LoginSession current = weiXinLoginService.getLoginSession(ticket);
+            if (current == null || current.isLoggedIn()) {
+                listener.accept(current);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 长轮询的结果：预编码时为JSON响应实体，否则为交给Jackson序列化的Response
+     */
+    private Object buildLongPollResult(LoginSession session, boolean precomputed) {
+        return precomputed ? loginStatusResponseWriter.toResponseEntity(session) : buildLoginStatusResponse(session);
+    }
+
+    /**
+     * SSE事件数据：预编码时为JSON字节，原样写入data字段
+     */
+    private Object buildStreamData(LoginSession session, boolean precomputed) {
+        return precomputed ? loginStatusResponseWriter.toJson(session) : buildLoginStatusResponse(session);
+    }
+
+    /**
+     * 根据登录会话构建登录状态响应
+     */
+    private Response<LoginStatusResponse> buildLoginStatusResponse(LoginSession session) {
+        if (session == null) {
+            LoginStatusResponse loginStatusResponse = LoginStatusResponse.builder()
+                    .status("expired")
+                    .build();
+                    
+            return Response.success("二维码已过期", loginStatusResponse);
+        } else if (session.isLoggedIn()) {
             LoginStatusResponse.UserInfo userInfo = LoginStatusResponse.UserInfo.builder()
-                    .openId(userOpenId)
+                    .openId(session.getOpenId())
                     .build();
                     
             LoginStatusResponse loginStatusResponse = LoginStatusResponse.builder()
@@ -72,18 +256,4 @@ public class AuthController {
             return Response.success("等待扫码", loginStatusResponse);
         }
     }
-    
-    /**
-     * 生成二维码Base64图片
-     */
-    private String generateQrCodeBase64(String ticket) {
-        String qrCodeUrl = String.format(weChatConfig.getQrcodeUrlTemplate(), ticket);
-        byte[] imageBytes = HttpUtil.downloadBytes(qrCodeUrl);
-        
-        if (imageBytes == null || imageBytes.length == 0) {
-            throw new RuntimeException("二维码图片获取失败");
-        }
-        
-        return "data:image/jpeg;base64," + Base64.encode(imageBytes);
-    }
 }
\ No newline at end of file
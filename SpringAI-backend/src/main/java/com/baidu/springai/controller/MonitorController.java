@@ -0,0 +1,179 @@
+package com.baidu.springai.controller;
+
+import com.baidu.springai.manager.LoginSessionReplicator;
+import com.baidu.springai.manager.LoginSessionRepository;
+import com.baidu.springai.manager.LoginSessionStore;
+import com.baidu.springai.manager.LoginStatusNotifier;
+import com.baidu.springai.manager.LoginStatusStreamManager;
+import com.baidu.springai.manager.QrCodeImageCache;
+import com.baidu.springai.manager.QrCodeTicketPool;
+import com.baidu.springai.manager.RateLimiter;
+import com.baidu.springai.manager.SceneIdAllocator;
+import com.baidu.springai.manager.WeChatApiGuard;
+import com.baidu.springai.manager.WeChatEventQueue;
+import com.baidu.springai.manager.WeChatMessageDeduplicator;
+import com.baidu.springai.manager.WeChatTokenManager;
+import com.baidu.springai.resp.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 监控控制器
+ * 提供登录链路各组件的运行统计信息
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/monitor")
+public class MonitorController {
+
+    @Autowired
+    private WeChatTokenManager weChatTokenManager;
+
+    @Autowired
+    private LoginSessionStore loginSessionStore;
+
+    @Autowired
+    private LoginSessionRepository loginSessionRepository;
+
+    @Autowired
+    private LoginSessionReplicator loginSessionReplicator;
+
+    @Autowired
+    private LoginStatusNotifier loginStatusNotifier;
+
+    @Autowired
+    private LoginStatusStreamManager loginStatusStreamManager;
+
+    @Autowired
+    private QrCodeTicketPool qrCodeTicketPool;
+
+    @Autowired
+    private QrCodeImageCache qrCodeImageCache;
+
+    @Autowired
+    private SceneIdAllocator sceneIdAllocator;
+
+    @Autowired
+    private WeChatEventQueue weChatEventQueue;
+
+    @Autowired
+    private WeChatApiGuard weChatApiGuard;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private WeChatMessageDeduplicator weChatMessageDeduplicator;
+
+    /**
+     * access_token缓存统计
+     */
+    @GetMapping("/token")
+    public Response<Map<String, Object>> getTokenStats() {
+        return Response.success(weChatTokenManager.getStats());
+    }
+
+    /**
+     * 登录会话存储统计
+     */
+    @GetMapping("/session")
+    public Response<Map<String, Object>> getSessionStats() {
+        return Response.success(loginSessionStore.getStats());
+    }
+
+    /**
+     * 登录会话持久化统计
+     */
+    @GetMapping("/session-persistence")
+    public Response<Map<String, Object>> getSessionPersistenceStats() {
+        return Response.success(loginSessionRepository.getStats());
+    }
+
+    /**
+     * 登录会话集群复制统计
+     */
+    @GetMapping("/cluster")
+    public Response<Map<String, Object>> getClusterStats() {
+        return Response.success(loginSessionReplicator.getStats());
+    }
+
+    /**
+     * 登录状态通知统计
+     */
+    @GetMapping("/notifier")
+    public Response<Map<String, Object>> getNotifierStats() {
+        return Response.success(loginStatusNotifier.getStats());
+    }
+
+    /**
+     * SSE登录状态推送统计
+     */
+    @GetMapping("/stream")
+    public Response<Map<String, Object>> getStreamStats() {
+        return Response.success(loginStatusStreamManager.getStats());
+    }
+
+    /**
+     * 二维码票据预热池统计
+     */
+    @GetMapping("/qrcode-pool")
+    public Response<Map<String, Object>> getQrCodePoolStats() {
+        return Response.success(qrCodeTicketPool.getStats());
+    }
+
+    /**
+     * 二维码图片缓存统计
+     */
+    @GetMapping("/qrcode-image-cache")
+    public Response<Map<String, Object>> getQrCodeImageCacheStats() {
+        return Response.success(qrCodeImageCache.getStats());
+    }
+
+    /**
+     * 场景ID分配统计
+     */
+    @GetMapping("/scene-id")
+    public Response<Map<String, Object>> getSceneIdStats() {
+        return Response.success(sceneIdAllocator.getStats());
+    }
+
+    /**
+     * 微信事件异步处理队列统计
+     */
+    @GetMapping("/webhook-queue")
+    public Response<Map<String, Object>> getWebhookQueueStats() {
+        return Response.success(weChatEventQueue.getStats());
+    }
+
+    /**
+     * 微信消息去重统计
+     */
+    @GetMapping("/webhook-dedup")
+    public Response<Map<String, Object>> getWebhookDedupStats() {
+        return Response.success(weChatMessageDeduplicator.getStats());
+    }
+
+    /**
+     * 微信接口熔断与对冲统计
+     */
+    @GetMapping("/wechat-api")
+    public Response<Map<String, Object>> getWeChatApiStats() {
+        return Response.success(weChatApiGuard.getStats());
+    }
+
+    /**
+     * 二维码创建限流统计
+     */
+    @GetMapping("/rate-limit")
+    public Response<Map<String, Object>> getRateLimitStats() {
+        return Response.success(rateLimiter.getStats());
+    }
+}
\ No newline at end of file
@@ -1,19 +1,22 @@
 package com.baidu.springai.controller;
 
-import cn.hutool.core.codec.Base64;
-import cn.hutool.http.HttpUtil;
 import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.QrCodeImage;
+import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.manager.QrCodeResponseWriter;
+import com.baidu.springai.manager.RateLimiter;
 import com.baidu.springai.resp.Response;
 import com.baidu.springai.service.WeiXinLoginService;
 import com.baidu.springai.utils.SignatureUtil;
+import com.baidu.springai.utils.WeChatReplyWriter;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 /**
  * 微信相关控制器
  * 处理微信消息接收、验证和扫码登录功能
@@ -32,6 +35,12 @@ public class WeChatController {
     
     @Autowired
     private WeiXinLoginService weiXinLoginService;
+    
+    @Autowired
+    private QrCodeResponseWriter qrCodeResponseWriter;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
 
     /**
      * 微信服务器验证接口
@@ -44,43 +53,57 @@ public class WeChatController {
 
     /**
      * 处理微信消息回调
+     * 先校验签名和时间戳，回复按预编译模板直接写入响应流
      */
-    @PostMapping(value = "/webhook", produces = "application/xml; charset=UTF-8")
-    public String handleWeChatMessage(@RequestBody(required = false) String requestBody, HttpServletRequest request) {
-        return weiXinLoginService.handleWeChatMessage(requestBody, request);
+    @PostMapping("/webhook")
+    public void handleWeChatMessage(String signature, String timestamp, String nonce,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (weChatConfig.isWebhookSignatureRequired() && !SignatureUtil.verifyWeChatSignature(signature, timestamp,
+                nonce, weChatConfig.getToken(), weChatConfig.getWebhookTimestampToleranceSeconds())) {
+            throw BusinessException.forbidden("微信消息签名验证失败");
+        }
+        WeChatReplyWriter.write(weiXinLoginService.handleWeChatMessage(request), response);
     }
 
     /**
      * 生成微信扫码登录票据
      */
     @GetMapping("/qrcode/ticket")
-    public Response<String> generateQrCodeTicket() {
-        String ticket = weiXinLoginService.createQrCodeTicket();
+    public Response<String> generateQrCodeTicket(HttpServletRequest request) {
+        rateLimiter.acquire(RateLimiter.QRCODE_TICKET, request, 1);
+        String ticket;
+        try {
+            ticket = weiXinLoginService.createQrCodeTicket();
+        } catch (RuntimeException e) {
+            // 未创建出二维码，退还客户端许可
+            rateLimiter.release(RateLimiter.QRCODE_TICKET, request, 1);
+            throw e;
+        }
         return Response.success(ticket);
     }
 
     /**
      * 获取二维码图片（字节流形式）
+     * format=svg 时返回本地渲染的SVG，否则返回PNG（本地渲染）或JPEG（远程下载）
      */
     @GetMapping("/qrcode/image")
-    public ResponseEntity<byte[]> getQrCodeImageBytes(@RequestParam String ticket) {
-        byte[] imageBytes = downloadQrCodeImage(ticket);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.IMAGE_JPEG);
-        headers.setContentLength(imageBytes.length);
-
-        return ResponseEntity.ok().headers(headers).body(imageBytes);
+    public void getQrCodeImageBytes(@RequestParam String ticket, @RequestParam(required = false) String format,
+                                    HttpServletResponse response) throws IOException {
+        if ("svg".equalsIgnoreCase(format)) {
+            qrCodeResponseWriter.writeSvg(response, weiXinLoginService.getQrCodeSvg(ticket.trim()));
+        } else {
+            qrCodeResponseWriter.writeImage(response, weiXinLoginService.getQrCodeImage(ticket.trim()));
+        }
     }
 
     /**
      * 获取二维码图片（Base64形式）
+     * 直接按Response格式流式写出，图片部分写出随图片缓存的Base64字节
      */
     @GetMapping("/qrcode/base64")
-    public Response<String> getQrCodeImageBase64(@RequestParam String ticket) {
-        byte[] imageBytes = downloadQrCodeImage(ticket);
-        String base64Image = "data:image/jpeg;base64," + Base64.encode(imageBytes);
-        return Response.success("获取二维码图片成功", base64Image);
+    public void getQrCodeImageBase64(@RequestParam String ticket, HttpServletResponse response) throws IOException {
+        QrCodeImage image = weiXinLoginService.getQrCodeImage(ticket.trim());
+        qrCodeResponseWriter.writeBase64Response(response, "获取二维码图片成功", image);
     }
 
     /**
@@ -94,22 +117,4 @@ public class WeChatController {
         }
         throw new RuntimeException("未登录或登录超时");
     }
-    
-    /**
-     * 下载二维码图片的通用方法
-     */
-    private byte[] downloadQrCodeImage(String ticket) {
-        if (ticket == null || ticket.trim().isEmpty()) {
-            throw new IllegalArgumentException("票据参数不能为空");
-        }
-        
-        String qrCodeUrl = String.format(weChatConfig.getQrcodeUrlTemplate(), ticket.trim());
-        byte[] imageBytes = HttpUtil.downloadBytes(qrCodeUrl);
-        
-        if (imageBytes == null || imageBytes.length == 0) {
-            throw new RuntimeException("二维码图片不存在或已过期");
-        }
-        
-        return imageBytes;
-    }
-}
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.baidu.springai.domain;
+
+import lombok.Getter;
+
+/**
+ * 扫码登录会话
+ * 一张二维码票据对应一个会话，记录场景ID、过期时间以及扫码后的用户openid
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Getter
+public class LoginSession {
+
+    /**
+     * 二维码票据
+     */
+    private final String ticket;
+
+    /**
+     * 二维码场景ID
+     */
+    private final String sceneId;
+
+    /**
+     * 二维码编码的内容url，用于本地渲染二维码，可能为null
+     */
+    private final String qrcodeUrl;
+
+    /**
+     * 创建时间（毫秒）
+     */
+    private final long createTime;
+
+    /**
+     * 过期时间（毫秒）
+     */
+    private final long expireTime;
+
+    /**
+     * 扫码用户的OpenID，未扫码时为null
+     */
+    private volatile String openId;
+
+    public LoginSession(String ticket, String sceneId, String qrcodeUrl, long createTime, long expireTime) {
+        this.ticket = ticket;
+        this.sceneId = sceneId;
+        this.qrcodeUrl = qrcodeUrl;
+        this.createTime = createTime;
+        this.expireTime = expireTime;
+    }
+
+    /**
+     * 设置扫码用户的OpenID
+     *
+     * @param openId 用户OpenID
+     */
+    public void setOpenId(String openId) {
+        this.openId = openId;
+    }
+
+    /**
+     * 判断会话是否已过期
+     *
+     * @param now 当前时间（毫秒）
+     * @return 是否过期
+     */
+    public boolean isExpired(long now) {
+        return now >= expireTime;
+    }
+
+    /**
+     * 判断是否已扫码登录
+     *
+     * @return 是否已登录
+     */
+    public boolean isLoggedIn() {
+        return openId != null && !openId.isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+package com.baidu.springai.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 登录会话变更事件实体类
+ * 集群模式下每次会话登记或扫码登录都以完整快照写入变更表，其他节点按序号增量读取后应用到本地
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginSessionEvent {
+
+    /**
+     * 事件序号（自增）
+     */
+    private Long seq;
+
+    /**
+     * 产生事件的节点ID
+     */
+    private String nodeId;
+
+    /**
+     * 二维码票据
+     */
+    private String ticket;
+
+    /**
+     * 场景ID
+     */
+    private String sceneId;
+
+    /**
+     * 二维码内容url
+     */
+    private String qrcodeUrl;
+
+    /**
+     * 扫码用户的OpenID，未扫码时为null
+     */
+    private String openId;
+
+    /**
+     * 会话创建时间（毫秒）
+     */
+    private long createTime;
+
+    /**
+     * 会话过期时间（毫秒）
+     */
+    private long expireTime;
+
+    /**
+     * 根据会话生成事件
+     *
+     * @param nodeId 节点ID
+     * @param session 登录会话
+     * @return 会话变更事件
+     */
+    public static LoginSessionEvent of(String nodeId, LoginSession session) {
+        return LoginSessionEvent.builder()
+                .nodeId(nodeId)
+                .ticket(session.getTicket())
+                .sceneId(session.getSceneId())
+                .qrcodeUrl(session.getQrcodeUrl())
+                .openId(session.getOpenId())
+                .createTime(session.getCreateTime())
+                .expireTime(session.getExpireTime())
+                .build();
+    }
+
+    /**
+     * 还原为登录会话
+     *
+     * @return 登录会话
+     */
+    public LoginSession toSession() {
+        LoginSession session = new LoginSession(ticket, sceneId, qrcodeUrl, createTime, expireTime);
+        session.setOpenId(openId);
+        return session;
+    }
+}
\ No newline at end of file
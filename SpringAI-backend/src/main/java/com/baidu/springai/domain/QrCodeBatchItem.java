@@ -0,0 +1,55 @@
+package com.baidu.springai.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量创建二维码的单项结果
+ * 创建成功时带票据和图片（Base64 data URI或图片地址），失败时只带错误信息
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeBatchItem {
+
+    /**
+     * 在本批中的序号，从0开始
+     */
+    private int index;
+
+    /**
+     * 是否创建成功
+     */
+    private boolean success;
+
+    /**
+     * 二维码ID（票据）
+     */
+    private String qrCodeId;
+
+    /**
+     * 二维码图片Base64编码（inline模式）
+     */
+    private String qrCodeImage;
+
+    /**
+     * 二维码图片地址（非inline模式）
+     */
+    private String imageUrl;
+
+    /**
+     * 登录会话过期时间（毫秒）
+     */
+    private Long expireTime;
+
+    /**
+     * 失败原因
+     */
+    private String error;
+}
\ No newline at end of file
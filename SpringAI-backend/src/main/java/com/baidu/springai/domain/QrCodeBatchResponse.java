@@ -0,0 +1,41 @@
+package com.baidu.springai.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量创建二维码响应对象
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeBatchResponse {
+
+    /**
+     * 请求创建的数量
+     */
+    private int requested;
+
+    /**
+     * 创建成功的数量
+     */
+    private int succeeded;
+
+    /**
+     * 创建失败的数量
+     */
+    private int failed;
+
+    /**
+     * 各项结果，按序号排列
+     */
+    private List<QrCodeBatchItem> items;
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.baidu.springai.domain;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Base64;
+
+/**
+ * 二维码图片实体类
+ * 远程下载的为JPEG，本地渲染的为PNG；Base64编码在第一次需要时生成并随图片一起缓存
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+public class QrCodeImage {
+
+    /**
+     * 图片字节
+     */
+    private byte[] bytes;
+
+    /**
+     * 图片MIME类型
+     */
+    private String contentType;
+
+    /**
+     * 图片的Base64编码（ASCII字节），由bytes派生
+     */
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile byte[] base64;
+
+    public QrCodeImage(byte[] bytes, String contentType) {
+        this.bytes = bytes;
+        this.contentType = contentType;
+    }
+
+    public void setBytes(byte[] bytes) {
+        this.bytes = bytes;
+        this.base64 = null;
+    }
+
+    /**
+     * 获取图片的Base64编码，首次调用时编码，之后返回同一数组，调用方不得修改
+     *
+     * @return Base64编码的ASCII字节
+     */
+    public byte[] getBase64() {
+        byte[] encoded = base64;
+        if (encoded == null) {
+            encoded = Base64.getEncoder().encode(bytes);
+            base64 = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Base64编码后的字节数
+     *
+     * @return 字节数
+     */
+    public int getBase64Length() {
+        return (bytes.length + 2) / 3 * 4;
+    }
+}
\ No newline at end of file
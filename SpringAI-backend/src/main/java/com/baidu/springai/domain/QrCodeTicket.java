@@ -0,0 +1,60 @@
+package com.baidu.springai.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 二维码票据实体类
+ * 封装一次qrcode/create调用的结果，预生成时还可能携带二维码图片
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeTicket {
+
+    /**
+     * 二维码票据
+     */
+    private String ticket;
+
+    /**
+     * 二维码图片解析后的地址，即二维码编码的内容
+     */
+    private String url;
+
+    /**
+     * 场景ID
+     */
+    private int sceneId;
+
+    /**
+     * 二维码图片（预生成时获取，可能为null）
+     */
+    private QrCodeImage image;
+
+    /**
+     * 创建时间（毫秒）
+     */
+    private long createTime;
+
+    /**
+     * 二维码过期时间（毫秒）
+     */
+    private long expireTime;
+
+    /**
+     * 二维码剩余有效时间
+     *
+     * @param now 当前时间（毫秒）
+     * @return 剩余有效毫秒数
+     */
+    public long remainingMillis(long now) {
+        return expireTime - now;
+    }
+}
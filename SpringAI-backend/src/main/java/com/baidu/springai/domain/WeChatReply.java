@@ -0,0 +1,168 @@
+package com.baidu.springai.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 微信被动回复实体类
+ * 描述webhook要回复的内容，由WeChatReplyWriter按预编译模板直接写入响应流
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeChatReply {
+
+    /**
+     * 回复类型
+     */
+    private Type type;
+
+    /**
+     * 接收方（用户OpenID）
+     */
+    private String toUserName;
+
+    /**
+     * 发送方（公众号原始ID）
+     */
+    private String fromUserName;
+
+    /**
+     * 文本消息内容
+     */
+    private String content;
+
+    /**
+     * 预编译的文本消息内容（已做CDATA转义的UTF-8字节），不为null时优先于content
+     */
+    private byte[] encodedContent;
+
+    /**
+     * 图片消息的媒体文件ID
+     */
+    private String mediaId;
+
+    /**
+     * 图文消息的文章列表，最多8条
+     */
+    private List<Article> articles;
+
+    /**
+     * 原样输出的文本（success或echostr）
+     */
+    private String raw;
+
+    /**
+     * 回复类型枚举
+     */
+    public enum Type {
+        TEXT, IMAGE, NEWS, RAW
+    }
+
+    /**
+     * 图文消息文章内部类
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Article {
+        /**
+         * 标题
+         */
+        private String title;
+
+        /**
+         * 描述
+         */
+        private String description;
+
+        /**
+         * 图片链接
+         */
+        private String picUrl;
+
+        /**
+         * 点击后跳转的链接
+         */
+        private String url;
+    }
+
+    /**
+     * 创建文本回复
+     *
+     * @param toUserName 接收方
+     * @param fromUserName 发送方
+     * @param content 文本内容
+     * @return 文本回复
+     */
+    public static WeChatReply text(String toUserName, String fromUserName, String content) {
+        return WeChatReply.builder().type(Type.TEXT)
+                .toUserName(toUserName).fromUserName(fromUserName).content(content).build();
+    }
+
+    /**
+     * 创建内容已预编译的文本回复
+     *
+     * @param toUserName 接收方
+     * @param fromUserName 发送方
+     * @param encodedContent 由WeChatReplyWriter.precompile生成的内容
+     * @return 文本回复
+     */
+    public static WeChatReply text(String toUserName, String fromUserName, byte[] encodedContent) {
+        return WeChatReply.builder().type(Type.TEXT)
+                .toUserName(toUserName).fromUserName(fromUserName).encodedContent(encodedContent).build();
+    }
+
+    /**
+     * 创建图片回复
+     *
+     * @param toUserName 接收方
+     * @param fromUserName 发送方
+     * @param mediaId 媒体文件ID
+     * @return 图片回复
+     */
+    public static WeChatReply image(String toUserName, String fromUserName, String mediaId) {
+        return WeChatReply.builder().type(Type.IMAGE)
+                .toUserName(toUserName).fromUserName(fromUserName).mediaId(mediaId).build();
+    }
+
+    /**
+     * 创建图文回复
+     *
+     * @param toUserName 接收方
+     * @param fromUserName 发送方
+     * @param articles 文章列表
+     * @return 图文回复
+     */
+    public static WeChatReply news(String toUserName, String fromUserName, List<Article> articles) {
+        return WeChatReply.builder().type(Type.NEWS)
+                .toUserName(toUserName).fromUserName(fromUserName).articles(articles).build();
+    }
+
+    /**
+     * 创建原样输出的回复
+     *
+     * @param raw 输出文本
+     * @return 回复
+     */
+    public static WeChatReply raw(String raw) {
+        return WeChatReply.builder().type(Type.RAW).raw(raw).build();
+    }
+
+    /**
+     * 不需要回复时的应答（微信要求返回success）
+     *
+     * @return 回复
+     */
+    public static WeChatReply empty() {
+        return raw("success");
+    }
+}
\ No newline at end of file
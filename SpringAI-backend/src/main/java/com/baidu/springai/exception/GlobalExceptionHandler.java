@@ -4,6 +4,9 @@ import com.baidu.springai.resp.Response;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -36,6 +39,21 @@ public class GlobalExceptionHandler {
         return Response.error(e.getCode(), e.getMessage());
     }
 
+    /**
+     * 处理限流异常，返回429并带上Retry-After
+     * 
+     * @param e 限流异常
+     * @param request HTTP请求
+     * @return 错误响应
+     */
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<Response<Object>> handleRateLimitException(RateLimitException e, HttpServletRequest request) {
+        log.debug("请求被限流 - URI: {}, 建议等待: {}秒", request.getRequestURI(), e.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Response.error(e.getCode(), e.getMessage()));
+    }
+
     /**
      * 处理参数校验异常
      * 
@@ -0,0 +1,30 @@
+package com.baidu.springai.exception;
+
+import lombok.Getter;
+
+/**
+ * 限流异常类
+ * 请求超过客户端或全局配额时抛出，由全局异常处理器转换为429响应并带上Retry-After
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Getter
+public class RateLimitException extends BusinessException {
+
+    /**
+     * 建议的重试等待时间（秒）
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * 构造函数（错误码429）
+     *
+     * @param message 错误信息
+     * @param retryAfterSeconds 建议的重试等待时间（秒）
+     */
+    public RateLimitException(String message, long retryAfterSeconds) {
+        super(429, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
\ No newline at end of file
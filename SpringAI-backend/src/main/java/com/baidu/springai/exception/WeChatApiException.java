@@ -0,0 +1,40 @@
+package com.baidu.springai.exception;
+
+import lombok.Getter;
+
+/**
+ * 微信API异常类
+ * 用于携带微信接口返回的errcode，便于调用方按错误码做重试等处理
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Getter
+public class WeChatApiException extends BusinessException {
+
+    /**
+     * 微信接口返回的错误码
+     */
+    private final int errcode;
+
+    /**
+     * 构造函数（默认错误码500）
+     *
+     * @param errcode 微信错误码
+     * @param message 错误信息
+     */
+    public WeChatApiException(int errcode, String message) {
+        super(500, message);
+        this.errcode = errcode;
+    }
+
+    /**
+     * 判断是否为access_token失效类错误
+     * 40001: 凭证无效, 40014: 不合法的access_token, 42001: access_token超时
+     *
+     * @return 是否为令牌失效
+     */
+    public boolean isAccessTokenInvalid() {
+        return errcode == 40001 || errcode == 40014 || errcode == 42001;
+    }
+}
@@ -0,0 +1,44 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.mapper.SceneIdLeaseMapper;
+
+/**
+ * 基于数据库的场景ID号段租约存储，适用于多节点部署
+ * 游标保存在scene_id_lease表中，以比较并更新（next_id = 旧值）的方式推进，无需加锁或开启事务
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public class DatabaseSceneIdLeaseStore implements SceneIdLeaseStore {
+
+    /**
+     * 并发租约冲突时的最大重试次数
+     */
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final SceneIdLeaseMapper sceneIdLeaseMapper;
+
+    private final String name;
+
+    public DatabaseSceneIdLeaseStore(SceneIdLeaseMapper sceneIdLeaseMapper, String name) {
+        this.sceneIdLeaseMapper = sceneIdLeaseMapper;
+        this.name = name;
+    }
+
+    @Override
+    public long lease(int size) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Long current = sceneIdLeaseMapper.selectNextId(name);
+            if (current == null) {
+                sceneIdLeaseMapper.insertIgnore(name, FIRST_ID);
+                continue;
+            }
+            long start = current < FIRST_ID || current > MAX_ID ? FIRST_ID : current;
+            if (sceneIdLeaseMapper.compareAndSetNextId(name, current, SceneIdLeaseStore.leaseEnd(start, size)) == 1) {
+                return start;
+            }
+        }
+        throw BusinessException.serverError("场景ID号段租约冲突，请稍后重试");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.exception.BusinessException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于本地文件的场景ID号段租约存储，适用于单节点部署
+ * 文件中只保存下一个可租用的ID，读写时持有文件锁，同一主机上的多个进程也不会租到重叠号段
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public class FileSceneIdLeaseStore implements SceneIdLeaseStore {
+
+    private final Path path;
+
+    /**
+     * 租约期间有文件I/O，用ReentrantLock而不是synchronized，虚拟线程调用时不会钉住载体线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public FileSceneIdLeaseStore(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public long lease(int size) {
+        lock.lock();
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                ByteBuffer buffer = ByteBuffer.allocate(32);
+                channel.read(buffer, 0);
+                String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII).trim();
+
+                long start = text.isEmpty() ? FIRST_ID : Long.parseLong(text);
+                if (start < FIRST_ID || start > MAX_ID) {
+                    start = FIRST_ID;
+                }
+                byte[] next = Long.toString(SceneIdLeaseStore.leaseEnd(start, size)).getBytes(StandardCharsets.US_ASCII);
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(next), 0);
+                channel.force(true);
+                return start;
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw BusinessException.serverError("场景ID租约文件读写失败: " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
\ No newline at end of file
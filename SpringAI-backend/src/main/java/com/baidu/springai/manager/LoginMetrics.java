@@ -0,0 +1,168 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.domain.WeChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录链路指标
+ * 微信接口耗时、webhook消息解析耗时、微信错误码、webhook消息类型、扫码登录结果及存活会话数，
+ * 通过Actuator的Prometheus端点导出。热路径上用到的计时器和计数器在启动时注册好，记录时不再查找注册表
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Component
+public class LoginMetrics {
+
+    public static final String API_TOKEN = "token";
+    public static final String API_QRCODE_CREATE = "qrcode_create";
+    public static final String API_QRCODE_DOWNLOAD = "qrcode_download";
+
+    public static final String LOGIN_SUCCESS = "success";
+    public static final String LOGIN_SESSION_MISSING = "session_missing";
+    public static final String LOGIN_UNKNOWN_SCENE = "unknown_scene";
+
+    private static final Set<String> MESSAGE_TYPES = Set.of(
+            "text", "image", "voice", "video", "shortvideo", "location", "link");
+
+    private static final Set<String> EVENT_TYPES = Set.of(
+            "subscribe", "unsubscribe", "SCAN", "LOCATION", "CLICK", "VIEW");
+
+    private static final String OTHER = "other";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LoginSessionStore loginSessionStore;
+
+    private final Map<String, Timer> apiSuccessTimers = new HashMap<>();
+    private final Map<String, Timer> apiErrorTimers = new HashMap<>();
+    private final Map<String, Counter> loginCounters = new HashMap<>();
+    private final Map<String, Counter> messageCounters = new HashMap<>();
+    private final Map<String, Counter> eventCounters = new HashMap<>();
+
+    private Timer xmlParseTimer;
+
+    @PostConstruct
+    public void init() {
+        for (String endpoint : new String[]{API_TOKEN, API_QRCODE_CREATE, API_QRCODE_DOWNLOAD}) {
+            apiSuccessTimers.put(endpoint, apiTimer(endpoint, "success"));
+            apiErrorTimers.put(endpoint, apiTimer(endpoint, "error"));
+        }
+        for (String outcome : new String[]{LOGIN_SUCCESS, LOGIN_SESSION_MISSING, LOGIN_UNKNOWN_SCENE}) {
+            loginCounters.put(outcome, Counter.builder("wechat.login")
+                    .description("扫码登录结果")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        for (String type : MESSAGE_TYPES) {
+            messageCounters.put(type, messageCounter(type, "none"));
+        }
+        messageCounters.put(OTHER, messageCounter(OTHER, "none"));
+        for (String event : EVENT_TYPES) {
+            eventCounters.put(event, messageCounter("event", event));
+        }
+        eventCounters.put(OTHER, messageCounter("event", OTHER));
+        xmlParseTimer = Timer.builder("wechat.webhook.parse")
+                .description("webhook消息解析耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("wechat.login.sessions", loginSessionStore, LoginSessionStore::size)
+                .description("存活的登录会话数")
+                .register(meterRegistry);
+        Gauge.builder("wechat.login.scene.index", loginSessionStore, LoginSessionStore::sceneIndexSize)
+                .description("场景ID到票据索引的条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次微信接口调用耗时
+     *
+     * @param endpoint 接口名称
+     * @param startNanos 开始时间（System.nanoTime）
+     * @param success 是否完成了HTTP交换（微信返回错误码也算完成）
+     */
+    public void recordApi(String endpoint, long startNanos, boolean success) {
+        Timer timer = (success ? apiSuccessTimers : apiErrorTimers).get(endpoint);
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 微信接口返回错误码计数，只在出错时调用
+     *
+     * @param endpoint 接口名称
+     * @param errcode 错误码
+     */
+    public void countErrcode(String endpoint, int errcode) {
+        meterRegistry.counter("wechat.api.errcode", "endpoint", endpoint, "errcode", String.valueOf(errcode))
+                .increment();
+    }
+
+    /**
+     * 记录一次webhook消息解析耗时
+     *
+     * @param startNanos 开始时间（System.nanoTime）
+     */
+    public void recordXmlParse(long startNanos) {
+        xmlParseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * webhook消息按类型计数，事件消息按事件类型细分，未知类型归为other以限制标签数量，计数器均在启动时注册
+     *
+     * @param message 微信消息
+     */
+    public void countMessage(WeChatMessage message) {
+        String msgType = message.getMsgType();
+        Counter counter = "event".equals(msgType)
+                ? eventCounters.get(message.getEvent())
+                : messageCounters.get(msgType);
+        if (counter == null) {
+            counter = "event".equals(msgType) ? eventCounters.get(OTHER) : messageCounters.get(OTHER);
+        }
+        counter.increment();
+    }
+
+    /**
+     * 扫码登录结果计数
+     *
+     * @param outcome 结果（LOGIN_开头的常量）
+     */
+    public void countLogin(String outcome) {
+        Counter counter = loginCounters.get(outcome);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private Timer apiTimer(String endpoint, String outcome) {
+        return Timer.builder("wechat.api")
+                .description("微信接口调用耗时")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter messageCounter(String type, String event) {
+        return Counter.builder("wechat.webhook.messages")
+                .description("webhook收到的消息")
+                .tag("type", type)
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,301 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.config.WeChatConstants;
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.domain.LoginSessionEvent;
+import com.baidu.springai.mapper.LoginSessionEventMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 登录会话集群复制器
+ * 集群模式下本节点的会话变更（登记、扫码登录）以快照形式批量写入login_session_event表，
+ * 同一线程按固定间隔以序号增量读取其他节点写入的事件并应用到本地会话存储，
+ * 因此webhook与状态轮询落在不同节点也能在几十毫秒内看到登录结果，且等待中的轮询只读内存。
+ * 自增序号按分配顺序而不是提交顺序可见，读到的序号中间可能有尚未提交的空洞：
+ * 空洞之后的事件照常应用，空洞的序号记下来在之后的同步周期中重读，超过重读时长仍未出现的视为回滚跳过。
+ * 会话快照的应用不会让状态倒退（只新增会话或把等待中的会话标记为已登录），乱序应用是安全的
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class LoginSessionReplicator {
+
+    /**
+     * 单次读取的最大事件数
+     */
+    private static final int FETCH_LIMIT = 500;
+
+    /**
+     * 同时重读的空洞序号上限，超出的部分直接跳过（如自增值大幅跳跃时）
+     */
+    private static final int MAX_MISSING_SEQS = 10000;
+
+    /**
+     * 过期事件的清理间隔（秒）
+     */
+    private static final long PURGE_INTERVAL_SECONDS = 60L;
+
+    /**
+     * 单次清理删除的最大行数
+     */
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    @Autowired
+    private LoginSessionEventMapper loginSessionEventMapper;
+
+    private final Queue<LoginSession> outbox = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService replicator = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "login-session-replicator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Consumer<LoginSession> applier;
+
+    private String nodeId;
+
+    /**
+     * 已读到的最大事件序号，仅由复制线程写入
+     */
+    private volatile long appliedSeq;
+
+    /**
+     * 小于appliedSeq但尚未读到的序号及其放弃重读的时间（毫秒），仅由复制线程修改，统计时并发读取大小
+     */
+    private final NavigableMap<Long, Long> missingSeqs = new ConcurrentSkipListMap<>();
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder publishFailureCount = new LongAdder();
+    private final LongAdder appliedCount = new LongAdder();
+    private final LongAdder pollFailureCount = new LongAdder();
+    private final LongAdder recoveredGapCount = new LongAdder();
+    private final LongAdder skippedGapCount = new LongAdder();
+
+    /**
+     * 启动复制，仅在集群模式下生效
+     *
+     * @param applier 其他节点的会话快照应用到本地的方法
+     */
+    public synchronized void start(Consumer<LoginSession> applier) {
+        if (!isEnabled() || this.applier != null) {
+            return;
+        }
+        nodeId = StringUtils.hasText(weChatConfig.getClusterNodeId())
+                ? weChatConfig.getClusterNodeId()
+                : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        if (!WeChatConstants.SCENE_ID_STORE_DATABASE.equalsIgnoreCase(weChatConfig.getSceneIdStore())) {
+            log.warn("集群模式下场景ID应使用database租约存储，当前为: {}", weChatConfig.getSceneIdStore());
+        }
+        try {
+            appliedSeq = loginSessionEventMapper.selectMaxSeq();
+        } catch (Exception e) {
+            log.warn("读取会话事件起始序号失败，从头开始读取: {}", e.getMessage());
+        }
+        this.applier = applier;
+        long interval = weChatConfig.getClusterSyncIntervalMillis();
+        replicator.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+        replicator.scheduleWithFixedDelay(this::purgeExpired, PURGE_INTERVAL_SECONDS, PURGE_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        log.info("登录会话集群复制已启动，节点ID: {}，起始序号: {}，同步间隔: {}ms", nodeId, appliedSeq, interval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        replicator.shutdownNow();
+        if (applier != null) {
+            publishPending();
+        }
+    }
+
+    /**
+     * 是否启用集群模式
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return weChatConfig.isClusterEnabled();
+    }
+
+    /**
+     * 发布本节点的会话变更，由复制线程在下一个同步周期批量写出
+     *
+     * @param session 登录会话
+     */
+    public void publish(LoginSession session) {
+        if (applier != null) {
+            outbox.offer(session);
+        }
+    }
+
+    /**
+     * 获取复制统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", applier != null);
+        stats.put("nodeId", nodeId);
+        stats.put("appliedSeq", appliedSeq);
+        stats.put("outbox", outbox.size());
+        stats.put("publishedCount", publishedCount.sum());
+        stats.put("publishFailureCount", publishFailureCount.sum());
+        stats.put("appliedCount", appliedCount.sum());
+        stats.put("pollFailureCount", pollFailureCount.sum());
+        stats.put("missingSeqs", missingSeqs.size());
+        stats.put("recoveredGapCount", recoveredGapCount.sum());
+        stats.put("skippedGapCount", skippedGapCount.sum());
+        return stats;
+    }
+
+    private void sync() {
+        publishPending();
+        sync(System.currentTimeMillis());
+    }
+
+    /**
+     * 先重读此前的序号空洞，再增量读取新事件
+     *
+     * @param now 当前时间（毫秒）
+     */
+    void sync(long now) {
+        try {
+            retryMissing(now);
+            List<LoginSessionEvent> events;
+            do {
+                events = loginSessionEventMapper.selectAfter(appliedSeq, FETCH_LIMIT);
+                apply(events, now);
+            } while (events.size() == FETCH_LIMIT);
+        } catch (Exception e) {
+            pollFailureCount.increment();
+            log.warn("读取会话变更事件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写出待发布的会话快照，同一批中同一票据只写一次（快照在写出时生成，即最新状态）
+     * 写入失败的会话放回发件箱，已过期的直接丢弃
+     */
+    private void publishPending() {
+        if (outbox.isEmpty()) {
+            return;
+        }
+        Map<String, LoginSession> pending = new LinkedHashMap<>();
+        LoginSession session;
+        while ((session = outbox.poll()) != null) {
+            pending.put(session.getTicket(), session);
+        }
+        List<LoginSessionEvent> events = new ArrayList<>(pending.size());
+        for (LoginSession each : pending.values()) {
+            events.add(LoginSessionEvent.of(nodeId, each));
+        }
+        try {
+            loginSessionEventMapper.batchInsert(events);
+            publishedCount.add(events.size());
+        } catch (Exception e) {
+            publishFailureCount.increment();
+            log.warn("会话变更事件写入失败，{}条待重试: {}", events.size(), e.getMessage());
+            long now = System.currentTimeMillis();
+            for (LoginSession each : pending.values()) {
+                if (!each.isExpired(now)) {
+                    outbox.offer(each);
+                }
+            }
+        }
+    }
+
+    /**
+     * 应用新读到的事件，跳过的序号记入空洞等待重读
+     */
+    private void apply(List<LoginSessionEvent> events, long now) {
+        long retryUntil = now + weChatConfig.getClusterGapRetryMillis();
+        for (LoginSessionEvent event : events) {
+            long seq = event.getSeq();
+            for (long missing = appliedSeq + 1; missing < seq; missing++) {
+                if (missingSeqs.size() >= MAX_MISSING_SEQS) {
+                    skippedGapCount.add(seq - missing);
+                    break;
+                }
+                missingSeqs.put(missing, retryUntil);
+            }
+            applyEvent(event, now);
+            appliedSeq = seq;
+        }
+    }
+
+    /**
+     * 重读空洞中的序号：已提交的补充应用，超过重读时长的放弃
+     */
+    private void retryMissing(long now) {
+        if (missingSeqs.isEmpty()) {
+            return;
+        }
+        List<Long> seqs = new ArrayList<>(Math.min(missingSeqs.size(), FETCH_LIMIT));
+        Iterator<Map.Entry<Long, Long>> iterator = missingSeqs.entrySet().iterator();
+        while (iterator.hasNext() && seqs.size() < FETCH_LIMIT) {
+            Map.Entry<Long, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                iterator.remove();
+                skippedGapCount.increment();
+            } else {
+                seqs.add(entry.getKey());
+            }
+        }
+        if (seqs.isEmpty()) {
+            return;
+        }
+        for (LoginSessionEvent event : loginSessionEventMapper.selectBySeqs(seqs)) {
+            if (missingSeqs.remove(event.getSeq()) != null) {
+                recoveredGapCount.increment();
+                applyEvent(event, now);
+            }
+        }
+    }
+
+    private void applyEvent(LoginSessionEvent event, long now) {
+        if (!nodeId.equals(event.getNodeId()) && event.getExpireTime() > now) {
+            applier.accept(event.toSession());
+            appliedCount.increment();
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            long before = System.currentTimeMillis();
+            int deleted;
+            do {
+                deleted = loginSessionEventMapper.deleteExpired(before, PURGE_BATCH_SIZE);
+            } while (deleted == PURGE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("清理过期会话事件失败: {}", e.getMessage());
+        }
+    }
+}
\ No newline at end of file
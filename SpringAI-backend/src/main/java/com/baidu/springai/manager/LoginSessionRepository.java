@@ -0,0 +1,240 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.mapper.LoginSessionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录会话持久化仓库
+ * 会话写入先记入脏表，由后台线程按固定间隔或积累到批量上限时以多行upsert写入MySQL，
+ * 同一会话在一个刷新周期内的多次变更（登记、登录）合并为一行；读取由LoginSessionStore先查内存，未命中才回源
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class LoginSessionRepository {
+
+    /**
+     * 过期会话的清理间隔（秒）
+     */
+    private static final long PURGE_INTERVAL_SECONDS = 60L;
+
+    /**
+     * 单次清理删除的最大行数
+     */
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    @Autowired
+    private LoginSessionMapper loginSessionMapper;
+
+    /**
+     * 待写入的会话，按票据合并
+     */
+    private final Map<String, LoginSession> dirty = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "login-session-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushFailureCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadHitCount = new LongAdder();
+    private final LongAdder purgedRows = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        long interval = weChatConfig.getSessionFlushIntervalMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::purgeExpired, PURGE_INTERVAL_SECONDS, PURGE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        log.info("登录会话持久化已启用，刷新间隔: {}ms，批量上限: {}", interval, weChatConfig.getSessionFlushBatchSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        if (isEnabled()) {
+            flush();
+        }
+    }
+
+    /**
+     * 是否启用持久化
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return weChatConfig.isSessionPersistenceEnabled();
+    }
+
+    /**
+     * 记录会话变更，异步写入
+     *
+     * @param session 登录会话
+     */
+    public void save(LoginSession session) {
+        if (!isEnabled()) {
+            return;
+        }
+        dirty.put(session.getTicket(), session);
+        if (dirty.size() >= weChatConfig.getSessionFlushBatchSize() && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * 从数据库加载未过期的会话
+     *
+     * @param ticket 二维码票据
+     * @return 登录会话，不存在或已过期时返回null
+     */
+    public LoginSession load(String ticket) {
+        if (!isEnabled()) {
+            return null;
+        }
+        loadCount.increment();
+        try {
+            LoginSession session = loginSessionMapper.selectByTicket(ticket, System.currentTimeMillis());
+            if (session != null) {
+                loadHitCount.increment();
+            }
+            return session;
+        } catch (Exception e) {
+            log.warn("加载登录会话失败: ticket={}, {}", ticket, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 根据场景ID从数据库查找未过期会话的票据
+     *
+     * @param sceneId 场景ID
+     * @return 票据，不存在时返回null
+     */
+    public String findTicketByScene(String sceneId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        loadCount.increment();
+        try {
+            String ticket = loginSessionMapper.selectTicketBySceneId(sceneId, System.currentTimeMillis());
+            if (ticket != null) {
+                loadHitCount.increment();
+            }
+            return ticket;
+        } catch (Exception e) {
+            log.warn("按场景ID查询登录会话失败: sceneId={}, {}", sceneId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取持久化统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        long flushes = flushCount.sum();
+        long rows = flushedRows.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("dirty", dirty.size());
+        stats.put("flushCount", flushes);
+        stats.put("flushedRows", rows);
+        stats.put("avgBatchSize", flushes == 0 ? 0.0 : (double) rows / flushes);
+        stats.put("flushFailureCount", flushFailureCount.sum());
+        stats.put("loadCount", loadCount.sum());
+        stats.put("loadHitCount", loadHitCount.sum());
+        stats.put("purgedRows", purgedRows.sum());
+        return stats;
+    }
+
+    /**
+     * 把脏表中的会话按批量上限分批写入，写入失败的会话放回脏表等待下次刷新
+     */
+    private void flush() {
+        flushRequested.set(false);
+        int batchSize = Math.max(weChatConfig.getSessionFlushBatchSize(), 1);
+        long now = System.currentTimeMillis();
+        List<LoginSession> batch = new ArrayList<>(Math.min(dirty.size(), batchSize));
+        Iterator<Map.Entry<String, LoginSession>> iterator = dirty.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, LoginSession> entry = iterator.next();
+            if (!dirty.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            // 已过期的会话不再需要持久化
+            if (!entry.getValue().isExpired(now)) {
+                batch.add(entry.getValue());
+            }
+            if (batch.size() >= batchSize) {
+                if (!write(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private boolean write(List<LoginSession> batch) {
+        try {
+            loginSessionMapper.batchUpsert(batch);
+            flushCount.increment();
+            flushedRows.add(batch.size());
+            return true;
+        } catch (Exception e) {
+            flushFailureCount.increment();
+            log.warn("登录会话批量写入失败，{}条待重试: {}", batch.size(), e.getMessage());
+            for (LoginSession session : batch) {
+                dirty.putIfAbsent(session.getTicket(), session);
+            }
+            return false;
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            long before = System.currentTimeMillis();
+            int deleted;
+            do {
+                deleted = loginSessionMapper.deleteExpired(before, PURGE_BATCH_SIZE);
+                purgedRows.add(deleted);
+            } while (deleted == PURGE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("清理过期登录会话失败: {}", e.getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,765 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.domain.QrCodeTicket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 扫码登录会话存储
+ * 统一维护 票据→会话 与 场景ID→票据 两个并发索引，
+ * 通过两级哈希时间轮批量清理过期会话，并以容量上限保证内存可控：名额先预留再放入索引，
+ * 满容量时沿淘汰游标从最早到期的格子淘汰，不必每次登记都从头扫描时间轮；
+ * 启用持久化时会话变更异步写入数据库，内存未命中再回源加载（重启或由其他节点创建的会话）；
+ * 格式不合法的票据和场景ID不回源，数据库中也查不到的短时间内记为未命中，轮询不存在的票据不会每次都查库；
+ * 集群模式下会话变更同时复制到其他节点
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class LoginSessionStore {
+
+    /**
+     * 时间轮每格的时长（毫秒）
+     */
+    private static final long TICK_MILLIS = 1000L;
+
+    /**
+     * 时间轮格数，必须为2的幂
+     */
+    private static final int WHEEL_SIZE = 1024;
+
+    private static final int WHEEL_SHIFT = Integer.numberOfTrailingZeros(WHEEL_SIZE);
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /**
+     * 溢出轮格数：每格对应主时间轮转一圈（WHEEL_SIZE个刻度），4096格约48天，覆盖临时二维码最长30天的有效期
+     */
+    private static final int OVERFLOW_SIZE = 4096;
+
+    private static final int OVERFLOW_MASK = OVERFLOW_SIZE - 1;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    @Autowired
+    private LoginStatusNotifier loginStatusNotifier;
+
+    @Autowired
+    private LoginSessionRepository loginSessionRepository;
+
+    @Autowired
+    private LoginSessionReplicator loginSessionReplicator;
+
+    private final Map<String, LoginSession> sessions = new ConcurrentHashMap<>();
+
+    private final Map<String, String> sceneToTicket = new ConcurrentHashMap<>();
+
+    /**
+     * 主时间轮：只存放在本圈或下一圈到期的会话，同一格中下一圈才到期的会话处理时放回
+     */
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<LoginSession>[] wheel = new ConcurrentLinkedQueue[WHEEL_SIZE];
+
+    /**
+     * 溢出轮：更晚到期的会话按所在圈数存放，主时间轮进入该圈时整格移入主时间轮
+     */
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<LoginSession>[] overflow = new ConcurrentLinkedQueue[OVERFLOW_SIZE];
+
+    private final long wheelStartMillis = System.currentTimeMillis();
+
+    /**
+     * 会话数，包括已预留名额但尚未放入索引的会话；容量检查与预留通过CAS一起完成
+     */
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    /**
+     * 主时间轮淘汰游标：早于该刻度的格子中没有可淘汰的会话。
+     * 挂入更早刻度的会话时回退，只由持有淘汰锁的线程前移
+     */
+    private final AtomicLong evictTick = new AtomicLong();
+
+    /**
+     * 溢出轮淘汰游标：早于该圈的格子中没有可淘汰的会话，维护方式同evictTick
+     */
+    private final AtomicLong evictRound = new AtomicLong();
+
+    /**
+     * 串行化淘汰，保证游标只被一个线程前移
+     */
+    private final ReentrantLock evictLock = new ReentrantLock();
+
+    /**
+     * 已处理到的时间轮刻度，仅由时间轮线程写入
+     */
+    private volatile long processedTick;
+
+    private final ScheduledExecutorService wheelTicker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "login-session-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder loginCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder missCacheHitCount = new LongAdder();
+    private final LongAdder malformedCount = new LongAdder();
+
+    /**
+     * 回源未命中的票据与场景ID，值为记录的失效时间（毫秒）
+     */
+    private final MissCache missedTickets = new MissCache();
+
+    private final MissCache missedScenes = new MissCache();
+
+    /**
+     * 集群模式下本节点查不到、正在等待其他节点复制过来的票据及其等待者
+     */
+    private final Map<String, Queue<ReplicaWaiter>> replicaWaiters = new ConcurrentHashMap<>();
+
+    private final LongAdder replicaWaitCount = new LongAdder();
+    private final LongAdder replicaArrivedCount = new LongAdder();
+
+    public LoginSessionStore() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        for (int i = 0; i < OVERFLOW_SIZE; i++) {
+            overflow[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        wheelTicker.scheduleAtFixedRate(this::advanceWheel, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        loginSessionReplicator.start(this::applyReplica);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheelTicker.shutdownNow();
+    }
+
+    /**
+     * 登记新的登录会话
+     * 会话有效期取二维码有效期与登录窗口中的较小值，超过容量上限时淘汰最先到期的会话
+     *
+     * @param ticket 二维码票据
+     * @param sceneId 场景ID
+     * @return 登录会话
+     */
+    public LoginSession register(String ticket, String sceneId) {
+        return register(ticket, sceneId, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * 登记新的登录会话，会话有效期不超过二维码自身的过期时间
+     *
+     * @param ticket 二维码票据
+     * @param sceneId 场景ID
+     * @param qrcodeUrl 二维码编码的内容url
+     * @param qrcodeExpireTime 二维码过期时间（毫秒）
+     * @return 登录会话
+     */
+    public LoginSession register(String ticket, String sceneId, String qrcodeUrl, long qrcodeExpireTime) {
+        reserve(1);
+        return doRegister(ticket, sceneId, qrcodeUrl, qrcodeExpireTime, System.currentTimeMillis());
+    }
+
+    /**
+     * 批量登记登录会话，一次腾出整批所需的容量
+     *
+     * @param qrCodeTickets 二维码票据列表
+     * @return 登录会话列表，与票据一一对应
+     */
+    public List<LoginSession> registerAll(List<QrCodeTicket> qrCodeTickets) {
+        reserve(qrCodeTickets.size());
+        long now = System.currentTimeMillis();
+        List<LoginSession> registered = new ArrayList<>(qrCodeTickets.size());
+        for (QrCodeTicket qrCodeTicket : qrCodeTickets) {
+            registered.add(doRegister(qrCodeTicket.getTicket(), String.valueOf(qrCodeTicket.getSceneId()),
+                    qrCodeTicket.getUrl(), qrCodeTicket.getExpireTime(), now));
+        }
+        return registered;
+    }
+
+    private LoginSession doRegister(String ticket, String sceneId, String qrcodeUrl, long qrcodeExpireTime, long now) {
+        long expireTime = Math.min(now + getSessionTtlMillis(), qrcodeExpireTime);
+        LoginSession session = new LoginSession(ticket, sceneId, qrcodeUrl, now, expireTime);
+        LoginSession previous = sessions.put(ticket, session);
+        if (previous != null) {
+            // 同一票据重复登记，替换掉的会话不再占用名额
+            sessionCount.decrementAndGet();
+            sceneToTicket.remove(previous.getSceneId(), ticket);
+        }
+        sceneToTicket.put(sceneId, ticket);
+        scheduleExpiry(session);
+        createdCount.increment();
+        loginSessionRepository.save(session);
+        loginSessionReplicator.publish(session);
+        return session;
+    }
+
+    /**
+     * 获取未过期的登录会话
+     *
+     * @param ticket 二维码票据
+     * @return 登录会话，不存在或已过期时返回null
+     */
+    public LoginSession get(String ticket) {
+        LoginSession session = sessions.get(ticket);
+        if (session == null) {
+            return loadTicket(ticket);
+        }
+        if (session.isExpired(System.currentTimeMillis())) {
+            if (remove(session)) {
+                expiredCount.increment();
+            }
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * 获取未过期的登录会话，集群模式下区分"尚未复制到本节点"与"不存在或已过期"：
+     * 本节点查不到时先等待其他节点登记的快照复制过来，到达即回调，最多等待cluster-replica-wait-millis后按当时的查询结果回调。
+     * 回调可能在调用线程、复制线程或时间轮线程上执行，只应做轻量操作
+     *
+     * @param ticket 二维码票据
+     * @param callback 回调，参数为登录会话，等待结束仍不存在时为null
+     */
+    public void getOrAwaitReplica(String ticket, Consumer<LoginSession> callback) {
+        LoginSession session = get(ticket);
+        long waitMillis = weChatConfig.getClusterReplicaWaitMillis();
+        if (session != null || !loginSessionReplicator.isEnabled() || waitMillis <= 0) {
+            callback.accept(session);
+            return;
+        }
+        replicaWaitCount.increment();
+        ReplicaWaiter waiter = new ReplicaWaiter(callback);
+        replicaWaiters.compute(ticket, (key, queue) -> {
+            if (queue == null) {
+                queue = new ConcurrentLinkedQueue<>();
+            }
+            queue.add(waiter);
+            return queue;
+        });
+        // 先登记再检查，避免登记前刚到达的快照被错过
+        session = get(ticket);
+        if (session != null) {
+            completeReplicaWaiters(ticket, session);
+            return;
+        }
+        wheelTicker.schedule(() -> {
+            replicaWaiters.computeIfPresent(ticket, (key, queue) -> {
+                queue.remove(waiter);
+                return queue.isEmpty() ? null : queue;
+            });
+            waiter.complete(get(ticket));
+        }, waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 根据场景ID查找票据
+     *
+     * @param sceneId 场景ID
+     * @return 票据，不存在时返回null
+     */
+    public String findTicketByScene(String sceneId) {
+        String ticket = sceneToTicket.get(sceneId);
+        if (ticket != null || !loginSessionRepository.isEnabled()) {
+            return ticket;
+        }
+        if (!isWellFormedSceneId(sceneId)) {
+            malformedCount.increment();
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (missedScenes.contains(sceneId, now)) {
+            missCacheHitCount.increment();
+            return null;
+        }
+        ticket = loginSessionRepository.findTicketByScene(sceneId);
+        if (ticket == null) {
+            missedScenes.add(sceneId, now + weChatConfig.getSessionMissCacheMillis(),
+                    weChatConfig.getSessionMissCacheMaxSize());
+        }
+        return ticket;
+    }
+
+    /**
+     * 内存未命中时回源加载会话
+     */
+    private LoginSession loadTicket(String ticket) {
+        if (!loginSessionRepository.isEnabled()) {
+            return null;
+        }
+        if (!isWellFormedTicket(ticket)) {
+            malformedCount.increment();
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (missedTickets.contains(ticket, now)) {
+            missCacheHitCount.increment();
+            return null;
+        }
+        LoginSession loaded = loginSessionRepository.load(ticket);
+        if (loaded == null) {
+            missedTickets.add(ticket, now + weChatConfig.getSessionMissCacheMillis(),
+                    weChatConfig.getSessionMissCacheMaxSize());
+            return null;
+        }
+        return adopt(loaded);
+    }
+
+    /**
+     * 标记会话已扫码登录
+     *
+     * @param ticket 二维码票据
+     * @param openId 用户OpenID
+     * @return 会话存在且未过期时返回true
+     */
+    public boolean markLoggedIn(String ticket, String openId) {
+        LoginSession session = get(ticket);
+        if (session == null) {
+            return false;
+        }
+        session.setOpenId(openId);
+        loginCount.increment();
+        loginSessionRepository.save(session);
+        loginSessionReplicator.publish(session);
+        loginStatusNotifier.publish(ticket, session);
+        return true;
+    }
+
+    /**
+     * 当前存活的会话数
+     *
+     * @return 会话数
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * 场景ID索引的条目数
+     *
+     * @return 条目数
+     */
+    public int sceneIndexSize() {
+        return sceneToTicket.size();
+    }
+
+    /**
+     * 获取会话存储统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("liveSessions", sessions.size());
+        stats.put("sceneIndexSize", sceneToTicket.size());
+        stats.put("capacity", weChatConfig.getSessionMaxSize());
+        stats.put("sessionTtlSeconds", getSessionTtlSeconds());
+        stats.put("createdCount", createdCount.sum());
+        stats.put("loginCount", loginCount.sum());
+        stats.put("expiredCount", expiredCount.sum());
+        stats.put("evictedCount", evictedCount.sum());
+        stats.put("missCacheSize", missedTickets.size() + missedScenes.size());
+        stats.put("missCacheHitCount", missCacheHitCount.sum());
+        stats.put("malformedCount", malformedCount.sum());
+        stats.put("replicaWaitCount", replicaWaitCount.sum());
+        stats.put("replicaArrivedCount", replicaArrivedCount.sum());
+        return stats;
+    }
+
+    /**
+     * 会话有效期（毫秒）
+     *
+     * @return 有效期
+     */
+    public long getSessionTtlMillis() {
+        return TimeUnit.SECONDS.toMillis(getSessionTtlSeconds());
+    }
+
+    /**
+     * 会话有效期（秒）
+     */
+    private int getSessionTtlSeconds() {
+        int loginWindow = weChatConfig.getLoginWindowSeconds();
+        int qrcodeExpire = weChatConfig.getQrcodeExpireSeconds();
+        return loginWindow > 0 ? Math.min(loginWindow, qrcodeExpire) : qrcodeExpire;
+    }
+
+    /**
+     * 为即将放入的会话预留名额，超过容量上限时先淘汰最先到期的会话。
+     * 只有其余名额全部是并发登记中、尚未挂到时间轮上的会话而无可淘汰时才放行超出
+     */
+    private void reserve(int incoming) {
+        int max = weChatConfig.getSessionMaxSize();
+        while (true) {
+            int count = sessionCount.get();
+            if (count + incoming <= max || count == 0 || !evictOne()) {
+                if (sessionCount.compareAndSet(count, count + incoming)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 将从数据库加载或其他节点复制的会话放入内存索引，并发放入时以先放入的为准
+     */
+    private LoginSession adopt(LoginSession loaded) {
+        reserve(1);
+        LoginSession existing = sessions.putIfAbsent(loaded.getTicket(), loaded);
+        if (existing != null) {
+            sessionCount.decrementAndGet();
+            return existing;
+        }
+        sceneToTicket.put(loaded.getSceneId(), loaded.getTicket());
+        scheduleExpiry(loaded);
+        return loaded;
+    }
+
+    /**
+     * 应用其他节点复制过来的会话快照：本地没有则直接放入，本地等待中而快照已登录则标记登录并通知等待者；
+     * 正在等待该票据复制过来的请求随即得到会话
+     */
+    private void applyReplica(LoginSession replica) {
+        if (replica.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+        LoginSession session = adopt(replica);
+        if (session != replica && replica.isLoggedIn() && !session.isLoggedIn()) {
+            session.setOpenId(replica.getOpenId());
+            loginStatusNotifier.publish(session.getTicket(), session);
+        }
+        completeReplicaWaiters(session.getTicket(), session);
+    }
+
+    private void completeReplicaWaiters(String ticket, LoginSession session) {
+        Queue<ReplicaWaiter> waiters = replicaWaiters.remove(ticket);
+        if (waiters == null) {
+            return;
+        }
+        ReplicaWaiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            if (waiter.complete(session)) {
+                replicaArrivedCount.increment();
+            }
+        }
+    }
+
+    /**
+     * 将会话挂到时间轮上：两圈以内到期的挂到主时间轮的过期刻度上，更晚的挂到溢出轮上。
+     * 溢出轮的一格在主时间轮进入该圈时才移入，这里至少留出一整圈，并发登记读到稍旧的processedTick也不会错过移入
+     */
+    private void scheduleExpiry(LoginSession session) {
+        long current = processedTick;
+        long tick = Math.max(expireTickOf(session), current + 1);
+        if (tick < current + 2L * WHEEL_SIZE) {
+            wheel[(int) (tick & WHEEL_MASK)].offer(session);
+            evictTick.accumulateAndGet(tick, Math::min);
+        } else {
+            long round = tick >>> WHEEL_SHIFT;
+            overflow[(int) (round & OVERFLOW_MASK)].offer(session);
+            evictRound.accumulateAndGet(round, Math::min);
+        }
+    }
+
+    private long expireTickOf(LoginSession session) {
+        return (session.getExpireTime() - wheelStartMillis + TICK_MILLIS - 1) / TICK_MILLIS;
+    }
+
+    private void advanceWheel() {
+        advanceTo(System.currentTimeMillis());
+    }
+
+    /**
+     * 推进时间轮，处理从上次处理刻度到now所在刻度之间的所有格子，每进入新的一圈先把溢出轮对应格子移入
+     *
+     * @param now 当前时间（毫秒）
+     */
+    void advanceTo(long now) {
+        try {
+            long currentTick = (now - wheelStartMillis) / TICK_MILLIS;
+            for (long tick = processedTick + 1; tick <= currentTick; tick++) {
+                if ((tick & WHEEL_MASK) == 0) {
+                    cascade(tick >>> WHEEL_SHIFT);
+                }
+                expireSlot(tick);
+                processedTick = tick;
+            }
+            missedTickets.purge(now);
+            missedScenes.purge(now);
+        } catch (Exception e) {
+            log.error("登录会话时间轮处理异常", e);
+        }
+    }
+
+    /**
+     * 把溢出轮中第round圈的会话移入主时间轮；超出溢出轮范围、更晚圈数的会话重新挂回溢出轮
+     */
+    private void cascade(long round) {
+        ConcurrentLinkedQueue<LoginSession> slot = overflow[(int) (round & OVERFLOW_MASK)];
+        List<LoginSession> later = null;
+        LoginSession session;
+        while ((session = slot.poll()) != null) {
+            if (sessions.get(session.getTicket()) != session) {
+                continue;
+            }
+            long tick = expireTickOf(session);
+            if (tick >>> WHEEL_SHIFT > round) {
+                if (later == null) {
+                    later = new ArrayList<>();
+                }
+                later.add(session);
+            } else {
+                long target = Math.max(tick, round << WHEEL_SHIFT);
+                wheel[(int) (target & WHEEL_MASK)].offer(session);
+                evictTick.accumulateAndGet(target, Math::min);
+            }
+        }
+        if (later != null) {
+            slot.addAll(later);
+            evictRound.accumulateAndGet(round + OVERFLOW_SIZE, Math::min);
+        }
+    }
+
+    /**
+     * 处理单个格子：到期的会话移除，未到期（下一圈才到期）的会话放回原格子
+     */
+    private void expireSlot(long tick) {
+        ConcurrentLinkedQueue<LoginSession> slot = wheel[(int) (tick & WHEEL_MASK)];
+        List<LoginSession> pending = null;
+        LoginSession session;
+        while ((session = slot.poll()) != null) {
+            if (sessions.get(session.getTicket()) != session) {
+                continue;
+            }
+            if (expireTickOf(session) <= tick) {
+                if (remove(session)) {
+                    expiredCount.increment();
+                }
+            } else {
+                if (pending == null) {
+                    pending = new ArrayList<>();
+                }
+                pending.add(session);
+            }
+        }
+        if (pending != null) {
+            slot.addAll(pending);
+            // 淘汰线程可能在这些会话被取出期间扫过了它们下一圈的刻度
+            evictTick.accumulateAndGet(tick + WHEEL_SIZE, Math::min);
+        }
+    }
+
+    /**
+     * 淘汰最先到期的一个会话：从淘汰游标开始按刻度顺序扫描主时间轮两圈，每个格子只取不晚于该刻度到期的会话；
+     * 主时间轮中没有时再从溢出轮游标开始按圈数顺序取，同一圈内按登记顺序淘汰（精度为一圈）。
+     * 游标先前移再扫描格子，扫描期间挂入该格子的会话会把游标拉回，不会被跳过；淘汰成功后游标停在原格子
+     *
+     * @return 是否淘汰成功
+     */
+    private boolean evictOne() {
+        evictLock.lock();
+        try {
+            long start = processedTick + 1;
+            long wheelEnd = start + 2L * WHEEL_SIZE;
+            while (true) {
+                long cursor = evictTick.get();
+                long tick = Math.max(cursor, start);
+                if (tick >= wheelEnd) {
+                    break;
+                }
+                if (!evictTick.compareAndSet(cursor, tick + 1)) {
+                    continue;
+                }
+                if (evictFrom(wheel[(int) (tick & WHEEL_MASK)], Long.MIN_VALUE, tick)) {
+                    evictTick.accumulateAndGet(tick, Math::min);
+                    return true;
+                }
+            }
+            long firstRound = start >>> WHEEL_SHIFT;
+            long overflowEnd = firstRound + OVERFLOW_SIZE;
+            while (true) {
+                long cursor = evictRound.get();
+                long round = Math.max(cursor, firstRound);
+                if (round >= overflowEnd) {
+                    return false;
+                }
+                if (!evictRound.compareAndSet(cursor, round + 1)) {
+                    continue;
+                }
+                if (evictFrom(overflow[(int) (round & OVERFLOW_MASK)], round << WHEEL_SHIFT,
+                        ((round + 1) << WHEEL_SHIFT) - 1)) {
+                    evictRound.accumulateAndGet(round, Math::min);
+                    return true;
+                }
+            }
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    /**
+     * 从格子中淘汰第一个过期刻度在[fromTick, toTick]内的会话，顺带清掉已被移除或替换的会话
+     */
+    private boolean evictFrom(ConcurrentLinkedQueue<LoginSession> slot, long fromTick, long toTick) {
+        if (slot.isEmpty()) {
+            return false;
+        }
+        Iterator<LoginSession> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            LoginSession session = iterator.next();
+            if (sessions.get(session.getTicket()) != session) {
+                iterator.remove();
+                continue;
+            }
+            long tick = expireTickOf(session);
+            if (tick >= fromTick && tick <= toTick) {
+                iterator.remove();
+                if (remove(session)) {
+                    evictedCount.increment();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 同时移除两个索引中的会话，并通知等待该票据的监听器会话已过期
+     *
+     * @return 会话是否由本次调用移除
+     */
+    private boolean remove(LoginSession session) {
+        if (!sessions.remove(session.getTicket(), session)) {
+            return false;
+        }
+        sessionCount.decrementAndGet();
+        sceneToTicket.remove(session.getSceneId(), session.getTicket());
+        loginStatusNotifier.publish(session.getTicket(), null);
+        return true;
+    }
+
+    /**
+     * 票据只含URL安全的Base64字符（测试桩的票据也遵循该格式），长度不超过256
+     */
+    private static boolean isWellFormedTicket(String ticket) {
+        int length = ticket == null ? 0 : ticket.length();
+        if (length == 0 || length > 256) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = ticket.charAt(i);
+            boolean valid = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '+' || c == '/' || c == '=' || c == '-' || c == '_';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 场景ID由SceneIdAllocator分配，为不超过10位的非负整数
+     */
+    private static boolean isWellFormedSceneId(String sceneId) {
+        int length = sceneId == null ? 0 : sceneId.length();
+        if (length == 0 || length > 10) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = sceneId.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 回源未命中记录，只用于跳过数据库查询，内存中的会话总是先于它被查找；
+     * 达到上限后不再记录，过期的记录由时间轮线程每秒清理
+     */
+    private static final class MissCache {
+        private final Map<String, Long> entries = new ConcurrentHashMap<>();
+
+        private boolean contains(String key, long now) {
+            Long expireTime = entries.get(key);
+            if (expireTime == null) {
+                return false;
+            }
+            if (expireTime > now) {
+                return true;
+            }
+            entries.remove(key, expireTime);
+            return false;
+        }
+
+        private void add(String key, long expireTime, int maxSize) {
+            if (entries.size() < maxSize) {
+                entries.put(key, expireTime);
+            }
+        }
+
+        private void purge(long now) {
+            entries.values().removeIf(expireTime -> expireTime <= now);
+        }
+
+        private int size() {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 等待票据复制过来的回调，复制到达与等待超时先到者触发，只触发一次
+     */
+    private static final class ReplicaWaiter {
+        private final Consumer<LoginSession> callback;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private ReplicaWaiter(Consumer<LoginSession> callback) {
+            this.callback = callback;
+        }
+
+        private boolean complete(LoginSession session) {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            callback.accept(session);
+            return true;
+        }
+    }
+}
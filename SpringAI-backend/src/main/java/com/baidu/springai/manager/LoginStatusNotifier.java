@@ -0,0 +1,113 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.domain.LoginSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 登录状态通知器
+ * 按票据维护等待中的监听器，会话登录成功或过期时一次性通知该票据下的全部监听器，
+ * 通知开销只与该票据的监听器数量有关，与全局等待数量无关
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class LoginStatusNotifier {
+
+    private final Map<String, Queue<Consumer<LoginSession>>> listeners = new ConcurrentHashMap<>();
+
+    private final AtomicLong waitingCount = new AtomicLong();
+    private final LongAdder publishCount = new LongAdder();
+    private final LongAdder deliveredCount = new LongAdder();
+
+    /**
+     * 订阅票据的登录状态变化
+     * 监听器收到的会话为null表示会话已过期或被淘汰
+     *
+     * @param ticket 二维码票据
+     * @param listener 监听器
+     */
+    public void subscribe(String ticket, Consumer<LoginSession> listener) {
+        listeners.compute(ticket, (key, queue) -> {
+            if (queue == null) {
+                queue = new ConcurrentLinkedQueue<>();
+            }
+            queue.add(listener);
+            return queue;
+        });
+        waitingCount.incrementAndGet();
+    }
+
+    /**
+     * 取消订阅
+     *
+     * @param ticket 二维码票据
+     * @param listener 监听器
+     */
+    public void unsubscribe(String ticket, Consumer<LoginSession> listener) {
+        listeners.computeIfPresent(ticket, (key, queue) -> {
+            if (queue.remove(listener)) {
+                waitingCount.decrementAndGet();
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    /**
+     * 发布票据的终态（登录成功或过期）
+     *
+     * @param ticket 二维码票据
+     * @param session 登录会话，过期时为null
+     */
+    public void publish(String ticket, LoginSession session) {
+        Queue<Consumer<LoginSession>> queue = listeners.remove(ticket);
+        if (queue == null) {
+            return;
+        }
+        publishCount.increment();
+        Consumer<LoginSession> listener;
+        while ((listener = queue.poll()) != null) {
+            waitingCount.decrementAndGet();
+            try {
+                listener.accept(session);
+                deliveredCount.increment();
+            } catch (Exception e) {
+                log.warn("登录状态通知失败: ticket={}, 错误信息: {}", ticket, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 当前等待中的监听器数量
+     *
+     * @return 监听器数量
+     */
+    public long getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    /**
+     * 获取通知统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("waitingListeners", waitingCount.get());
+        stats.put("waitingTickets", listeners.size());
+        stats.put("publishCount", publishCount.sum());
+        stats.put("deliveredCount", deliveredCount.sum());
+        return stats;
+    }
+}
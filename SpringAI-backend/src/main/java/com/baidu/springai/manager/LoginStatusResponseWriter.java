@@ -0,0 +1,213 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 登录状态响应写出器
+ * 按Response<LoginStatusResponse>的JSON格式预先编码：等待扫码、二维码已过期两种响应除时间戳外固定不变，
+ * 只在预编码的字节后补写时间戳，每个响应只分配一个字节数组；登录成功响应在预编码的前缀后写入openId。
+ * 不再构建Response对象，也不经过Jackson反射序列化。按接口配置是否启用，未启用的接口仍由Jackson序列化
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Component
+public class LoginStatusResponseWriter {
+
+    /**
+     * 接口名称：轮询、长轮询、SSE推送
+     */
+    public static final String STATUS = "status";
+    public static final String LONG_POLL = "long-poll";
+    public static final String STREAM = "stream";
+
+    private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.parseMediaType(JSON_CONTENT_TYPE);
+
+    /**
+     * long最多19位数字
+     */
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private static final byte[] WAITING_HEAD = utf8("{\"code\":200,\"message\":\"等待扫码\","
+            + "\"data\":{\"status\":\"waiting\"},\"timestamp\":");
+
+    private static final byte[] EXPIRED_HEAD = utf8("{\"code\":200,\"message\":\"二维码已过期\","
+            + "\"data\":{\"status\":\"expired\"},\"timestamp\":");
+
+    private static final byte[] SUCCESS_HEAD = utf8("{\"code\":200,\"message\":\"登录成功\","
+            + "\"data\":{\"status\":\"success\",\"userInfo\":{");
+
+    private static final byte[] OPEN_ID_NAME = utf8("\"openId\":");
+
+    private static final byte[] SUCCESS_TAIL = utf8("}},\"timestamp\":");
+
+    /**
+     * 时间戳之后的结尾：Response.isSuccess()被Jackson序列化为success字段
+     */
+    private static final byte[] END = utf8(",\"success\":true}");
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Set<String> precomputedEndpoints;
+
+    @PostConstruct
+    public void init() {
+        precomputedEndpoints = new HashSet<>(weChatConfig.getPrecomputedJsonEndpoints());
+    }
+
+    /**
+     * 接口是否使用预编码的JSON
+     *
+     * @param endpoint 接口名称
+     * @return 是否启用
+     */
+    public boolean isPrecomputed(String endpoint) {
+        return precomputedEndpoints.contains(endpoint);
+    }
+
+    /**
+     * 将登录状态直接写入HTTP响应
+     *
+     * @param response HTTP响应
+     * @param session 登录会话，为null表示二维码已过期
+     */
+    public void write(HttpServletResponse response, LoginSession session) throws IOException {
+        byte[] json = toJson(session);
+        response.setContentType(JSON_CONTENT_TYPE);
+        response.setContentLength(json.length);
+        response.getOutputStream().write(json);
+    }
+
+    /**
+     * 将登录状态包装为JSON响应实体，供异步返回的接口使用
+     *
+     * @param session 登录会话，为null表示二维码已过期
+     * @return 响应实体
+     */
+    public ResponseEntity<byte[]> toResponseEntity(LoginSession session) {
+        return ResponseEntity.ok().contentType(JSON_MEDIA_TYPE).body(toJson(session));
+    }
+
+    /**
+     * 按Response的字段顺序编码登录状态：{"code":200,"message":...,"data":{...},"timestamp":...,"success":true}
+     * 字段与Jackson按non_empty序列化的结果一致，前端无需区分
+     *
+     * @param session 登录会话，为null表示二维码已过期
+     * @return UTF-8编码的JSON
+     */
+    public byte[] toJson(LoginSession session) {
+        return toJson(session, System.currentTimeMillis());
+    }
+
+    byte[] toJson(LoginSession session, long timestamp) {
+        if (session == null) {
+            return withTimestamp(EXPIRED_HEAD, timestamp);
+        }
+        if (!session.isLoggedIn()) {
+            return withTimestamp(WAITING_HEAD, timestamp);
+        }
+
+        byte[] openId = quoteOpenId(session.getOpenId());
+        int openIdLength = openId != null ? OPEN_ID_NAME.length + openId.length : 0;
+        byte[] json = new byte[SUCCESS_HEAD.length + openIdLength + SUCCESS_TAIL.length
+                + stringSize(timestamp) + END.length];
+        int position = put(json, 0, SUCCESS_HEAD);
+        if (openId != null) {
+            position = put(json, position, OPEN_ID_NAME);
+            position = put(json, position, openId);
+        }
+        position = put(json, position, SUCCESS_TAIL);
+        putTimestamp(json, position, timestamp);
+        return json;
+    }
+
+    private static byte[] withTimestamp(byte[] head, long timestamp) {
+        byte[] json = new byte[head.length + stringSize(timestamp) + END.length];
+        putTimestamp(json, put(json, 0, head), timestamp);
+        return json;
+    }
+
+    /**
+     * 写入时间戳和结尾，json恰好以此结束
+     */
+    private static void putTimestamp(byte[] json, int position, long timestamp) {
+        int end = json.length - END.length;
+        System.arraycopy(END, 0, json, end, END.length);
+        long value = timestamp;
+        for (int i = end - 1; i >= position; i--) {
+            json[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int put(byte[] json, int position, byte[] bytes) {
+        System.arraycopy(bytes, 0, json, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    /**
+     * 编码带引号的openId，openId为空时返回null（non_empty下不输出该字段）
+     * openId只含字母、数字、下划线和连字符，通常无需转义；含其他字符时交给应用的ObjectMapper编码，
+     * 转义规则（包括代理对的写法）与Jackson序列化整个Response时相同
+     */
+    private byte[] quoteOpenId(String openId) {
+        if (openId == null || openId.isEmpty()) {
+            return null;
+        }
+        int length = openId.length();
+        byte[] quoted = new byte[length + 2];
+        quoted[0] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = openId.charAt(i);
+            if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+                return quoteWithJackson(openId);
+            }
+            quoted[i + 1] = (byte) c;
+        }
+        quoted[length + 1] = '"';
+        return quoted;
+    }
+
+    private byte[] quoteWithJackson(String text) {
+        try {
+            return objectMapper.writeValueAsBytes(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("openId序列化失败", e);
+        }
+    }
+
+    /**
+     * 非负数的十进制位数
+     */
+    private static int stringSize(long value) {
+        int size = 1;
+        for (long limit = 10; size < MAX_LONG_DIGITS && value >= limit; limit *= 10) {
+            size++;
+        }
+        return size;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录状态SSE推送管理器
+ * 统一管理所有打开的SSE连接：由单个线程定时调度心跳，心跳和状态事件都在发送线程池上写出，
+ * 空闲连接只占用内存，不占用线程，发布状态的webhook线程也不会被慢客户端拖住。
+ * 每个连接的发送按顺序排队，同时最多占用一个发送线程，连接有待发送的内容时跳过心跳。
+ * 不读数据的客户端会让写操作阻塞在socket上，从其他线程结束连接并不能让它返回，
+ * 只能等Tomcat的写超时（即server.tomcat.connection-timeout）抛出异常；
+ * 因此发送线程数要大于同时可能卡住的连接数，卡住的连接在写超时前最多占住一个线程。
+ * 发送线程使用平台线程：Tomcat阻塞写在synchronized块内等待，虚拟线程在这里会钉住载体线程。
+ * 超过一个心跳间隔仍未发送完成的连接视为卡住，不再为它排队新的事件
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class LoginStatusStreamManager {
+
+    private static final String STATUS_EVENT = "status";
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    /**
+     * 打开的连接及其发送队列
+     */
+    private final Map<SseEmitter, Stream> streams = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sse-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicInteger senderIndex = new AtomicInteger();
+
+    private ExecutorService sender;
+
+    private final LongAdder openedCount = new LongAdder();
+    private final LongAdder eventCount = new LongAdder();
+    private final LongAdder heartbeatCount = new LongAdder();
+    private final LongAdder sendFailureCount = new LongAdder();
+    private final LongAdder heartbeatSkippedCount = new LongAdder();
+    private final LongAdder stalledCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        sender = Executors.newFixedThreadPool(Math.max(weChatConfig.getSseSenderThreads(), 1), r -> {
+            Thread thread = new Thread(r, "sse-sender-" + senderIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = weChatConfig.getSseHeartbeatSeconds();
+        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeats, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        sender.shutdownNow();
+        streams.keySet().forEach(SseEmitter::complete);
+    }
+
+    /**
+     * 打开一个SSE连接
+     *
+     * @param timeoutMillis 连接超时时间（毫秒）
+     * @param onClose 连接结束（完成、超时或出错）时的清理回调
+     * @return SSE连接
+     */
+    public SseEmitter open(long timeoutMillis, Runnable onClose) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(() -> {
+            Stream stream = streams.remove(emitter);
+            if (stream != null) {
+                stream.closed = true;
+            }
+            onClose.run();
+        });
+        streams.put(emitter, new Stream(emitter));
+        openedCount.increment();
+        return emitter;
+    }
+
+    /**
+     * 异步发送状态事件，排在该连接之前的发送之后
+     *
+     * @param emitter SSE连接
+     * @param data 事件数据
+     * @param complete 发送后是否结束连接
+     */
+    public void sendStatus(SseEmitter emitter, Object data, boolean complete) {
+        Stream stream = streams.get(emitter);
+        if (stream == null) {
+            // 连接已结束，或已被判定为卡住而放弃
+            return;
+        }
+        stream.enqueue(new Send(SseEmitter.event().name(STATUS_EVENT).data(data), false, complete));
+    }
+
+    /**
+     * 获取SSE推送统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openStreams", streams.size());
+        stats.put("openedCount", openedCount.sum());
+        stats.put("eventCount", eventCount.sum());
+        stats.put("heartbeatCount", heartbeatCount.sum());
+        stats.put("sendFailureCount", sendFailureCount.sum());
+        stats.put("heartbeatSkippedCount", heartbeatSkippedCount.sum());
+        stats.put("stalledCount", stalledCount.sum());
+        return stats;
+    }
+
+    /**
+     * 向所有打开的连接提交心跳注释，及时发现已断开的客户端；本线程只做调度，不写网络
+     */
+    private void sendHeartbeats() {
+        long now = System.nanoTime();
+        long stallNanos = TimeUnit.SECONDS.toNanos(weChatConfig.getSseHeartbeatSeconds());
+        streams.forEach((emitter, stream) -> {
+            long startedAt = stream.sendStartedAt;
+            // 只按实际开始写出的时间判断，排队等待发送线程的时间不算
+            if (startedAt != 0 && now - startedAt > stallNanos && streams.remove(emitter) != null) {
+                stream.closed = true;
+                stalledCount.increment();
+                log.warn("SSE连接超过{}秒未能写出，放弃该连接", weChatConfig.getSseHeartbeatSeconds());
+                emitter.completeWithError(new IOException("SSE发送超时"));
+                return;
+            }
+            if (stream.pending.get() != 0) {
+                heartbeatSkippedCount.increment();
+                return;
+            }
+            stream.enqueue(new Send(SseEmitter.event().comment("heartbeat"), true, false));
+        });
+    }
+
+    private void write(Stream stream, Send send) {
+        if (stream.closed) {
+            return;
+        }
+        stream.sendStartedAt = System.nanoTime();
+        try {
+            stream.emitter.send(send.event());
+            (send.heartbeat() ? heartbeatCount : eventCount).increment();
+            if (send.complete()) {
+                stream.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            sendFailureCount.increment();
+            stream.closed = true;
+            streams.remove(stream.emitter);
+            stream.emitter.completeWithError(e);
+        } finally {
+            stream.sendStartedAt = 0;
+        }
+    }
+
+    private record Send(SseEmitter.SseEventBuilder event, boolean heartbeat, boolean complete) {
+    }
+
+    /**
+     * 一个连接的发送队列：入队时计数从0变为1的线程把排空任务提交到发送线程池，
+     * 排空任务依次写出直到计数归0，因此同一连接的发送不会并发，也不会占用第二个发送线程
+     */
+    private final class Stream {
+        private final SseEmitter emitter;
+        private final Queue<Send> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * 正在进行的发送开始时间（纳秒），0表示当前没有在写
+         */
+        private volatile long sendStartedAt;
+
+        private volatile boolean closed;
+
+        private Stream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void enqueue(Send send) {
+            queue.offer(send);
+            if (pending.getAndIncrement() == 0) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                write(this, queue.poll());
+            } while (pending.decrementAndGet() != 0);
+        }
+    }
+}
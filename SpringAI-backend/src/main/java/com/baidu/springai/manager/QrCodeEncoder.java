@@ -0,0 +1,596 @@
+package com.baidu.springai.manager;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 二维码矩阵编码器
+ * 对zxing会选用字节模式的ASCII内容（微信返回的二维码url都属于这一类）自行编码，结果与zxing的Encoder.encode逐模块一致，
+ * 包括按ISO/IEC 18004的四条罚分规则从8种掩码中择优；其他内容仍交给zxing。
+ * 与zxing的差别只在开销：zxing每种掩码都重建一遍矩阵，RS纠错的多项式运算每一步都分配新数组；
+ * 这里功能图形按版本生成一次模板，数据位只摆放一次，8种掩码在同一个缓冲区上按位异或后计算罚分，
+ * RS纠错用GF(256)查表完成。实例持有可复用的缓冲区，不是线程安全的，随渲染上下文池化
+ *
+ * @author baidu
+ * @version 1.0
+ */
+final class QrCodeEncoder {
+
+    private static final int NUM_MASK_PATTERNS = 8;
+
+    private static final int MAX_VERSION = 40;
+
+    private static final int TYPE_INFO_POLY = 0x537;
+
+    private static final int TYPE_INFO_MASK_PATTERN = 0x5412;
+
+    private static final int VERSION_INFO_POLY = 0x1f25;
+
+    /**
+     * 第一份格式信息的坐标（x, y），第i个对应格式信息从低位起的第i位
+     */
+    private static final int[][] TYPE_INFO_COORDINATES = {
+            {8, 0}, {8, 1}, {8, 2}, {8, 3}, {8, 4}, {8, 5}, {8, 7}, {8, 8},
+            {7, 8}, {5, 8}, {4, 8}, {3, 8}, {2, 8}, {1, 8}, {0, 8},
+    };
+
+    private static final int[] GF_EXP = new int[512];
+
+    private static final int[] GF_LOG = new int[256];
+
+    static {
+        int x = 1;
+        for (int i = 0; i < 255; i++) {
+            GF_EXP[i] = x;
+            GF_LOG[x] = i;
+            x <<= 1;
+            if (x >= 256) {
+                x ^= 0x11d;
+            }
+        }
+        for (int i = 255; i < GF_EXP.length; i++) {
+            GF_EXP[i] = GF_EXP[i - 255];
+        }
+    }
+
+    /**
+     * 按版本生成的功能图形模板，生成后只读
+     */
+    private static final AtomicReferenceArray<Template> TEMPLATES = new AtomicReferenceArray<>(MAX_VERSION + 1);
+
+    /**
+     * 按纠错码字数生成的RS生成多项式，生成后只读
+     */
+    private static final AtomicReferenceArray<int[]> GENERATORS = new AtomicReferenceArray<>(256);
+
+    private byte[] modules = new byte[0];
+
+    private byte[] candidate = new byte[0];
+
+    private byte[] codewords = new byte[0];
+
+    private int[] ecc = new int[0];
+
+    private int[] columnRun = new int[0];
+
+    private int[] columnHistory = new int[0];
+
+    private int size;
+
+    /**
+     * 编码后的矩阵，按行存放，1为深色；下一次编码前有效
+     *
+     * @return 矩阵
+     */
+    byte[] modules() {
+        return modules;
+    }
+
+    /**
+     * 编码后矩阵的边长（模块数）
+     *
+     * @return 边长
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 编码二维码内容
+     *
+     * @param content 二维码内容
+     * @param ecLevel 纠错等级
+     * @param maskPattern 掩码（0-7），-1表示按罚分择优
+     * @throws WriterException 内容超出二维码容量时抛出
+     */
+    void encode(String content, ErrorCorrectionLevel ecLevel, int maskPattern) throws WriterException {
+        if (!isAsciiByteMode(content) || !encodeByteMode(content, ecLevel, maskPattern)) {
+            Map<EncodeHintType, ?> hints = maskPattern >= 0 ? Map.of(EncodeHintType.QR_MASK_PATTERN, maskPattern) : null;
+            copyMatrix(Encoder.encode(content, ecLevel, hints).getMatrix());
+        }
+    }
+
+    private static boolean isAsciiByteMode(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return Encoder.chooseMode(content) == Mode.BYTE;
+    }
+
+    /**
+     * 字节模式编码，与zxing选择同样的版本、填充同样的码字
+     *
+     * @return 内容放不进任何版本时返回false，交给zxing按它的方式报错
+     */
+    private boolean encodeByteMode(String content, ErrorCorrectionLevel ecLevel, int maskPattern) {
+        int length = content.length();
+        Version version = chooseVersion(bitsNeeded(length, Version.getVersionForNumber(1)), ecLevel);
+        if (version == null) {
+            return false;
+        }
+        version = chooseVersion(bitsNeeded(length, version), ecLevel);
+        if (version == null) {
+            return false;
+        }
+
+        Version.ECBlocks ecBlocks = version.getECBlocksForLevel(ecLevel);
+        int numTotalBytes = version.getTotalCodewords();
+        int numDataBytes = numTotalBytes - ecBlocks.getTotalECCodewords();
+        writeDataCodewords(content, version, numDataBytes);
+        int numTotalBits = interleaveWithEcc(numTotalBytes, numDataBytes, ecBlocks.getNumBlocks());
+
+        Template template = template(version);
+        size = template.size;
+        int cells = size * size;
+        if (modules.length < cells) {
+            modules = new byte[cells];
+            candidate = new byte[cells];
+        }
+        if (columnRun.length < size) {
+            columnRun = new int[size];
+            columnHistory = new int[size];
+        }
+        System.arraycopy(template.modules, 0, candidate, 0, cells);
+        int[] dataCells = template.dataCells;
+        for (int i = 0; i < dataCells.length && i < numTotalBits; i++) {
+            candidate[dataCells[i]] = (byte) ((codewords[i >>> 3] >>> (7 - (i & 7))) & 1);
+        }
+
+        int ecBits = ecLevel.getBits();
+        int bestMask = maskPattern;
+        if (bestMask < 0) {
+            int minPenalty = Integer.MAX_VALUE;
+            for (int mask = 0; mask < NUM_MASK_PATTERNS; mask++) {
+                applyMask(template, candidate, modules, cells, ecBits, mask);
+                int penalty = penalty(modules, size);
+                if (penalty < minPenalty) {
+                    minPenalty = penalty;
+                    bestMask = mask;
+                }
+            }
+        }
+        applyMask(template, candidate, modules, cells, ecBits, bestMask);
+        return true;
+    }
+
+    private static int bitsNeeded(int length, Version version) {
+        return 4 + Mode.BYTE.getCharacterCountBits(version) + length * 8;
+    }
+
+    private static Version chooseVersion(int numInputBits, ErrorCorrectionLevel ecLevel) {
+        int numInputBytes = (numInputBits + 7) / 8;
+        for (int number = 1; number <= MAX_VERSION; number++) {
+            Version version = Version.getVersionForNumber(number);
+            int numDataBytes = version.getTotalCodewords() - version.getECBlocksForLevel(ecLevel).getTotalECCodewords();
+            if (numDataBytes >= numInputBytes) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 模式指示符、字符计数和内容，后接终止符并补齐到字节，再用0xEC、0x11交替填充到数据码字数
+     */
+    private void writeDataCodewords(String content, Version version, int numDataBytes) {
+        if (codewords.length < version.getTotalCodewords()) {
+            codewords = new byte[version.getTotalCodewords()];
+        }
+        byte[] data = codewords;
+        Arrays.fill(data, 0, numDataBytes, (byte) 0);
+        int bit = appendBits(data, 0, Mode.BYTE.getBits(), 4);
+        int length = content.length();
+        bit = appendBits(data, bit, length, Mode.BYTE.getCharacterCountBits(version));
+        for (int i = 0; i < length; i++) {
+            bit = appendBits(data, bit, content.charAt(i), 8);
+        }
+        bit = Math.min(bit + 4, numDataBytes * 8);
+        for (int i = (bit + 7) >>> 3, pad = 0; i < numDataBytes; i++, pad++) {
+            data[i] = (byte) ((pad & 1) == 0 ? 0xEC : 0x11);
+        }
+    }
+
+    private static int appendBits(byte[] out, int bit, int value, int numBits) {
+        for (int i = numBits - 1; i >= 0; i--, bit++) {
+            if (((value >>> i) & 1) != 0) {
+                out[bit >>> 3] |= (byte) (0x80 >>> (bit & 7));
+            }
+        }
+        return bit;
+    }
+
+    /**
+     * 按块计算RS纠错码，再按列交错数据码字和纠错码字；
+     * 交错结果写回codewords（数据码字先读入ecc缓冲区再覆盖）
+     *
+     * @return 交错后的总位数
+     */
+    private int interleaveWithEcc(int numTotalBytes, int numDataBytes, int numBlocks) {
+        int numBlocksInGroup2 = numTotalBytes % numBlocks;
+        int numBlocksInGroup1 = numBlocks - numBlocksInGroup2;
+        int numDataBytesInGroup1 = numDataBytes / numBlocks;
+        int numEcBytes = numTotalBytes / numBlocks - numDataBytesInGroup1;
+        int maxDataBytes = numBlocksInGroup2 > 0 ? numDataBytesInGroup1 + 1 : numDataBytesInGroup1;
+        int[] generator = generator(numEcBytes);
+
+        int dataStart = numBlocks * numEcBytes;
+        if (ecc.length < dataStart + numDataBytes) {
+            ecc = new int[dataStart + numDataBytes];
+        }
+        for (int i = 0; i < numDataBytes; i++) {
+            ecc[dataStart + i] = codewords[i] & 0xFF;
+        }
+        int offset = dataStart;
+        for (int block = 0; block < numBlocks; block++) {
+            int blockDataBytes = block < numBlocksInGroup1 ? numDataBytesInGroup1 : numDataBytesInGroup1 + 1;
+            remainder(ecc, offset, blockDataBytes, generator, block * numEcBytes);
+            offset += blockDataBytes;
+        }
+
+        int out = 0;
+        for (int i = 0; i < maxDataBytes; i++) {
+            offset = dataStart;
+            for (int block = 0; block < numBlocks; block++) {
+                int blockDataBytes = block < numBlocksInGroup1 ? numDataBytesInGroup1 : numDataBytesInGroup1 + 1;
+                if (i < blockDataBytes) {
+                    codewords[out++] = (byte) ecc[offset + i];
+                }
+                offset += blockDataBytes;
+            }
+        }
+        for (int i = 0; i < numEcBytes; i++) {
+            for (int block = 0; block < numBlocks; block++) {
+                codewords[out++] = (byte) ecc[block * numEcBytes + i];
+            }
+        }
+        return out * 8;
+    }
+
+    /**
+     * 数据码字乘x^n后除以生成多项式的余数，即n个纠错码字，写入out的outOffset处
+     */
+    private static void remainder(int[] data, int dataOffset, int dataLength, int[] generator, int outOffset) {
+        int n = generator.length - 1;
+        Arrays.fill(data, outOffset, outOffset + n, 0);
+        for (int i = 0; i < dataLength; i++) {
+            int factor = data[dataOffset + i] ^ data[outOffset];
+            System.arraycopy(data, outOffset + 1, data, outOffset, n - 1);
+            data[outOffset + n - 1] = 0;
+            if (factor != 0) {
+                int logFactor = GF_LOG[factor];
+                for (int j = 0; j < n; j++) {
+                    int coefficient = generator[j + 1];
+                    if (coefficient != 0) {
+                        data[outOffset + j] ^= GF_EXP[GF_LOG[coefficient] + logFactor];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * (x - α^0)(x - α^1)...(x - α^(n-1))，系数从最高次开始
+     */
+    private static int[] generator(int n) {
+        int[] generator = GENERATORS.get(n);
+        if (generator != null) {
+            return generator;
+        }
+        generator = new int[n + 1];
+        generator[0] = 1;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j > 0; j--) {
+                int product = generator[j - 1] == 0 ? 0 : GF_EXP[GF_LOG[generator[j - 1]] + i];
+                generator[j] ^= product;
+            }
+        }
+        GENERATORS.compareAndSet(n, null, generator);
+        return GENERATORS.get(n);
+    }
+
+    /**
+     * 对数据模块异或掩码，再写入对应的格式信息
+     */
+    private static void applyMask(Template template, byte[] source, byte[] target, int cells, int ecBits, int mask) {
+        byte[] maskBits = template.maskBits;
+        for (int i = 0; i < cells; i++) {
+            target[i] = (byte) (source[i] ^ ((maskBits[i] >>> mask) & 1));
+        }
+        int typeInfo = typeInfoBits(ecBits, mask);
+        for (int i = 0; i < 15; i++) {
+            byte bit = (byte) ((typeInfo >>> i) & 1);
+            target[template.typeInfoCells[i]] = bit;
+            target[template.typeInfoCells[15 + i]] = bit;
+        }
+    }
+
+    private static int typeInfoBits(int ecBits, int mask) {
+        int typeInfo = ecBits << 3 | mask;
+        return (typeInfo << 10 | bchCode(typeInfo, TYPE_INFO_POLY)) ^ TYPE_INFO_MASK_PATTERN;
+    }
+
+    private static int bchCode(int value, int poly) {
+        int msbSetInPoly = 32 - Integer.numberOfLeadingZeros(poly);
+        value <<= msbSetInPoly - 1;
+        while (32 - Integer.numberOfLeadingZeros(value) >= msbSetInPoly) {
+            value ^= poly << (32 - Integer.numberOfLeadingZeros(value) - msbSetInPoly);
+        }
+        return value;
+    }
+
+    /**
+     * 四条罚分规则之和：连续同色、2x2同色块、类定位图形、深色比例，与zxing的MaskUtil逐条一致。
+     * 按行一次扫完：列方向的连续长度和最近11个模块按列记在数组里，类定位图形用移位寄存器匹配
+     */
+    private int penalty(byte[] m, int size) {
+        int[] columnRun = this.columnRun;
+        int[] columnHistory = this.columnHistory;
+        int penalty = 0;
+        int finderLike = 0;
+        int dark = 0;
+        for (int y = 0; y < size; y++) {
+            int row = y * size;
+            int run = 0;
+            int previous = -1;
+            int history = 0;
+            for (int x = 0; x < size; x++) {
+                int bit = m[row + x];
+                dark += bit;
+                if (bit == previous) {
+                    run++;
+                } else {
+                    if (run >= 5) {
+                        penalty += 3 + run - 5;
+                    }
+                    run = 1;
+                    previous = bit;
+                }
+                if (y == 0) {
+                    columnRun[x] = 1;
+                } else {
+                    int above = row - size + x;
+                    if (bit == m[above]) {
+                        columnRun[x]++;
+                    } else {
+                        if (columnRun[x] >= 5) {
+                            penalty += 3 + columnRun[x] - 5;
+                        }
+                        columnRun[x] = 1;
+                    }
+                    if (x > 0 && bit == m[above - 1] && bit == m[above] && bit == m[row + x - 1]) {
+                        penalty += 3;
+                    }
+                }
+                history = history << 1 | bit;
+                if (x >= 10) {
+                    finderLike += finderLike(history, x);
+                }
+                int column = columnHistory[x] << 1 | bit;
+                columnHistory[x] = column;
+                if (y >= 10) {
+                    finderLike += finderLike(column, y);
+                }
+            }
+            if (run >= 5) {
+                penalty += 3 + run - 5;
+            }
+        }
+        for (int x = 0; x < size; x++) {
+            if (columnRun[x] >= 5) {
+                penalty += 3 + columnRun[x] - 5;
+            }
+        }
+        int total = size * size;
+        return penalty + finderLike * 40 + Math.abs(dark * 2 - total) * 10 / total * 10;
+    }
+
+    /**
+     * 以end结尾的11个模块是否为前4个浅色加1:1:3:1:1，或1:1:3:1:1加后4个浅色；
+     * 两侧都是浅色的同一图形只计一次，前侧超出边界时按非浅色处理（与zxing一致）
+     *
+     * @param history 按顺序移入的模块，最低位为end处
+     * @return 匹配时为1
+     */
+    private static int finderLike(int history, int end) {
+        int window = history & 0x7ff;
+        if (window == 0b000_0101_1101) {
+            return 1;
+        }
+        if (window == 0b101_1101_0000 && (end < 14 || (history >>> 11 & 0xf) != 0)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private void copyMatrix(ByteMatrix matrix) {
+        size = matrix.getWidth();
+        int cells = size * size;
+        if (modules.length < cells) {
+            modules = new byte[cells];
+            candidate = new byte[cells];
+        }
+        byte[][] array = matrix.getArray();
+        for (int y = 0; y < size; y++) {
+            System.arraycopy(array[y], 0, modules, y * size, size);
+        }
+    }
+
+    private static Template template(Version version) {
+        Template template = TEMPLATES.get(version.getVersionNumber());
+        if (template == null) {
+            TEMPLATES.compareAndSet(version.getVersionNumber(), null, new Template(version));
+            template = TEMPLATES.get(version.getVersionNumber());
+        }
+        return template;
+    }
+
+    /**
+     * 某一版本的功能图形模板：定位、分隔、校正、定时图形和版本信息已画好，格式信息位置先置0；
+     * dataCells按zxing摆放数据位的之字形顺序列出数据模块，maskBits的第k位表示掩码k是否翻转该模块
+     */
+    private static final class Template {
+        private final int size;
+        private final byte[] modules;
+        private final byte[] maskBits;
+        private final int[] dataCells;
+        private final int[] typeInfoCells = new int[30];
+
+        private Template(Version version) {
+            size = version.getDimensionForVersion();
+            byte[] m = new byte[size * size];
+            Arrays.fill(m, (byte) -1);
+
+            embedFinder(m, 0, 0);
+            embedFinder(m, size - 7, 0);
+            embedFinder(m, 0, size - 7);
+            for (int i = 0; i < 8; i++) {
+                set(m, i, 7, 0);
+                set(m, size - 8 + i, 7, 0);
+                set(m, i, size - 8, 0);
+            }
+            for (int i = 0; i < 7; i++) {
+                set(m, 7, i, 0);
+                set(m, size - 8, i, 0);
+                set(m, 7, size - 7 + i, 0);
+            }
+            set(m, 8, size - 8, 1);
+            int[] centers = version.getAlignmentPatternCenters();
+            for (int y : centers) {
+                for (int x : centers) {
+                    if (m[y * size + x] == -1) {
+                        embedAlignment(m, x - 2, y - 2);
+                    }
+                }
+            }
+            for (int i = 8; i < size - 8; i++) {
+                int bit = (i + 1) % 2;
+                if (m[6 * size + i] == -1) {
+                    set(m, i, 6, bit);
+                }
+                if (m[i * size + 6] == -1) {
+                    set(m, 6, i, bit);
+                }
+            }
+            for (int i = 0; i < 15; i++) {
+                typeInfoCells[i] = TYPE_INFO_COORDINATES[i][1] * size + TYPE_INFO_COORDINATES[i][0];
+                typeInfoCells[15 + i] = i < 8 ? 8 * size + size - i - 1 : (size - 7 + i - 8) * size + 8;
+                m[typeInfoCells[i]] = 0;
+                m[typeInfoCells[15 + i]] = 0;
+            }
+            if (version.getVersionNumber() >= 7) {
+                int number = version.getVersionNumber();
+                int versionInfo = number << 12 | bchCode(number, VERSION_INFO_POLY);
+                int bitIndex = 0;
+                for (int i = 0; i < 6; i++) {
+                    for (int j = 0; j < 3; j++, bitIndex++) {
+                        int bit = (versionInfo >>> bitIndex) & 1;
+                        set(m, i, size - 11 + j, bit);
+                        set(m, size - 11 + j, i, bit);
+                    }
+                }
+            }
+
+            maskBits = new byte[size * size];
+            int[] cells = new int[size * size];
+            int count = 0;
+            int direction = -1;
+            int x = size - 1;
+            int y = size - 1;
+            while (x > 0) {
+                if (x == 6) {
+                    x--;
+                }
+                while (y >= 0 && y < size) {
+                    for (int i = 0; i < 2; i++) {
+                        int xx = x - i;
+                        int index = y * size + xx;
+                        if (m[index] != -1) {
+                            continue;
+                        }
+                        cells[count++] = index;
+                        m[index] = 0;
+                        for (int mask = 0; mask < NUM_MASK_PATTERNS; mask++) {
+                            if (maskBit(mask, xx, y)) {
+                                maskBits[index] |= (byte) (1 << mask);
+                            }
+                        }
+                    }
+                    y += direction;
+                }
+                direction = -direction;
+                y += direction;
+                x -= 2;
+            }
+            dataCells = Arrays.copyOf(cells, count);
+            modules = m;
+        }
+
+        private void set(byte[] m, int x, int y, int bit) {
+            m[y * size + x] = (byte) bit;
+        }
+
+        private void embedFinder(byte[] m, int left, int top) {
+            for (int y = 0; y < 7; y++) {
+                for (int x = 0; x < 7; x++) {
+                    boolean dark = x == 0 || x == 6 || y == 0 || y == 6 || (x >= 2 && x <= 4 && y >= 2 && y <= 4);
+                    set(m, left + x, top + y, dark ? 1 : 0);
+                }
+            }
+        }
+
+        private void embedAlignment(byte[] m, int left, int top) {
+            for (int y = 0; y < 5; y++) {
+                for (int x = 0; x < 5; x++) {
+                    boolean dark = x == 0 || x == 4 || y == 0 || y == 4 || (x == 2 && y == 2);
+                    set(m, left + x, top + y, dark ? 1 : 0);
+                }
+            }
+        }
+
+        private static boolean maskBit(int mask, int x, int y) {
+            int product = x * y;
+            int intermediate = switch (mask) {
+                case 0 -> (y + x) & 1;
+                case 1 -> y & 1;
+                case 2 -> x % 3;
+                case 3 -> (y + x) % 3;
+                case 4 -> ((y / 2) + (x / 3)) & 1;
+                case 5 -> (product & 1) + (product % 3);
+                case 6 -> ((product & 1) + (product % 3)) & 1;
+                default -> ((product % 3) + ((y + x) & 1)) & 1;
+            };
+            return intermediate == 0;
+        }
+    }
+}
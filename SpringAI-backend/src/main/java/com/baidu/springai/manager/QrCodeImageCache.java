@@ -0,0 +1,272 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.QrCodeImage;
+import com.baidu.springai.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 二维码图片缓存
+ * 按票据缓存二维码图片（远程下载或本地渲染），图片的Base64编码随图片对象一起缓存，
+ * 总占用按图片与其Base64编码的字节数限制（LRU淘汰），SVG不会以Base64输出，只计图片本身；
+ * 缓存项随票据过期；同一票据并发未命中时只加载一次
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class QrCodeImageCache {
+
+    /**
+     * 过期缓存项的清理间隔（秒）
+     */
+    private static final long PURGE_INTERVAL_SECONDS = 60L;
+
+    /**
+     * SVG与PNG共用缓存，按票据加后缀区分，票据本身不含该字符
+     */
+    private static final String SVG_KEY_SUFFIX = "#svg";
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    /**
+     * 按访问顺序排列，最久未访问的在最前面，所有访问都持有lock
+     */
+    private final LinkedHashMap<String, CachedImage> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * 每个取图请求都经过这把锁；JDK 21上在synchronized处争用会占住载体线程，ReentrantLock争用时虚拟线程会让出载体线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long currentBytes;
+
+    private final Map<String, CompletableFuture<CachedImage>> loading = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "qrcode-image-cache-purger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        purger.scheduleWithFixedDelay(this::purgeExpired, PURGE_INTERVAL_SECONDS, PURGE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    /**
+     * 获取二维码图片
+     *
+     * @param ticket 二维码票据
+     * @param expireTime 票据过期时间（毫秒）
+     * @param loader 未命中时的图片加载方法
+     * @return 二维码图片
+     */
+    public QrCodeImage getImage(String ticket, long expireTime, Supplier<QrCodeImage> loader) {
+        return getEntry(ticket, expireTime, loader, true).image;
+    }
+
+    /**
+     * 获取SVG格式的二维码
+     *
+     * @param ticket 二维码票据
+     * @param expireTime 票据过期时间（毫秒）
+     * @param loader 未命中时的渲染方法
+     * @return SVG二维码
+     */
+    public QrCodeImage getSvg(String ticket, long expireTime, Supplier<QrCodeImage> loader) {
+        return getEntry(ticket + SVG_KEY_SUFFIX, expireTime, loader, false).image;
+    }
+
+    /**
+     * 放入已获得的图片（例如预热池中预生成的图片）
+     *
+     * @param ticket 二维码票据
+     * @param image 二维码图片
+     * @param expireTime 票据过期时间（毫秒）
+     */
+    public void put(String ticket, QrCodeImage image, long expireTime) {
+        store(ticket, new CachedImage(image, expireTime, true));
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("entries", entries.size());
+            stats.put("bytes", currentBytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxBytes", weChatConfig.getQrcodeImageCacheMaxBytes());
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("coalescedCount", coalescedCount.sum());
+        stats.put("evictionCount", evictionCount.sum());
+        stats.put("expirationCount", expirationCount.sum());
+        return stats;
+    }
+
+    /**
+     * 查找缓存项，未命中时单飞加载
+     */
+    private CachedImage getEntry(String ticket, long expireTime, Supplier<QrCodeImage> loader, boolean base64) {
+        CachedImage entry = lookup(ticket);
+        if (entry != null) {
+            hitCount.increment();
+            return entry;
+        }
+        missCount.increment();
+
+        CompletableFuture<CachedImage> future = new CompletableFuture<>();
+        CompletableFuture<CachedImage> existing = loading.putIfAbsent(ticket, future);
+        if (existing != null) {
+            coalescedCount.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw BusinessException.serverError("二维码图片获取失败", e.getCause());
+            }
+        }
+
+        try {
+            entry = lookup(ticket);
+            if (entry == null) {
+                entry = new CachedImage(loader.get(), expireTime, base64);
+                store(ticket, entry);
+            }
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(ticket, future);
+        }
+    }
+
+    private CachedImage lookup(String ticket) {
+        lock.lock();
+        try {
+            CachedImage entry = entries.get(ticket);
+            if (entry != null && entry.expireTime <= System.currentTimeMillis()) {
+                entries.remove(ticket);
+                currentBytes -= entry.weight;
+                expirationCount.increment();
+                return null;
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(String ticket, CachedImage entry) {
+        if (entry.weight > weChatConfig.getQrcodeImageCacheMaxBytes()) {
+            return;
+        }
+        lock.lock();
+        try {
+            CachedImage previous = entries.put(ticket, entry);
+            if (previous != null) {
+                currentBytes -= previous.weight;
+            }
+            currentBytes += entry.weight;
+            evictIfNecessary();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 超出字节上限时从最久未访问的缓存项开始淘汰，调用方需持有锁
+     */
+    private void evictIfNecessary() {
+        long maxBytes = weChatConfig.getQrcodeImageCacheMaxBytes();
+        Iterator<CachedImage> iterator = entries.values().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            CachedImage eldest = iterator.next();
+            iterator.remove();
+            currentBytes -= eldest.weight;
+            evictionCount.increment();
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Iterator<CachedImage> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                CachedImage entry = iterator.next();
+                if (entry.expireTime <= now) {
+                    iterator.remove();
+                    currentBytes -= entry.weight;
+                    expirationCount.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 缓存项
+     */
+    private static final class CachedImage {
+        private final QrCodeImage image;
+        private final long expireTime;
+
+        /**
+         * 缓存项占用的字节数；以Base64输出的图片按首次使用后的大小预先计入编码，计入后不再变化
+         */
+        private final long weight;
+
+        private CachedImage(QrCodeImage image, long expireTime, boolean base64) {
+            this.image = image;
+            this.expireTime = expireTime;
+            this.weight = (long) image.getBytes().length + (base64 ? image.getBase64Length() : 0);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.utils.BoundedPool;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.QRCode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 二维码本地渲染器
+ * 根据qrcode/create返回的url在本地生成二维码，输出1位灰度PNG或SVG，
+ * 无需再从showqrcode下载图片；压缩器、CRC和行缓冲放在有界池中复用，
+ * 池满时归还的压缩器立即end释放，不等GC清理本地内存。
+ * 矩阵由QrCodeEncoder编码，与zxing的结果一致，默认按罚分从8种掩码中择优；编码器同样随上下文池化复用。
+ * 二维码内容按票据固定，渲染结果另由QrCodeImageCache按票据缓存，预热池中的票据在后台线程预先渲染
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Component
+public class QrCodeRenderer {
+
+    public static final String PNG_CONTENT_TYPE = "image/png";
+
+    public static final String SVG_CONTENT_TYPE = "image/svg+xml";
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    private final BoundedPool<RenderContext> contextPool = new BoundedPool<>(RenderContext::new,
+            context -> context.deflater.end());
+
+    private ErrorCorrectionLevel errorCorrectionLevel;
+
+    private int maskPattern;
+
+    /**
+     * 启动时解析纠错级别和掩码，配置错误时直接启动失败，而不是等到第一次渲染才报错
+     */
+    @PostConstruct
+    public void init() {
+        String level = weChatConfig.getQrcodeErrorCorrection();
+        try {
+            errorCorrectionLevel = ErrorCorrectionLevel.valueOf(level.trim().toUpperCase());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("二维码纠错级别配置错误（可选L、M、Q、H）: " + level, e);
+        }
+        maskPattern = weChatConfig.getQrcodeMaskPattern();
+        if (maskPattern != -1 && !QRCode.isValidMaskPattern(maskPattern)) {
+            throw new IllegalArgumentException("二维码掩码配置错误（可选0-7，-1表示自动选择）: " + maskPattern);
+        }
+    }
+
+    /**
+     * 渲染PNG格式二维码
+     *
+     * @param content 二维码内容
+     * @return PNG图片字节
+     */
+    public byte[] renderPng(String content) {
+        RenderContext context = contextPool.acquire();
+        try {
+            encode(content, context.encoder);
+            return writePng(context);
+        } finally {
+            contextPool.release(context);
+        }
+    }
+
+    private byte[] writePng(RenderContext context) {
+        int moduleSize = weChatConfig.getQrcodeModuleSize();
+        int quietZone = weChatConfig.getQrcodeQuietZone();
+        byte[] matrix = context.encoder.modules();
+        int modules = context.encoder.size();
+        int size = (modules + 2 * quietZone) * moduleSize;
+        int stride = ((size + 7) >>> 3) + 1;
+
+        byte[] raw = context.rawBuffer(stride * size);
+        byte[] row = context.rowBuffer(stride);
+
+        // 静区行：全白（灰度1位时1为白色），每行首字节为过滤类型0
+        fillWhite(row, stride);
+        int pos = 0;
+        for (int i = 0; i < quietZone * moduleSize; i++, pos += stride) {
+            System.arraycopy(row, 0, raw, pos, stride);
+        }
+        for (int y = 0; y < modules; y++) {
+            fillWhite(row, stride);
+            for (int x = 0; x < modules; x++) {
+                if (matrix[y * modules + x] == 1) {
+                    int start = (quietZone + x) * moduleSize;
+                    for (int px = start; px < start + moduleSize; px++) {
+                        row[1 + (px >>> 3)] &= (byte) ~(0x80 >>> (px & 7));
+                    }
+                }
+            }
+            for (int i = 0; i < moduleSize; i++, pos += stride) {
+                System.arraycopy(row, 0, raw, pos, stride);
+            }
+        }
+        fillWhite(row, stride);
+        for (int i = 0; i < quietZone * moduleSize; i++, pos += stride) {
+            System.arraycopy(row, 0, raw, pos, stride);
+        }
+
+        int compressedLength = context.deflate(raw, pos);
+        byte[] png = new byte[PNG_SIGNATURE.length + (12 + 13) + (12 + compressedLength) + 12];
+        System.arraycopy(PNG_SIGNATURE, 0, png, 0, PNG_SIGNATURE.length);
+        int offset = PNG_SIGNATURE.length;
+
+        byte[] header = context.header;
+        writeInt(header, 0, size);
+        writeInt(header, 4, size);
+        header[8] = 1;
+        header[9] = 0;
+        header[10] = 0;
+        header[11] = 0;
+        header[12] = 0;
+        offset = writeChunk(context.crc, png, offset, IHDR, header, 13);
+        offset = writeChunk(context.crc, png, offset, IDAT, context.compressed, compressedLength);
+        writeChunk(context.crc, png, offset, IEND, header, 0);
+        return png;
+    }
+
+    /**
+     * 渲染SVG格式二维码，同一行中相邻的深色模块合并为一段路径
+     *
+     * @param content 二维码内容
+     * @return SVG文本
+     */
+    public String renderSvg(String content) {
+        RenderContext context = contextPool.acquire();
+        try {
+            encode(content, context.encoder);
+            return writeSvg(context.encoder.modules(), context.encoder.size());
+        } finally {
+            contextPool.release(context);
+        }
+    }
+
+    private String writeSvg(byte[] matrix, int modules) {
+        int moduleSize = weChatConfig.getQrcodeModuleSize();
+        int quietZone = weChatConfig.getQrcodeQuietZone();
+        int dimension = modules + 2 * quietZone;
+
+        StringBuilder svg = new StringBuilder(256 + modules * modules * 3);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+                .append(dimension).append(' ').append(dimension)
+                .append("\" width=\"").append(dimension * moduleSize)
+                .append("\" height=\"").append(dimension * moduleSize)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+                .append("<path fill=\"#000\" d=\"");
+        for (int y = 0; y < modules; y++) {
+            int row = y * modules;
+            int x = 0;
+            while (x < modules) {
+                if (matrix[row + x] != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < modules && matrix[row + x] == 1) {
+                    x++;
+                }
+                int run = x - start;
+                svg.append('M').append(start + quietZone).append(' ').append(y + quietZone)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString();
+    }
+
+    private void encode(String content, QrCodeEncoder encoder) {
+        if (content == null || content.isEmpty()) {
+            throw new IllegalArgumentException("二维码内容不能为空");
+        }
+        try {
+            encoder.encode(content, errorCorrectionLevel, maskPattern);
+        } catch (WriterException e) {
+            throw BusinessException.serverError("二维码渲染失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static void fillWhite(byte[] row, int stride) {
+        row[0] = 0;
+        for (int i = 1; i < stride; i++) {
+            row[i] = (byte) 0xFF;
+        }
+    }
+
+    private static int writeChunk(CRC32 crc, byte[] out, int offset, byte[] type, byte[] data, int length) {
+        writeInt(out, offset, length);
+        System.arraycopy(type, 0, out, offset + 4, 4);
+        System.arraycopy(data, 0, out, offset + 8, length);
+        crc.reset();
+        crc.update(out, offset + 4, 4 + length);
+        writeInt(out, offset + 8 + length, (int) crc.getValue());
+        return offset + 12 + length;
+    }
+
+    private static void writeInt(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >>> 24);
+        out[offset + 1] = (byte) (value >>> 16);
+        out[offset + 2] = (byte) (value >>> 8);
+        out[offset + 3] = (byte) value;
+    }
+
+    /**
+     * 池化复用的渲染缓冲区
+     */
+    private static final class RenderContext {
+        private final QrCodeEncoder encoder = new QrCodeEncoder();
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[13];
+        private byte[] raw = new byte[0];
+        private byte[] row = new byte[0];
+        private byte[] compressed = new byte[4096];
+
+        private byte[] rawBuffer(int length) {
+            if (raw.length < length) {
+                raw = new byte[length];
+            }
+            return raw;
+        }
+
+        private byte[] rowBuffer(int length) {
+            if (row.length < length) {
+                row = new byte[length];
+            }
+            return row;
+        }
+
+        /**
+         * 压缩图像数据到compressed缓冲区
+         *
+         * @return 压缩后的长度
+         */
+        private int deflate(byte[] input, int length) {
+            deflater.reset();
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            int total = 0;
+            while (!deflater.finished()) {
+                if (total == compressed.length) {
+                    byte[] grown = new byte[compressed.length * 2];
+                    System.arraycopy(compressed, 0, grown, 0, total);
+                    compressed = grown;
+                }
+                total += deflater.deflate(compressed, total, compressed.length - total);
+            }
+            return total;
+        }
+    }
+}
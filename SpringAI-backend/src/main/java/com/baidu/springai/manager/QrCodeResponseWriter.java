@@ -0,0 +1,162 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.domain.QrCodeImage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 二维码响应写出器
+ * 图片字节直接从缓存数组写入Servlet输出流；Base64形式的响应按Response的JSON格式手工拼出，
+ * 图片的Base64编码随图片缓存（见QrCodeImage.getBase64），缓存命中时直接把已编码的字节写入输出流，
+ * 每个请求不再编码、不复制图片，也不生成data URI字符串；只有JSON头尾是按请求生成的
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Component
+public class QrCodeResponseWriter {
+
+    private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    private static final String SVG_CONTENT_TYPE = QrCodeRenderer.SVG_CONTENT_TYPE + ";charset=UTF-8";
+
+    /**
+     * 信封的固定片段：data为对象（票据 + 图片）或data URI字符串两种形式
+     */
+    private static final byte[] MESSAGE_START = ascii("{\"code\":200,\"message\":\"");
+    private static final byte[] OBJECT_DATA_START = ascii("\",\"data\":{\"qrCodeId\":\"");
+    private static final byte[] IMAGE_START = ascii("\",\"qrCodeImage\":\"data:");
+    private static final byte[] STRING_DATA_START = ascii("\",\"data\":\"data:");
+    private static final byte[] BASE64_START = ascii(";base64,");
+    private static final byte[] OBJECT_DATA_END = ascii("\"}");
+    private static final byte[] STRING_DATA_END = ascii("\"");
+    private static final byte[] TIMESTAMP_START = ascii(",\"timestamp\":");
+    private static final byte[] END = ascii(",\"success\":true}");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 写出二维码图片字节
+     *
+     * @param response HTTP响应
+     * @param image 二维码图片
+     */
+    public void writeImage(HttpServletResponse response, QrCodeImage image) throws IOException {
+        byte[] bytes = image.getBytes();
+        response.setContentType(image.getContentType());
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    /**
+     * 写出SVG二维码
+     *
+     * @param response HTTP响应
+     * @param svg SVG图片（仅含ASCII字符）
+     */
+    public void writeSvg(HttpServletResponse response, QrCodeImage svg) throws IOException {
+        byte[] bytes = svg.getBytes();
+        response.setContentType(SVG_CONTENT_TYPE);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    /**
+     * 写出data为二维码data URI的Response
+     *
+     * @param response HTTP响应
+     * @param message 响应消息
+     * @param image 二维码图片
+     */
+    public void writeBase64Response(HttpServletResponse response, String message, QrCodeImage image) throws IOException {
+        writeEnvelope(response, message, null, image);
+    }
+
+    /**
+     * 写出data为{qrCodeId: 二维码票据, qrCodeImage: 二维码data URI}的Response
+     *
+     * @param response HTTP响应
+     * @param message 响应消息
+     * @param qrCodeId 二维码票据
+     * @param image 二维码图片
+     */
+    public void writeQrCodeResponse(HttpServletResponse response, String message, String qrCodeId,
+                                    QrCodeImage image) throws IOException {
+        writeEnvelope(response, message, qrCodeId, image);
+    }
+
+    /**
+     * 按Response的字段顺序写出：{"code":200,"message":...,"data":...,"timestamp":...,"success":true}
+     * 字段与Jackson序列化的结果一致，前端无需区分。固定部分是预先编码的字节，
+     * 消息和票据直接转义为UTF-8字节，不经过StringBuilder和String
+     */
+    private void writeEnvelope(HttpServletResponse response, String message, String qrCodeId,
+                               QrCodeImage image) throws IOException {
+        byte[] messageBytes = escape(message);
+        byte[] qrCodeIdBytes = qrCodeId != null ? escape(qrCodeId) : null;
+        byte[] contentType = image.getContentType().getBytes(StandardCharsets.US_ASCII);
+        byte[] base64 = image.getBase64();
+        byte[] timestamp = Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII);
+
+        int length = MESSAGE_START.length + messageBytes.length + contentType.length + BASE64_START.length
+                + base64.length + TIMESTAMP_START.length + timestamp.length + END.length;
+        if (qrCodeIdBytes != null) {
+            length += OBJECT_DATA_START.length + qrCodeIdBytes.length + IMAGE_START.length + OBJECT_DATA_END.length;
+        } else {
+            length += STRING_DATA_START.length + STRING_DATA_END.length;
+        }
+
+        response.setContentType(JSON_CONTENT_TYPE);
+        response.setContentLength(length);
+        OutputStream out = response.getOutputStream();
+        out.write(MESSAGE_START);
+        out.write(messageBytes);
+        if (qrCodeIdBytes != null) {
+            out.write(OBJECT_DATA_START);
+            out.write(qrCodeIdBytes);
+            out.write(IMAGE_START);
+        } else {
+            out.write(STRING_DATA_START);
+        }
+        out.write(contentType);
+        out.write(BASE64_START);
+        out.write(base64);
+        out.write(qrCodeIdBytes != null ? OBJECT_DATA_END : STRING_DATA_END);
+        out.write(TIMESTAMP_START);
+        out.write(timestamp);
+        out.write(END);
+    }
+
+    /**
+     * 转义为不带引号的JSON字符串内容
+     * 代理对（如emoji）交给应用的ObjectMapper，与Jackson序列化Response时的写法相同；
+     * 其余字符用JsonStringEncoder转义，结果与Jackson一致
+     */
+    private byte[] escape(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isSurrogate(text.charAt(i))) {
+                try {
+                    byte[] quoted = objectMapper.writeValueAsBytes(text);
+                    return Arrays.copyOfRange(quoted, 1, quoted.length - 1);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("JSON字符串编码失败", e);
+                }
+            }
+        }
+        return JsonStringEncoder.getInstance().quoteAsUTF8(text);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,255 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.BlockingIoExecutors;
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.QrCodeTicket;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 二维码票据预热池
+ * 后台预先生成（票据、场景ID、图片）并缓存，取用时只是一次内存操作；
+ * 补充目标按最近取用量确定：不超过上一个和当前取用窗口内取用次数的较大值，也不超过池容量；
+ * 池中数量低于低水位（与补充目标取小）时按配置的并发度补充，剩余有效期不足的票据会被丢弃。
+ * 一段时间没有取用时补充目标降为0，池随票据过期清空，不再消耗qrcode/create配额
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class QrCodeTicketPool {
+
+    /**
+     * 后台巡检间隔（毫秒）
+     */
+    private static final long CHECK_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * 补充失败后的退避时间（毫秒）
+     */
+    private static final long FAILURE_BACKOFF_MILLIS = 5000L;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    @Autowired
+    private BlockingIoExecutors blockingIoExecutors;
+
+    private final Deque<QrCodeTicket> entries = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "qrcode-pool-checker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ExecutorService refillExecutor;
+
+    private volatile Supplier<QrCodeTicket> ticketFactory;
+
+    private volatile long refillPausedUntil;
+
+    /**
+     * 当前取用窗口内的取用次数（命中与未命中都算）
+     */
+    private final LongAdder windowDemand = new LongAdder();
+
+    /**
+     * 上一个取用窗口内的取用次数，仅由巡检线程写入
+     */
+    private volatile long previousWindowDemand;
+
+    private long windowStartMillis = System.currentTimeMillis();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder discardedCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    /**
+     * 启动预热池
+     *
+     * @param factory 票据生成方法（同步调用微信接口并下载图片）
+     */
+    public synchronized void start(Supplier<QrCodeTicket> factory) {
+        if (!weChatConfig.isQrcodePoolEnabled() || ticketFactory != null) {
+            return;
+        }
+        this.ticketFactory = factory;
+        this.refillExecutor = blockingIoExecutors.newFixedThreadPool("qrcode-pool-refill-",
+                weChatConfig.getQrcodePoolRefillConcurrency());
+        checker.scheduleWithFixedDelay(this::check, 0, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        log.info("二维码票据预热池已启动，容量: {}，低水位: {}，补充并发: {}",
+                weChatConfig.getQrcodePoolSize(), weChatConfig.getQrcodePoolLowWater(),
+                weChatConfig.getQrcodePoolRefillConcurrency());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checker.shutdownNow();
+        if (refillExecutor != null) {
+            refillExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 取出一个可用的预生成票据
+     *
+     * @return 预生成票据，池为空或未启用时返回null
+     */
+    public QrCodeTicket poll() {
+        if (ticketFactory == null) {
+            return null;
+        }
+        windowDemand.increment();
+        long minRemaining = getMinRemainingMillis();
+        QrCodeTicket entry;
+        while ((entry = entries.pollFirst()) != null) {
+            size.decrementAndGet();
+            if (entry.remainingMillis(System.currentTimeMillis()) >= minRemaining) {
+                hitCount.increment();
+                triggerRefill();
+                return entry;
+            }
+            discardedCount.increment();
+        }
+        missCount.increment();
+        triggerRefill();
+        return null;
+    }
+
+    /**
+     * 获取预热池统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", ticketFactory != null);
+        stats.put("size", size.get());
+        stats.put("capacity", weChatConfig.getQrcodePoolSize());
+        stats.put("lowWater", weChatConfig.getQrcodePoolLowWater());
+        stats.put("refillTarget", getRefillTarget());
+        stats.put("refillConcurrency", weChatConfig.getQrcodePoolRefillConcurrency());
+        stats.put("inFlight", inFlight.get());
+        stats.put("hitCount", hitCount.sum());
+        stats.put("missCount", missCount.sum());
+        stats.put("createdCount", createdCount.sum());
+        stats.put("discardedCount", discardedCount.sum());
+        stats.put("failureCount", failureCount.sum());
+        return stats;
+    }
+
+    /**
+     * 定时巡检：滚动取用窗口，丢弃临近过期的票据，并在低于低水位时补充
+     */
+    private void check() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - windowStartMillis >= TimeUnit.SECONDS.toMillis(weChatConfig.getQrcodePoolDemandWindowSeconds())) {
+                previousWindowDemand = windowDemand.sumThenReset();
+                windowStartMillis = now;
+            }
+            long minRemaining = getMinRemainingMillis();
+            QrCodeTicket head;
+            while ((head = entries.peekFirst()) != null
+                    && head.remainingMillis(System.currentTimeMillis()) < minRemaining) {
+                if (entries.remove(head)) {
+                    size.decrementAndGet();
+                    discardedCount.increment();
+                }
+            }
+            triggerRefill();
+        } catch (Exception e) {
+            log.error("二维码票据预热池巡检异常", e);
+        }
+    }
+
+    /**
+     * 池中数量低于低水位时，按并发上限提交补充任务直到补满补充目标
+     */
+    private void triggerRefill() {
+        if (ticketFactory == null || System.currentTimeMillis() < refillPausedUntil) {
+            return;
+        }
+        int target = getRefillTarget();
+        if (size.get() >= Math.min(weChatConfig.getQrcodePoolLowWater(), target)) {
+            return;
+        }
+        int concurrency = weChatConfig.getQrcodePoolRefillConcurrency();
+        while (true) {
+            int running = inFlight.get();
+            if (running >= concurrency || size.get() + running >= target) {
+                return;
+            }
+            if (inFlight.compareAndSet(running, running + 1)) {
+                refillExecutor.execute(this::refillOne);
+            }
+        }
+    }
+
+    /**
+     * 生成一个票据放入池中，完成后继续补充直到补满
+     */
+    private void refillOne() {
+        boolean success = false;
+        try {
+            QrCodeTicket entry = ticketFactory.get();
+            entries.offerLast(entry);
+            size.incrementAndGet();
+            createdCount.increment();
+            success = true;
+        } catch (Exception e) {
+            failureCount.increment();
+            refillPausedUntil = System.currentTimeMillis() + FAILURE_BACKOFF_MILLIS;
+            log.warn("二维码票据预热失败: {}", e.getMessage());
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (success && size.get() + inFlight.get() < getRefillTarget()) {
+            continueRefill();
+        }
+    }
+
+    /**
+     * 补充过程中不受低水位限制，一直补到补充目标
+     */
+    private void continueRefill() {
+        int running = inFlight.get();
+        if (running < weChatConfig.getQrcodePoolRefillConcurrency() && inFlight.compareAndSet(running, running + 1)) {
+            refillExecutor.execute(this::refillOne);
+        }
+    }
+
+    /**
+     * 补充目标：上一个与当前取用窗口内取用次数的较大值，不超过池容量
+     */
+    private int getRefillTarget() {
+        long demand = Math.max(previousWindowDemand, windowDemand.sum());
+        return (int) Math.min(weChatConfig.getQrcodePoolSize(), demand);
+    }
+
+    private long getMinRemainingMillis() {
+        return TimeUnit.SECONDS.toMillis(weChatConfig.getQrcodePoolMinRemainingSeconds());
+    }
+}
@@ -0,0 +1,371 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.exception.RateLimitException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 二维码创建限流器
+ * 按规则（接口）对每个客户端IP做令牌桶限流；全局另有微信每日二维码配额的计数和一个每秒平滑速率。
+ * 客户端桶在接口入口按请求扣减，未能创建出二维码时退还；全局配额在每次实际调用qrcode/create时扣减，
+ * 预热池命中不消耗配额，预热池补充和access_token失效后的重试都会计入。
+ * 每日配额按北京时间的自然日计数（与微信一致），当天配额未用完时突发登录都可以放行；
+ * 每秒速率只用来平滑瞬时峰值，与每日配额分开配置。
+ * 令牌桶以GCRA（理论到达时间）表示，每个桶只是一个long：客户端桶存放在固定容量的4路组相联表中，
+ * 按组分段加锁，满时淘汰组内最久未受限的客户端；每日计数与日期合在一个long中，和全局速率桶一样用CAS更新。
+ * 判定过程不分配对象
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    public static final String QRCODE = "qrcode";
+    public static final String QRCODE_TICKET = "qrcode-ticket";
+    public static final String QRCODE_BATCH = "qrcode-batch";
+
+    private static final int WAYS = 4;
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * 微信每日配额在北京时间零点重置，北京时间没有夏令时，按固定偏移计算日期
+     */
+    private static final long QUOTA_ZONE_OFFSET_MILLIS = TimeUnit.HOURS.toMillis(8);
+
+    private static final long USED_MASK = 0xFFFFFFFFL;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    private final Map<String, ClientTable> tables = new LinkedHashMap<>();
+
+    /**
+     * 每日配额：高32位为日期（北京时间自纪元起的天数），低32位为当天已用次数
+     */
+    private final AtomicLong quotaState = new AtomicLong();
+
+    private int dailyQuota;
+
+    /**
+     * 全局平滑速率桶的理论到达时间
+     */
+    private final AtomicLong globalTat = new AtomicLong(Long.MIN_VALUE);
+
+    private long globalInterval;
+
+    private long globalLimit;
+
+    private int trustedProxyHops;
+
+    private final LongAdder allowedCount = new LongAdder();
+    private final LongAdder releasedCount = new LongAdder();
+    private final LongAdder clientRejectedCount = new LongAdder();
+    private final LongAdder quotaAcquiredCount = new LongAdder();
+    private final LongAdder globalRejectedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(weChatConfig.getRateLimitClientCapacity() - 1, WAYS)) << 1;
+        int stripes = Integer.highestOneBit(Math.max(weChatConfig.getRateLimitStripes(), 1));
+        weChatConfig.getRateLimitRules().forEach((name, rule) -> {
+            if (rule.getPermitsPerMinute() > 0) {
+                tables.put(name, new ClientTable(rule.getPermitsPerMinute(), rule.getBurst(), capacity, stripes));
+            }
+        });
+        dailyQuota = Math.max(weChatConfig.getRateLimitGlobalDailyQuota(), 0);
+        if (weChatConfig.getRateLimitGlobalPermitsPerSecond() > 0) {
+            globalInterval = TimeUnit.SECONDS.toNanos(1) / weChatConfig.getRateLimitGlobalPermitsPerSecond();
+            globalLimit = globalInterval * Math.max(weChatConfig.getRateLimitGlobalBurst(), 1);
+        }
+        trustedProxyHops = Math.max(weChatConfig.getRateLimitTrustedProxyHops(), 1);
+        log.info("二维码创建限流已启用，规则: {}，全局每日配额: {}，全局每秒速率: {}", tables.keySet(),
+                dailyQuota, weChatConfig.getRateLimitGlobalPermitsPerSecond());
+    }
+
+    /**
+     * 是否启用限流
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return weChatConfig.isRateLimitEnabled();
+    }
+
+    /**
+     * 按规则为请求方申请许可，不足时抛出限流异常
+     *
+     * @param rule 规则名称
+     * @param request HTTP请求
+     * @param permits 申请的许可数（批量创建时为数量）
+     * @throws RateLimitException 超过客户端配额时抛出
+     */
+    public void acquire(String rule, HttpServletRequest request, int permits) {
+        if (!isEnabled()) {
+            return;
+        }
+        ClientTable table = tables.get(rule);
+        if (table != null) {
+            long waitNanos = table.tryAcquire(clientHash(request), permits, System.nanoTime());
+            if (waitNanos > 0) {
+                clientRejectedCount.increment();
+                throw new RateLimitException("请求过于频繁，请稍后重试", toRetryAfterSeconds(waitNanos));
+            }
+        }
+        allowedCount.increment();
+    }
+
+    /**
+     * 退还请求方的许可，用于申请许可后未能创建出二维码的情况（如全局配额不足或调用微信接口失败）
+     *
+     * @param rule 规则名称
+     * @param request HTTP请求
+     * @param permits 退还的许可数
+     */
+    public void release(String rule, HttpServletRequest request, int permits) {
+        if (!isEnabled() || permits <= 0) {
+            return;
+        }
+        ClientTable table = tables.get(rule);
+        if (table != null) {
+            table.release(clientHash(request), permits);
+            releasedCount.add(permits);
+        }
+    }
+
+    /**
+     * 申请一次qrcode/create调用的全局配额，在实际调用微信接口前调用
+     *
+     * @throws RateLimitException 当天配额用完或超过全局每秒速率时抛出
+     */
+    public void acquireQuota() {
+        if (!isEnabled()) {
+            return;
+        }
+        long waitNanos = tryAcquireQuota(1, System.currentTimeMillis(), System.nanoTime());
+        if (waitNanos > 0) {
+            globalRejectedCount.increment();
+            throw new RateLimitException("二维码服务繁忙，请稍后重试", toRetryAfterSeconds(waitNanos));
+        }
+        quotaAcquiredCount.increment();
+    }
+
+    /**
+     * 获取限流统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("rules", tables.keySet());
+        stats.put("globalDailyQuota", dailyQuota);
+        stats.put("globalQuotaUsedToday", quotaUsed(quotaDay(System.currentTimeMillis())));
+        stats.put("globalPermitsPerSecond", weChatConfig.getRateLimitGlobalPermitsPerSecond());
+        stats.put("allowedCount", allowedCount.sum());
+        stats.put("releasedCount", releasedCount.sum());
+        stats.put("clientRejectedCount", clientRejectedCount.sum());
+        stats.put("quotaAcquiredCount", quotaAcquiredCount.sum());
+        stats.put("globalRejectedCount", globalRejectedCount.sum());
+        return stats;
+    }
+
+    /**
+     * 先扣当天配额，再过全局速率桶；速率桶拒绝时退还刚扣的配额
+     *
+     * @param nowMillis 当前时间（毫秒），用于确定日期
+     * @param nowNanos 当前时间（纳秒），用于速率桶
+     * @return 0表示通过，否则为需要等待的纳秒数（配额用完时为到次日零点的时间）
+     */
+    long tryAcquireQuota(int permits, long nowMillis, long nowNanos) {
+        long day = quotaDay(nowMillis);
+        if (dailyQuota > 0) {
+            while (true) {
+                long state = quotaState.get();
+                long used = state >>> 32 == day ? state & USED_MASK : 0;
+                if (used + permits > dailyQuota) {
+                    long nextDayMillis = (day + 1) * DAY_MILLIS - QUOTA_ZONE_OFFSET_MILLIS;
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(nextDayMillis - nowMillis, 1));
+                }
+                if (quotaState.compareAndSet(state, day << 32 | used + permits)) {
+                    break;
+                }
+            }
+        }
+        if (globalInterval <= 0) {
+            return 0;
+        }
+        long waitNanos = tryAcquireGlobal(permits, nowNanos);
+        if (waitNanos > 0 && dailyQuota > 0) {
+            quotaState.getAndUpdate(state -> state >>> 32 == day ? state - permits : state);
+        }
+        return waitNanos;
+    }
+
+    private static long quotaDay(long nowMillis) {
+        return Math.floorDiv(nowMillis + QUOTA_ZONE_OFFSET_MILLIS, DAY_MILLIS);
+    }
+
+    private long quotaUsed(long day) {
+        long state = quotaState.get();
+        return state >>> 32 == day ? state & USED_MASK : 0;
+    }
+
+    /**
+     * GCRA：理论到达时间（不早于当前时间）推进permits个间隔后，超出当前时间的部分不能超过突发容量
+     *
+     * @return 0表示通过，否则为需要等待的纳秒数
+     */
+    private long tryAcquireGlobal(int permits, long now) {
+        while (true) {
+            long tat = globalTat.get();
+            long next = Math.max(tat, now) + globalInterval * permits;
+            long excess = next - now - globalLimit;
+            if (excess > 0) {
+                return excess;
+            }
+            if (globalTat.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 计算请求方标识的哈希，不截取子串。
+     * 信任代理时取X-Forwarded-For从右数第trustedProxyHops个地址：每层可信代理把它看到的来源地址追加在末尾，
+     * 更靠左的地址由上游填写，最左边的就是客户端自己写的，可以每次请求随意更换；地址个数不足时取最左边的一个
+     */
+    private long clientHash(HttpServletRequest request) {
+        String forwarded = weChatConfig.isRateLimitTrustForwardedFor() ? request.getHeader("X-Forwarded-For") : null;
+        long hash = 0xcbf29ce484222325L;
+        boolean hashed = false;
+        if (forwarded != null && !forwarded.isEmpty()) {
+            int end = forwarded.length();
+            int start = forwarded.lastIndexOf(',', end - 1) + 1;
+            for (int hop = 1; hop < trustedProxyHops && start > 0; hop++) {
+                end = start - 1;
+                start = forwarded.lastIndexOf(',', end - 1) + 1;
+            }
+            for (int i = start; i < end; i++) {
+                char c = forwarded.charAt(i);
+                if (c != ' ') {
+                    hash = (hash ^ c) * 0x100000001b3L;
+                    hashed = true;
+                }
+            }
+        }
+        if (!hashed) {
+            String address = request.getRemoteAddr();
+            for (int i = 0; i < address.length(); i++) {
+                hash = (hash ^ address.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    /**
+     * 客户端桶表：每个槽位存放客户端哈希和理论到达时间，按组分段加锁
+     */
+    private static final class ClientTable {
+        private final long interval;
+        private final long limit;
+        private final long[] keys;
+        private final long[] tats;
+
+        /**
+         * 分段锁，虚拟线程在同一分段上排队时让出载体线程
+         */
+        private final ReentrantLock[] locks;
+        private final int setMask;
+
+        private ClientTable(int permitsPerMinute, int burst, int capacity, int stripes) {
+            this.interval = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+            this.limit = interval * Math.max(burst, 1);
+            this.keys = new long[capacity];
+            this.tats = new long[capacity];
+            this.locks = new ReentrantLock[stripes];
+            for (int i = 0; i < stripes; i++) {
+                locks[i] = new ReentrantLock();
+            }
+            this.setMask = capacity / WAYS - 1;
+        }
+
+        private long tryAcquire(long hash, int permits, long now) {
+            int set = (int) (hash ^ (hash >>> 32)) & setMask;
+            int base = set * WAYS;
+            ReentrantLock lock = locks[set & (locks.length - 1)];
+            lock.lock();
+            try {
+                int slot = -1;
+                int victim = base;
+                for (int i = base; i < base + WAYS; i++) {
+                    if (keys[i] == hash) {
+                        slot = i;
+                        break;
+                    }
+                    if (keys[i] == 0 || tats[i] - tats[victim] < 0 && keys[victim] != 0) {
+                        victim = i;
+                    }
+                }
+                if (slot < 0) {
+                    // 新客户端占用空槽或组内理论到达时间最早（最空闲）的槽位，桶为满
+                    slot = victim;
+                    keys[slot] = hash;
+                    tats[slot] = now;
+                }
+                long next = Math.max(tats[slot], now) + interval * permits;
+                long excess = next - now - limit;
+                if (excess > 0) {
+                    return excess;
+                }
+                tats[slot] = next;
+                return 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 理论到达时间回退permits个间隔；客户端已被淘汰时无需退还
+         */
+        private void release(long hash, int permits) {
+            int set = (int) (hash ^ (hash >>> 32)) & setMask;
+            int base = set * WAYS;
+            ReentrantLock lock = locks[set & (locks.length - 1)];
+            lock.lock();
+            try {
+                for (int i = base; i < base + WAYS; i++) {
+                    if (keys[i] == hash) {
+                        tats[i] -= interval * permits;
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
\ No newline at end of file
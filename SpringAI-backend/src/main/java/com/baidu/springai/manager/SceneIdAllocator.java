@@ -0,0 +1,335 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.config.WeChatConstants;
+import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.mapper.SceneIdLeaseMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 场景ID分配器
+ * 从租约存储（本地文件或MySQL）租用互不重叠的号段，号段内以原子自增无锁分配；
+ * 启动时同步租到第一个号段，当前号段剩余不足时由后台线程预租下一个号段；
+ * 只有号段用尽而预租尚未完成时（租约存储变慢或暂不可用），请求线程才短暂等待新号段。
+ * 二维码在微信侧过期后旧二维码不会再被扫描，其场景ID才回收复用，回收的ID只在本节点内复用
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class SceneIdAllocator {
+
+    /**
+     * 号段租约在存储中的名称，所有节点共用
+     */
+    private static final String LEASE_NAME = "wechat_qrcode_scene";
+
+    /**
+     * 当前号段剩余比例低于该值（百分比）时预租下一个号段
+     */
+    private static final int PREFETCH_PERCENT = 20;
+
+    /**
+     * 租约失败后的重试间隔（毫秒）
+     */
+    private static final long LEASE_RETRY_MILLIS = 3000L;
+
+    /**
+     * 检查待回收ID是否到期的间隔（毫秒）
+     */
+    private static final long RECYCLE_CHECK_MILLIS = 1000L;
+
+    /**
+     * 号段用尽时请求线程等待新号段的最长时间（毫秒）
+     */
+    private static final long LEASE_WAIT_MILLIS = 1000L;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    @Autowired
+    private SceneIdLeaseMapper sceneIdLeaseMapper;
+
+    private SceneIdLeaseStore leaseStore;
+
+    private final AtomicReference<Range> current = new AtomicReference<>(Range.EMPTY);
+
+    private final AtomicReference<Range> prepared = new AtomicReference<>();
+
+    private final AtomicBoolean leasing = new AtomicBoolean();
+
+    /**
+     * 新号段到达时唤醒等待号段的请求线程；不用synchronized，虚拟线程等待时不占用载体线程
+     */
+    private final ReentrantLock leaseLock = new ReentrantLock();
+
+    private final Condition leaseArrived = leaseLock.newCondition();
+
+    /**
+     * 已到期、可立即复用的场景ID
+     */
+    private final Queue<Integer> reusable = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 等待二维码过期的场景ID，只由后台线程消费
+     */
+    private final Queue<PendingId> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
+    private final ScheduledExecutorService leaseExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "scene-id-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder allocatedCount = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+    private final LongAdder leaseCount = new LongAdder();
+    private final LongAdder leaseFailureCount = new LongAdder();
+    private final LongAdder leaseWaitCount = new LongAdder();
+    private final LongAdder exhaustedCount = new LongAdder();
+    private final LongAdder recycleDroppedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (WeChatConstants.SCENE_ID_STORE_DATABASE.equalsIgnoreCase(weChatConfig.getSceneIdStore())) {
+            leaseStore = new DatabaseSceneIdLeaseStore(sceneIdLeaseMapper, LEASE_NAME);
+        } else {
+            leaseStore = new FileSceneIdLeaseStore(Paths.get(weChatConfig.getSceneIdLeaseFile()));
+        }
+        // 第一个号段在启动线程上租约，启动完成后即可分配；失败时转为后台重试，期间的分配请求短暂等待
+        leasing.set(true);
+        leaseNext();
+        leaseExecutor.scheduleWithFixedDelay(this::promoteExpired, RECYCLE_CHECK_MILLIS, RECYCLE_CHECK_MILLIS,
+                TimeUnit.MILLISECONDS);
+        log.info("场景ID分配器已启动，租约存储: {}，号段长度: {}",
+                leaseStore.getClass().getSimpleName(), weChatConfig.getSceneIdLeaseSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseExecutor.shutdownNow();
+    }
+
+    /**
+     * 分配一个场景ID
+     *
+     * @return 非0的32位正整数场景ID
+     * @throws BusinessException 如果等待后仍没有可用号段（租约存储不可用）
+     */
+    public int allocate() {
+        Integer recycled = reusable.poll();
+        if (recycled != null) {
+            reusedCount.increment();
+            allocatedCount.increment();
+            return recycled;
+        }
+        long waitDeadline = 0L;
+        while (true) {
+            Range range = current.get();
+            long id = range.next.getAndIncrement();
+            if (id < range.end) {
+                if (range.end - id == range.prefetchRemaining) {
+                    triggerLease();
+                }
+                allocatedCount.increment();
+                return (int) id;
+            }
+
+            Range next = prepared.get();
+            if (next == null) {
+                if (current.get() != range) {
+                    continue;
+                }
+                triggerLease();
+                if (waitDeadline == 0L) {
+                    leaseWaitCount.increment();
+                    waitDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LEASE_WAIT_MILLIS);
+                }
+                if (awaitLease(range, waitDeadline)) {
+                    continue;
+                }
+                exhaustedCount.increment();
+                throw BusinessException.serverError("场景ID号段尚未就绪，请稍后重试");
+            }
+            if (current.compareAndSet(range, next)) {
+                prepared.compareAndSet(next, null);
+            }
+        }
+    }
+
+    /**
+     * 回收场景ID
+     *
+     * @param sceneId 场景ID
+     * @param reusableAt 可复用的时间（毫秒），即二维码在微信侧的过期时间；二维码未创建成功时传0
+     */
+    public void recycle(int sceneId, long reusableAt) {
+        if (reusableAt <= System.currentTimeMillis()) {
+            reusable.offer(sceneId);
+            return;
+        }
+        if (pendingSize.incrementAndGet() > weChatConfig.getSceneIdRecycleMaxPending()) {
+            pendingSize.decrementAndGet();
+            recycleDroppedCount.increment();
+            return;
+        }
+        pending.offer(new PendingId(sceneId, reusableAt));
+    }
+
+    /**
+     * 获取分配器统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Range range = current.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", leaseStore.getClass().getSimpleName());
+        stats.put("leaseSize", weChatConfig.getSceneIdLeaseSize());
+        stats.put("rangeRemaining", Math.max(range.end - range.next.get(), 0));
+        stats.put("preparedRange", prepared.get() != null);
+        stats.put("reusable", reusable.size());
+        stats.put("pendingRecycle", pendingSize.get());
+        stats.put("allocatedCount", allocatedCount.sum());
+        stats.put("reusedCount", reusedCount.sum());
+        stats.put("leaseCount", leaseCount.sum());
+        stats.put("leaseFailureCount", leaseFailureCount.sum());
+        stats.put("leaseWaitCount", leaseWaitCount.sum());
+        stats.put("exhaustedCount", exhaustedCount.sum());
+        stats.put("recycleDroppedCount", recycleDroppedCount.sum());
+        return stats;
+    }
+
+    /**
+     * 没有预租号段时提交一次后台租约，同一时刻只有一个租约在进行
+     */
+    private void triggerLease() {
+        if (prepared.get() == null && leasing.compareAndSet(false, true)) {
+            leaseExecutor.execute(this::leaseNext);
+        }
+    }
+
+    private void leaseNext() {
+        int size = weChatConfig.getSceneIdLeaseSize();
+        long start;
+        try {
+            start = leaseStore.lease(size);
+        } catch (Exception e) {
+            leaseFailureCount.increment();
+            log.warn("场景ID号段租约失败，{}ms后重试: {}", LEASE_RETRY_MILLIS, e.getMessage());
+            leaseExecutor.schedule(this::leaseNext, LEASE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        leaseCount.increment();
+        Range range = new Range(start, SceneIdLeaseStore.leaseEnd(start, size));
+        // 启动时的第一个号段直接作为当前号段，之后的号段作为预租号段等待切换
+        if (!current.compareAndSet(Range.EMPTY, range)) {
+            prepared.set(range);
+        }
+        leasing.set(false);
+        leaseLock.lock();
+        try {
+            leaseArrived.signalAll();
+        } finally {
+            leaseLock.unlock();
+        }
+        log.debug("租到场景ID号段: [{}, {})", range.start, range.end);
+    }
+
+    /**
+     * 等待用尽的号段被替换或有新的预租号段
+     *
+     * @return 截止时间前是否有新号段
+     */
+    private boolean awaitLease(Range exhausted, long deadlineNanos) {
+        leaseLock.lock();
+        try {
+            while (current.get() == exhausted && prepared.get() == null) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                leaseArrived.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    /**
+     * 把二维码已过期的待回收ID移入可复用队列
+     * 二维码有效期统一，待回收队列近似按到期时间有序，遇到未到期的队首即停止
+     */
+    private void promoteExpired() {
+        long now = System.currentTimeMillis();
+        PendingId head;
+        while ((head = pending.peek()) != null && head.reusableAt <= now) {
+            pending.poll();
+            pendingSize.decrementAndGet();
+            reusable.offer(head.sceneId);
+        }
+    }
+
+    /**
+     * 已租到的号段[start, end)
+     */
+    private static final class Range {
+        private static final Range EMPTY = new Range(0L, 0L);
+
+        private final long start;
+        private final long end;
+        private final AtomicLong next;
+
+        /**
+         * 剩余ID数等于该值时触发预租
+         */
+        private final long prefetchRemaining;
+
+        private Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.next = new AtomicLong(start);
+            this.prefetchRemaining = Math.max((end - start) * PREFETCH_PERCENT / 100, 1L);
+        }
+    }
+
+    /**
+     * 等待回收的场景ID
+     */
+    private static final class PendingId {
+        private final int sceneId;
+        private final long reusableAt;
+
+        private PendingId(int sceneId, long reusableAt) {
+            this.sceneId = sceneId;
+            this.reusableAt = reusableAt;
+        }
+    }
+}
\ No newline at end of file
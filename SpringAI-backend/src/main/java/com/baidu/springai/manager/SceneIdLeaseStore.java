@@ -0,0 +1,41 @@
+package com.baidu.springai.manager;
+
+/**
+ * 场景ID号段租约存储
+ * 每次租约从共享的游标上取走一段连续的场景ID，多个节点租到的号段互不重叠；
+ * 游标超过32位正整数上限后回绕到1
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public interface SceneIdLeaseStore {
+
+    /**
+     * 最小场景ID（微信要求场景ID非0）
+     */
+    long FIRST_ID = 1L;
+
+    /**
+     * 最大场景ID
+     */
+    long MAX_ID = Integer.MAX_VALUE;
+
+    /**
+     * 租用一个号段
+     *
+     * @param size 号段长度
+     * @return 号段起始ID，号段为[start, leaseEnd(start, size))
+     */
+    long lease(int size);
+
+    /**
+     * 计算号段的结束位置（不含）
+     *
+     * @param start 号段起始ID
+     * @param size 号段长度
+     * @return 号段结束位置
+     */
+    static long leaseEnd(long start, int size) {
+        return Math.min(start + size, MAX_ID + 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,406 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.exception.WeChatApiException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 微信接口调用保护
+ * 按接口维护熔断器：时间窗口内调用失败率超过阈值时熔断，熔断期间直接失败，到期后放行一个探测请求决定是否恢复；
+ * 可对幂等或可容忍重复的调用做对冲：首次请求超过近期成功耗时的指定分位数仍未返回时再发一次，取先成功的结果，
+ * 对冲次数受预算限制（不超过正常请求数的一定比例），避免在微信侧慢时成倍消耗接口配额。
+ * 只有不消耗配额、重复调用无副作用的接口（如showqrcode）允许对冲，qrcode/create每次调用都会生成新的二维码，不对冲
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class WeChatApiGuard {
+
+    public static final String QRCODE_CREATE = "qrcode/create";
+    public static final String QRCODE_DOWNLOAD = "showqrcode";
+
+    /**
+     * 对冲延迟的重新计算间隔（毫秒）
+     */
+    private static final long RECOMPUTE_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * 计算分位数的耗时样本数
+     */
+    private static final int LATENCY_SAMPLES = 512;
+
+    /**
+     * 样本不足时不对冲
+     */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    /**
+     * 对冲预算以千分之一次为单位累积，上限为10次
+     */
+    private static final long HEDGE_TOKEN = 1000L;
+    private static final long MAX_HEDGE_TOKENS = 10 * HEDGE_TOKEN;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    private final Map<String, EndpointGuard> guards = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wechat-api-guard");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleWithFixedDelay(() -> guards.values().forEach(EndpointGuard::recomputeHedgeDelay),
+                RECOMPUTE_INTERVAL_MILLIS, RECOMPUTE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 受保护地调用微信接口并等待结果
+     *
+     * @param endpoint 接口名称
+     * @param hedgeable 是否允许对冲
+     * @param attempt 发起一次异步调用
+     * @return 调用结果
+     * @throws BusinessException 熔断中，或调用失败时抛出原异常
+     */
+    public <T> T call(String endpoint, boolean hedgeable, Supplier<CompletableFuture<T>> attempt) {
+        try {
+            return callAsync(endpoint, hedgeable, attempt).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw BusinessException.serverError("调用微信接口失败: " + endpoint, e.getCause());
+        }
+    }
+
+    /**
+     * 受保护地异步调用微信接口
+     *
+     * @param endpoint 接口名称
+     * @param hedgeable 是否允许对冲
+     * @param attempt 发起一次异步调用
+     * @return 先成功的结果；全部失败时以最后一个异常结束
+     */
+    public <T> CompletableFuture<T> callAsync(String endpoint, boolean hedgeable, Supplier<CompletableFuture<T>> attempt) {
+        EndpointGuard guard = guards.computeIfAbsent(endpoint, EndpointGuard::new);
+        if (!guard.tryAcquirePermission()) {
+            guard.rejectedCount.increment();
+            return CompletableFuture.failedFuture(
+                    new BusinessException(503, "微信接口暂时不可用（熔断中），请稍后重试: " + endpoint));
+        }
+        guard.callCount.increment();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        start(guard, attempt, result, pending, false);
+
+        long delay = guard.hedgeDelayMillis;
+        if (hedgeable && weChatConfig.isApiHedgeEnabled()) {
+            guard.depositHedgeBudget(weChatConfig.getApiHedgeBudgetPercent());
+            if (delay > 0) {
+                ScheduledFuture<?> hedge = scheduler.schedule(() -> {
+                    if (result.isDone() || !guard.isClosed()) {
+                        return;
+                    }
+                    if (!guard.tryWithdrawHedgeBudget()) {
+                        guard.hedgeBudgetExhaustedCount.increment();
+                        return;
+                    }
+                    guard.hedgedCount.increment();
+                    pending.incrementAndGet();
+                    start(guard, attempt, result, pending, true);
+                }, delay, TimeUnit.MILLISECONDS);
+                result.whenComplete((value, error) -> hedge.cancel(false));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取各接口的调用保护统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hedgeEnabled", weChatConfig.isApiHedgeEnabled());
+        stats.put("circuitEnabled", weChatConfig.isApiCircuitEnabled());
+        for (EndpointGuard guard : guards.values()) {
+            stats.put(guard.endpoint, guard.getStats());
+        }
+        return stats;
+    }
+
+    private <T> void start(EndpointGuard guard, Supplier<CompletableFuture<T>> attempt, CompletableFuture<T> result,
+                           AtomicInteger pending, boolean hedge) {
+        long startNanos = System.nanoTime();
+        BiConsumer<T, Throwable> onComplete = (value, error) -> {
+            if (error == null) {
+                guard.onSuccess(System.nanoTime() - startNanos);
+                if (result.complete(value) && hedge) {
+                    guard.hedgeWonCount.increment();
+                }
+            } else {
+                guard.onFailure(error);
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            }
+        };
+        try {
+            attempt.get().whenComplete(onComplete);
+        } catch (RuntimeException e) {
+            onComplete.accept(null, e);
+        }
+    }
+
+    /**
+     * 熔断器状态
+     */
+    private enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 单个接口的熔断器、耗时样本与对冲预算
+     */
+    private final class EndpointGuard {
+        private final String endpoint;
+
+        private volatile CircuitState state = CircuitState.CLOSED;
+        private volatile long openUntil;
+
+        /**
+         * 熔断状态切换时会打日志，用ReentrantLock而不是synchronized，虚拟线程在锁内做I/O时不会钉住载体线程
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * 按秒分桶的调用结果，访问时持有lock
+         */
+        private long[] bucketSeconds = new long[0];
+        private long[] bucketSuccesses = new long[0];
+        private long[] bucketFailures = new long[0];
+
+        private final AtomicLongArray latencySamples = new AtomicLongArray(LATENCY_SAMPLES);
+        private final AtomicLong latencySampleCount = new AtomicLong();
+        private volatile long hedgeDelayMillis = -1;
+
+        private final AtomicLong hedgeBudget = new AtomicLong(HEDGE_TOKEN);
+
+        private final LongAdder callCount = new LongAdder();
+        private final LongAdder successCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+        private final LongAdder openedCount = new LongAdder();
+        private final LongAdder hedgedCount = new LongAdder();
+        private final LongAdder hedgeWonCount = new LongAdder();
+        private final LongAdder hedgeBudgetExhaustedCount = new LongAdder();
+
+        private EndpointGuard(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private boolean isClosed() {
+            return state == CircuitState.CLOSED;
+        }
+
+        /**
+         * 熔断中直接拒绝；熔断到期后只放行一个探测请求
+         */
+        private boolean tryAcquirePermission() {
+            if (!weChatConfig.isApiCircuitEnabled() || state == CircuitState.CLOSED) {
+                return true;
+            }
+            lock.lock();
+            try {
+                if (state == CircuitState.OPEN && System.currentTimeMillis() >= openUntil) {
+                    state = CircuitState.HALF_OPEN;
+                    log.info("微信接口{}熔断到期，放行探测请求", endpoint);
+                    return true;
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onSuccess(long latencyNanos) {
+            successCount.increment();
+            long index = latencySampleCount.getAndIncrement();
+            latencySamples.set((int) (index % LATENCY_SAMPLES), TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+            record(true);
+        }
+
+        private void onFailure(Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            // 微信返回了错误码说明接口本身可用，不计入熔断
+            if (cause instanceof WeChatApiException) {
+                successCount.increment();
+                record(true);
+                return;
+            }
+            failureCount.increment();
+            record(false);
+        }
+
+        private void record(boolean success) {
+            lock.lock();
+            try {
+                int windowSeconds = Math.max(weChatConfig.getApiCircuitWindowSeconds(), 1);
+                if (bucketSeconds.length != windowSeconds) {
+                    bucketSeconds = new long[windowSeconds];
+                    bucketSuccesses = new long[windowSeconds];
+                    bucketFailures = new long[windowSeconds];
+                }
+                long second = System.currentTimeMillis() / 1000;
+                int index = (int) (second % windowSeconds);
+                if (bucketSeconds[index] != second) {
+                    bucketSeconds[index] = second;
+                    bucketSuccesses[index] = 0;
+                    bucketFailures[index] = 0;
+                }
+                if (success) {
+                    bucketSuccesses[index]++;
+                } else {
+                    bucketFailures[index]++;
+                }
+
+                if (state == CircuitState.HALF_OPEN) {
+                    if (success) {
+                        state = CircuitState.CLOSED;
+                        Arrays.fill(bucketSeconds, 0);
+                        log.info("微信接口{}探测成功，熔断恢复", endpoint);
+                    } else {
+                        open();
+                    }
+                    return;
+                }
+                if (state == CircuitState.CLOSED && !success && weChatConfig.isApiCircuitEnabled()) {
+                    long[] window = windowCounts(second);
+                    long calls = window[0] + window[1];
+                    if (calls >= weChatConfig.getApiCircuitMinimumCalls()
+                            && window[1] * 100 >= calls * weChatConfig.getApiCircuitFailureRatePercent()) {
+                        open();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void open() {
+            state = CircuitState.OPEN;
+            openUntil = System.currentTimeMillis() + weChatConfig.getApiCircuitOpenMillis();
+            openedCount.increment();
+            log.warn("微信接口{}失败率过高，熔断{}ms", endpoint, weChatConfig.getApiCircuitOpenMillis());
+        }
+
+        /**
+         * 统计窗口内的成功与失败次数，调用方需持有lock
+         */
+        private long[] windowCounts(long nowSecond) {
+            long successes = 0;
+            long failures = 0;
+            for (int i = 0; i < bucketSeconds.length; i++) {
+                if (nowSecond - bucketSeconds[i] < bucketSeconds.length) {
+                    successes += bucketSuccesses[i];
+                    failures += bucketFailures[i];
+                }
+            }
+            return new long[]{successes, failures};
+        }
+
+        private void recomputeHedgeDelay() {
+            int count = (int) Math.min(latencySampleCount.get(), LATENCY_SAMPLES);
+            if (count < MIN_LATENCY_SAMPLES) {
+                hedgeDelayMillis = -1;
+                return;
+            }
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = latencySamples.get(i);
+            }
+            Arrays.sort(sorted);
+            int percentile = Math.min(Math.max(weChatConfig.getApiHedgePercentile(), 1), 100);
+            long delay = sorted[Math.min(count - 1, (count * percentile + 99) / 100 - 1)];
+            hedgeDelayMillis = Math.max(delay, weChatConfig.getApiHedgeMinDelayMillis());
+        }
+
+        private void depositHedgeBudget(int percent) {
+            long deposit = HEDGE_TOKEN * percent / 100;
+            hedgeBudget.updateAndGet(tokens -> Math.min(tokens + deposit, MAX_HEDGE_TOKENS));
+        }
+
+        private boolean tryWithdrawHedgeBudget() {
+            long tokens;
+            do {
+                tokens = hedgeBudget.get();
+                if (tokens < HEDGE_TOKEN) {
+                    return false;
+                }
+            } while (!hedgeBudget.compareAndSet(tokens, tokens - HEDGE_TOKEN));
+            return true;
+        }
+
+        private Map<String, Object> getStats() {
+            long[] window;
+            lock.lock();
+            try {
+                window = windowCounts(System.currentTimeMillis() / 1000);
+            } finally {
+                lock.unlock();
+            }
+            long windowCalls = window[0] + window[1];
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("state", state.name());
+            stats.put("windowFailureRate", windowCalls == 0 ? 0.0 : (double) window[1] / windowCalls);
+            stats.put("callCount", callCount.sum());
+            stats.put("successCount", successCount.sum());
+            stats.put("failureCount", failureCount.sum());
+            stats.put("rejectedCount", rejectedCount.sum());
+            stats.put("openedCount", openedCount.sum());
+            stats.put("hedgeDelayMillis", hedgeDelayMillis);
+            stats.put("hedgedCount", hedgedCount.sum());
+            stats.put("hedgeWonCount", hedgeWonCount.sum());
+            stats.put("hedgeBudgetExhaustedCount", hedgeBudgetExhaustedCount.sum());
+            stats.put("hedgeBudget", (double) hedgeBudget.get() / HEDGE_TOKEN);
+            return stats;
+        }
+    }
+}
\ No newline at end of file
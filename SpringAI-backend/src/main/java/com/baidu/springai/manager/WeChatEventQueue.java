@@ -0,0 +1,240 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.BlockingIoExecutors;
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.WeChatMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 微信事件异步处理队列
+ * 不需要被动回复的事件由webhook线程放入有界环形队列后立即应答success，由独立的工作线程处理，
+ * 下游变慢时只会让队列变深而不会拖慢应答触发微信重试；队列满时入队失败并计数，由调用方改为同步处理
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class WeChatEventQueue {
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    @Autowired
+    private BlockingIoExecutors blockingIoExecutors;
+
+    private RingBuffer<QueuedEvent> ring;
+
+    /**
+     * 已发布的事件数，工作线程据此阻塞等待
+     */
+    private final Semaphore available = new Semaphore(0);
+
+    private ExecutorService workers;
+
+    private volatile Consumer<WeChatMessage> handler;
+
+    private final LongAdder enqueuedCount = new LongAdder();
+    private final LongAdder processedCount = new LongAdder();
+    private final LongAdder syncFallbackCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder latencyNanosTotal = new LongAdder();
+    private final LongAccumulator latencyNanosMax = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * 启动工作线程，仅在启用异步处理时生效
+     *
+     * @param handler 事件处理方法
+     */
+    public synchronized void start(Consumer<WeChatMessage> handler) {
+        if (!isEnabled() || this.handler != null) {
+            return;
+        }
+        this.ring = new RingBuffer<>(weChatConfig.getWebhookQueueCapacity());
+        this.handler = handler;
+        int workerCount = Math.max(weChatConfig.getWebhookWorkers(), 1);
+        this.workers = blockingIoExecutors.newFixedThreadPool("wechat-event-worker-", workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+        log.info("微信事件异步处理已启动，队列容量: {}，工作线程: {}", ring.capacity(), workerCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 是否启用异步处理
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return weChatConfig.isWebhookAsyncEnabled();
+    }
+
+    /**
+     * 事件入队，不阻塞
+     *
+     * @param message 微信消息
+     * @return 是否入队成功，队列未启动或已满时返回false，调用方应同步处理该事件
+     */
+    public boolean offer(WeChatMessage message) {
+        if (handler == null) {
+            return false;
+        }
+        if (!ring.offer(new QueuedEvent(message, System.nanoTime()))) {
+            syncFallbackCount.increment();
+            log.debug("微信事件队列已满，改为同步处理: event={}, from={}", message.getEvent(), message.getFromUserName());
+            return false;
+        }
+        enqueuedCount.increment();
+        available.release();
+        return true;
+    }
+
+    /**
+     * 获取队列统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        long processed = processedCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", handler != null);
+        stats.put("capacity", ring != null ? ring.capacity() : 0);
+        stats.put("depth", available.availablePermits());
+        stats.put("enqueuedCount", enqueuedCount.sum());
+        stats.put("processedCount", processed);
+        stats.put("syncFallbackCount", syncFallbackCount.sum());
+        stats.put("failureCount", failureCount.sum());
+        stats.put("avgLatencyMillis", processed == 0 ? 0.0 : latencyNanosTotal.sum() / 1_000_000.0 / processed);
+        stats.put("maxLatencyMillis", latencyNanosMax.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                available.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            QueuedEvent event;
+            // 先占位的生产者可能还未发布；让出CPU而不是空转，CPU核数少时被抢占的生产者才能尽快完成发布
+            while ((event = ring.poll()) == null) {
+                Thread.yield();
+            }
+            long latency = System.nanoTime() - event.enqueueNanos;
+            latencyNanosTotal.add(latency);
+            latencyNanosMax.accumulate(latency);
+            try {
+                handler.accept(event.message);
+            } catch (Exception e) {
+                failureCount.increment();
+                log.error("微信事件处理失败: event={}", event.message.getEvent(), e);
+            } finally {
+                processedCount.increment();
+            }
+        }
+    }
+
+    /**
+     * 入队的事件
+     */
+    private static final class QueuedEvent {
+        private final WeChatMessage message;
+        private final long enqueueNanos;
+
+        private QueuedEvent(WeChatMessage message, long enqueueNanos) {
+            this.message = message;
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+
+    /**
+     * 有界多生产者多消费者环形队列
+     * 每个槽位带序号，生产者与消费者各自CAS推进位置，无锁
+     */
+    static final class RingBuffer<E> {
+        private final Object[] slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong();
+
+        RingBuffer(int requestedCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(requestedCapacity - 1, 1)) << 1;
+            this.slots = new Object[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        int capacity() {
+            return slots.length;
+        }
+
+        boolean offer(E element) {
+            long pos = tail.get();
+            while (true) {
+                int index = (int) (pos & mask);
+                long diff = sequences.get(index) - pos;
+                if (diff == 0) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        slots[index] = element;
+                        sequences.set(index, pos + 1);
+                        return true;
+                    }
+                    pos = tail.get();
+                } else if (diff < 0) {
+                    return false;
+                } else {
+                    pos = tail.get();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        E poll() {
+            long pos = head.get();
+            while (true) {
+                int index = (int) (pos & mask);
+                long diff = sequences.get(index) - (pos + 1);
+                if (diff == 0) {
+                    if (head.compareAndSet(pos, pos + 1)) {
+                        E element = (E) slots[index];
+                        slots[index] = null;
+                        sequences.set(index, pos + mask + 1);
+                        return element;
+                    }
+                    pos = head.get();
+                } else if (diff < 0) {
+                    return null;
+                } else {
+                    pos = head.get();
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
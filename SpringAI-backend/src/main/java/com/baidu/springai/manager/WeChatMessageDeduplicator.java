@@ -0,0 +1,205 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.WeChatMessage;
+import com.baidu.springai.domain.WeChatReply;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 微信消息去重器
+ * 微信在5秒内未收到应答时会以相同的MsgId（事件为相同的FromUserName+CreateTime）重推，最多三次；
+ * 以这些标识的64位指纹为键，在固定槽位数的表中记录时间窗口内处理过的消息及其回复，重推的消息直接返回原回复；
+ * 重推到达时首次处理仍未完成（首次处理超过5秒），重推的请求等待首次处理的结果并以同一回复应答，
+ * 否则微信收到的是空回复，用户看不到首次处理的回复。
+ * CreateTime只精确到秒，同一用户同一秒内可能收到多个事件（如开启地理位置上报时LOCATION与SCAN同时推送），
+ * 因此事件指纹还包含MsgType、Event和EventKey。槽位冲突时新消息覆盖旧记录，内存占用固定，代价是漏判重复；
+ * 两条不同消息的64位指纹相同时会被误判为重复，概率可以忽略
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class WeChatMessageDeduplicator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * 区分消息ID和事件标识的指纹种子
+     */
+    private static final long MSG_ID_SEED = 0x4d53474944L;
+    private static final long EVENT_SEED = 0x4556454e54L;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    private AtomicReferenceArray<Entry> slots;
+
+    private int mask;
+
+    private final LongAdder checkedCount = new LongAdder();
+    private final LongAdder duplicateCount = new LongAdder();
+    private final LongAdder inFlightDuplicateCount = new LongAdder();
+    private final LongAdder inFlightTimeoutCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(weChatConfig.getWebhookDedupCapacity() - 1, 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        log.info("微信消息去重已启用，槽位数: {}，时间窗口: {}ms", capacity, weChatConfig.getWebhookDedupWindowMillis());
+    }
+
+    /**
+     * 是否启用去重
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return weChatConfig.isWebhookDedupEnabled();
+    }
+
+    /**
+     * 去重处理消息：首次收到时调用处理方法并记录回复，时间窗口内重推的消息直接返回记录的回复；
+     * 首次处理仍在进行中时重推的消息等待首次处理的回复，等待超时返回success，由首次处理完成业务。
+     * 处理失败时清除记录，正在等待的重推和之后的重推重新处理
+     *
+     * @param message 微信消息
+     * @param handler 消息处理方法
+     * @return 回复
+     */
+    public WeChatReply process(WeChatMessage message, Function<WeChatMessage, WeChatReply> handler) {
+        if (slots == null) {
+            return handler.apply(message);
+        }
+        long fingerprint = fingerprint(message);
+        if (fingerprint == 0) {
+            return handler.apply(message);
+        }
+        checkedCount.increment();
+
+        int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        long now = System.currentTimeMillis();
+        Entry claimed = new Entry(fingerprint, now + weChatConfig.getWebhookDedupWindowMillis());
+        while (true) {
+            Entry existing = slots.get(index);
+            if (existing != null && existing.fingerprint == fingerprint && existing.expireAt > now) {
+                duplicateCount.increment();
+                if (!existing.result.isDone()) {
+                    inFlightDuplicateCount.increment();
+                }
+                try {
+                    return existing.result.get(weChatConfig.getWebhookDedupInFlightWaitMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    inFlightTimeoutCount.increment();
+                    return WeChatReply.empty();
+                } catch (ExecutionException e) {
+                    // 首次处理失败，记录已清除，由本次重推重新处理
+                    now = System.currentTimeMillis();
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return WeChatReply.empty();
+                }
+            }
+            if (slots.compareAndSet(index, existing, claimed)) {
+                if (existing != null && existing.expireAt > now) {
+                    evictedCount.increment();
+                }
+                break;
+            }
+        }
+
+        try {
+            WeChatReply reply = handler.apply(message);
+            claimed.result.complete(reply);
+            return reply;
+        } catch (RuntimeException e) {
+            slots.compareAndSet(index, claimed, null);
+            claimed.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取去重统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", slots != null);
+        stats.put("capacity", slots != null ? slots.length() : 0);
+        stats.put("windowMillis", weChatConfig.getWebhookDedupWindowMillis());
+        stats.put("checkedCount", checkedCount.sum());
+        stats.put("duplicateCount", duplicateCount.sum());
+        stats.put("inFlightDuplicateCount", inFlightDuplicateCount.sum());
+        stats.put("inFlightTimeoutCount", inFlightTimeoutCount.sum());
+        stats.put("evictedCount", evictedCount.sum());
+        return stats;
+    }
+
+    /**
+     * 计算消息指纹：普通消息取MsgId，事件取FromUserName+CreateTime+MsgType+Event+EventKey；缺少标识时返回0表示不去重
+     */
+    private static long fingerprint(WeChatMessage message) {
+        long hash;
+        if (hasText(message.getMsgId())) {
+            hash = hash(FNV_OFFSET ^ MSG_ID_SEED, message.getMsgId());
+        } else if (hasText(message.getFromUserName()) && hasText(message.getCreateTime())) {
+            hash = hash(hash(FNV_OFFSET ^ EVENT_SEED, message.getFromUserName()), message.getCreateTime());
+            hash = hash(hash(hash(hash, message.getMsgType()), message.getEvent()), message.getEventKey());
+        } else {
+            return 0;
+        }
+        // FNV-1a的低位分布较差，再做一次混合
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0, n = value != null ? value.length() : 0; i < n; i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // 分隔相邻字段，避免"ab"+"c"与"a"+"bc"相同
+        return (hash ^ 0xff) * FNV_PRIME;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * 去重记录，result在首次处理完成时完成为回复，处理失败时以异常完成
+     */
+    private static final class Entry {
+        private final long fingerprint;
+        private final long expireAt;
+        private final CompletableFuture<WeChatReply> result = new CompletableFuture<>();
+
+        private Entry(long fingerprint, long expireAt) {
+            this.fingerprint = fingerprint;
+            this.expireAt = expireAt;
+        }
+    }
+}
\ No newline at end of file
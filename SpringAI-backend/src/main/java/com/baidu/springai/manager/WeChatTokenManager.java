@@ -0,0 +1,223 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.config.WeChatConstants;
+import com.baidu.springai.domain.WeChatAccessToken;
+import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.exception.WeChatApiException;
+import com.baidu.springai.utils.WeChatApiUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 微信access_token管理器
+ * 在内存中缓存access_token，过期前由后台线程提前刷新，
+ * 同一时刻只允许一个线程请求微信令牌接口，避免并发请求击穿
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class WeChatTokenManager {
+
+    /**
+     * 同步路径上令牌的安全余量，距真实过期不足该时间即视为失效
+     */
+    private static final long EXPIRE_SAFETY_MILLIS = 30_000L;
+
+    @Autowired
+    private WeChatConfig weChatConfig;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final ScheduledExecutorService refreshScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wechat-token-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile CachedToken current;
+
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshFailureCount = new LongAdder();
+    private final LongAdder invalidTokenRetryCount = new LongAdder();
+
+    /**
+     * 获取可用的access_token
+     *
+     * @return access_token
+     * @throws BusinessException 如果令牌获取失败
+     */
+    public String getAccessToken() {
+        CachedToken token = current;
+        if (token != null && token.isUsable(System.currentTimeMillis())) {
+            hitCount.increment();
+            return token.value;
+        }
+        missCount.increment();
+        return refresh(token).value;
+    }
+
+    /**
+     * 使用access_token调用微信接口
+     * 若接口返回令牌失效（40001/40014/42001），作废当前令牌并重试一次
+     *
+     * @param call 接口调用
+     * @param <T> 返回值类型
+     * @return 接口返回值
+     */
+    public <T> T executeWithToken(Function<String, T> call) {
+        String accessToken = getAccessToken();
+        try {
+            return call.apply(accessToken);
+        } catch (WeChatApiException e) {
+            if (!e.isAccessTokenInvalid()) {
+                throw e;
+            }
+            invalidTokenRetryCount.increment();
+            log.warn("微信access_token已失效，错误码: {}，刷新后重试", e.getErrcode());
+            invalidate(accessToken);
+            return call.apply(getAccessToken());
+        }
+    }
+
+    /**
+     * 作废指定的access_token
+     * 仅当缓存中仍是该令牌时才会强制刷新，避免并发调用方重复刷新
+     *
+     * @param staleToken 已失效的令牌
+     */
+    public void invalidate(String staleToken) {
+        CachedToken token = current;
+        if (token != null && token.value.equals(staleToken)) {
+            refresh(token);
+        }
+    }
+
+    /**
+     * 获取令牌统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        CachedToken token = current;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hitCount", hitCount.sum());
+        stats.put("missCount", missCount.sum());
+        stats.put("refreshCount", refreshCount.sum());
+        stats.put("refreshFailureCount", refreshFailureCount.sum());
+        stats.put("invalidTokenRetryCount", invalidTokenRetryCount.sum());
+        stats.put("expireAt", token != null ? token.expireAtMillis : null);
+        return stats;
+    }
+
+    /**
+     * 刷新令牌（单飞）
+     * 加锁后再次检查，若其他线程已完成刷新则直接复用
+     *
+     * @param stale 调用方看到的旧令牌
+     * @return 新令牌
+     */
+    private CachedToken refresh(CachedToken stale) {
+        refreshLock.lock();
+        try {
+            CachedToken token = current;
+            if (token != null && token != stale && token.isUsable(System.currentTimeMillis())) {
+                return token;
+            }
+
+            refreshCount.increment();
+            WeChatAccessToken accessToken;
+            try {
+                accessToken = WeChatApiUtil.getAccessToken(weChatConfig.getAppId(), weChatConfig.getAppSecret());
+            } catch (RuntimeException e) {
+                refreshFailureCount.increment();
+                throw e;
+            }
+            if (!accessToken.isSuccess()) {
+                refreshFailureCount.increment();
+                throw new BusinessException("获取微信access_token失败: " + accessToken.getErrmsg());
+            }
+
+            int expiresIn = accessToken.getExpiresIn() > 0
+                    ? accessToken.getExpiresIn() : WeChatConstants.DEFAULT_ACCESS_TOKEN_EXPIRE_SECONDS;
+            CachedToken fresh = new CachedToken(accessToken.getAccessToken(),
+                    System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expiresIn));
+            current = fresh;
+            scheduleRefresh(Math.max(expiresIn - weChatConfig.getAccessTokenRefreshAheadSeconds(), 1));
+
+            log.info("刷新微信access_token成功，有效期: {}秒", expiresIn);
+            return fresh;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * 安排后台提前刷新，调用方需持有刷新锁
+     *
+     * @param delaySeconds 延迟秒数
+     */
+    private void scheduleRefresh(long delaySeconds) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = refreshScheduler.schedule(this::backgroundRefresh, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 后台刷新任务，失败时按配置的间隔重试
+     */
+    private void backgroundRefresh() {
+        try {
+            refresh(current);
+        } catch (Exception e) {
+            log.warn("后台刷新微信access_token失败，{}秒后重试: {}", weChatConfig.getAccessTokenRetrySeconds(), e.getMessage());
+            refreshLock.lock();
+            try {
+                scheduleRefresh(weChatConfig.getAccessTokenRetrySeconds());
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshScheduler.shutdownNow();
+    }
+
+    /**
+     * 缓存的令牌
+     */
+    private static final class CachedToken {
+        private final String value;
+        private final long expireAtMillis;
+
+        private CachedToken(String value, long expireAtMillis) {
+            this.value = value;
+            this.expireAtMillis = expireAtMillis;
+        }
+
+        private boolean isUsable(long now) {
+            return now < expireAtMillis - EXPIRE_SAFETY_MILLIS;
+        }
+    }
+}
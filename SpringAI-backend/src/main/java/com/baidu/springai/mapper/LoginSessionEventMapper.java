@@ -0,0 +1,59 @@
+package com.baidu.springai.mapper;
+
+import com.baidu.springai.domain.LoginSessionEvent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 登录会话变更事件Mapper
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Mapper
+public interface LoginSessionEventMapper {
+
+    /**
+     * 批量写入事件
+     *
+     * @param events 会话变更事件
+     * @return 影响行数
+     */
+    int batchInsert(@Param("events") List<LoginSessionEvent> events);
+
+    /**
+     * 按序号顺序读取指定序号之后的事件
+     *
+     * @param afterSeq 起始序号（不含）
+     * @param limit 最多读取的条数
+     * @return 会话变更事件
+     */
+    List<LoginSessionEvent> selectAfter(@Param("afterSeq") long afterSeq, @Param("limit") int limit);
+
+    /**
+     * 按序号读取指定的事件，用于重读先前读取时还未提交的序号
+     *
+     * @param seqs 事件序号
+     * @return 已提交的会话变更事件
+     */
+    List<LoginSessionEvent> selectBySeqs(@Param("seqs") Collection<Long> seqs);
+
+    /**
+     * 查询当前最大序号
+     *
+     * @return 最大序号，表为空时返回0
+     */
+    long selectMaxSeq();
+
+    /**
+     * 删除会话已过期的事件
+     *
+     * @param before 会话过期时间早于该值的事件会被删除（毫秒）
+     * @param limit 单次最多删除的行数
+     * @return 删除的行数
+     */
+    int deleteExpired(@Param("before") long before, @Param("limit") int limit);
+}
\ No newline at end of file
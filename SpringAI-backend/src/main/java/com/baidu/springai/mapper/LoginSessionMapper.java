@@ -0,0 +1,52 @@
+package com.baidu.springai.mapper;
+
+import com.baidu.springai.domain.LoginSession;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 登录会话Mapper
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Mapper
+public interface LoginSessionMapper {
+
+    /**
+     * 批量写入会话，票据已存在时只更新openid（不会把已登录的openid覆盖为空）
+     *
+     * @param sessions 登录会话
+     * @return 影响行数
+     */
+    int batchUpsert(@Param("sessions") List<LoginSession> sessions);
+
+    /**
+     * 根据票据查询未过期的会话
+     *
+     * @param ticket 二维码票据
+     * @param now 当前时间（毫秒）
+     * @return 登录会话，不存在或已过期时返回null
+     */
+    LoginSession selectByTicket(@Param("ticket") String ticket, @Param("now") long now);
+
+    /**
+     * 根据场景ID查询未过期会话的票据
+     *
+     * @param sceneId 场景ID
+     * @param now 当前时间（毫秒）
+     * @return 票据，不存在时返回null
+     */
+    String selectTicketBySceneId(@Param("sceneId") String sceneId, @Param("now") long now);
+
+    /**
+     * 删除过期的会话
+     *
+     * @param before 过期时间早于该值的会话会被删除（毫秒）
+     * @param limit 单次最多删除的行数
+     * @return 删除的行数
+     */
+    int deleteExpired(@Param("before") long before, @Param("limit") int limit);
+}
\ No newline at end of file
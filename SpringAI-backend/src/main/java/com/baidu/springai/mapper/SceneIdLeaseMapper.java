@@ -0,0 +1,42 @@
+package com.baidu.springai.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 场景ID号段租约Mapper
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@Mapper
+public interface SceneIdLeaseMapper {
+
+    /**
+     * 查询下一个可租用的ID
+     *
+     * @param name 号段名称
+     * @return 下一个可租用的ID，记录不存在时返回null
+     */
+    Long selectNextId(@Param("name") String name);
+
+    /**
+     * 初始化号段记录，已存在时忽略
+     *
+     * @param name 号段名称
+     * @param nextId 初始ID
+     * @return 影响行数
+     */
+    int insertIgnore(@Param("name") String name, @Param("nextId") long nextId);
+
+    /**
+     * 仅当游标仍为expectedNextId时推进到nextId
+     *
+     * @param name 号段名称
+     * @param expectedNextId 期望的当前值
+     * @param nextId 新值
+     * @return 影响行数，0表示已被其他节点抢先推进
+     */
+    int compareAndSetNextId(@Param("name") String name, @Param("expectedNextId") long expectedNextId,
+                            @Param("nextId") long nextId);
+}
\ No newline at end of file
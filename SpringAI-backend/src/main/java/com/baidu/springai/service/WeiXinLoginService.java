@@ -1,8 +1,15 @@
 package com.baidu.springai.service;
 
-
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.domain.QrCodeBatchItem;
+import com.baidu.springai.domain.QrCodeImage;
+import com.baidu.springai.domain.QrCodeTicket;
+import com.baidu.springai.domain.WeChatReply;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * 登录服务接口
  * 定义微信扫码登录相关的业务操作
@@ -19,6 +26,45 @@ public interface WeiXinLoginService {
      */
     String createQrCodeTicket();
     
+    /**
+     * 创建二维码登录票据，优先从预热池中取出（此时附带二维码图片）
+     * 
+     * @return 二维码票据
+     */
+    QrCodeTicket createQrCode();
+    
+    /**
+     * 批量创建二维码登录票据，优先取预热池，其余以有限并发调用微信接口，成功的票据一次性登记
+     * 
+     * @param count 数量
+     * @param inlineImage 是否在结果中附带Base64图片，否则附带图片地址
+     * @return 各项结果，单项失败不影响其他项
+     */
+    List<QrCodeBatchItem> createQrCodes(int count, boolean inlineImage);
+    
+    /**
+     * 校验批量创建的数量，超出范围时抛出400；createQrCodes内部同样按此校验
+     * 
+     * @param count 数量
+     */
+    void validateBatchCount(int count);
+    
+    /**
+     * 获取二维码图片（带缓存），票据须由本服务签发且未过期，否则返回404
+     * 
+     * @param ticket 登录票据
+     * @return 二维码图片
+     */
+    QrCodeImage getQrCodeImage(String ticket);
+    
+    /**
+     * 获取SVG格式的二维码（本地渲染，按票据缓存）
+     * 
+     * @param ticket 登录票据
+     * @return SVG图片（ASCII字节）
+     */
+    QrCodeImage getQrCodeSvg(String ticket);
+    
     /**
      * 检查登录状态
      * 
@@ -27,6 +73,40 @@ public interface WeiXinLoginService {
      */
     String checkLoginStatus(String ticket);
     
+    /**
+     * 获取登录会话
+     * 
+     * @param ticket 登录票据
+     * @return 登录会话，不存在或已过期时返回null
+     */
+    LoginSession getLoginSession(String ticket);
+    
+    /**
+     * 获取登录会话，集群模式下本节点查不到时先短暂等待其他节点复制过来
+     * 用于区分"尚未复制到本节点"与"已过期"，回调只触发一次
+     * 
+     * @param ticket 登录票据
+     * @param callback 回调，参数为登录会话，等待结束仍不存在时为null
+     */
+    void getLoginSession(String ticket, Consumer<LoginSession> callback);
+    
+    /**
+     * 监听登录状态变化
+     * 会话登录成功或过期时回调一次，过期时回调参数为null
+     * 
+     * @param ticket 登录票据
+     * @param listener 监听器
+     */
+    void addLoginStatusListener(String ticket, Consumer<LoginSession> listener);
+    
+    /**
+     * 移除登录状态监听器
+     * 
+     * @param ticket 登录票据
+     * @param listener 监听器
+     */
+    void removeLoginStatusListener(String ticket, Consumer<LoginSession> listener);
+    
     /**
      * 保存登录状态
      * 
@@ -36,11 +116,10 @@ public interface WeiXinLoginService {
     void saveLoginState(String ticket, String openid);
     
     /**
-     * 处理微信消息
+     * 处理微信消息，直接从请求输入流读取消息体
      * 
-     * @param requestBody 请求体内容
      * @param request HTTP请求对象
-     * @return 响应内容
+     * @return 被动回复
      */
-    String handleWeChatMessage(String requestBody, HttpServletRequest request);
+    WeChatReply handleWeChatMessage(HttpServletRequest request);
 }
\ No newline at end of file
@@ -1,21 +1,50 @@
 package com.baidu.springai.service.impl;
 
+import com.baidu.springai.config.BlockingIoExecutors;
 import com.baidu.springai.config.WeChatConfig;
-import com.baidu.springai.domain.WeChatAccessToken;
+import com.baidu.springai.config.WeChatConstants;
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.domain.QrCodeBatchItem;
+import com.baidu.springai.domain.QrCodeImage;
+import com.baidu.springai.domain.QrCodeTicket;
 import com.baidu.springai.domain.WeChatMessage;
+import com.baidu.springai.domain.WeChatReply;
 import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.manager.LoginMetrics;
+import com.baidu.springai.manager.LoginSessionStore;
+import com.baidu.springai.manager.LoginStatusNotifier;
+import com.baidu.springai.manager.QrCodeImageCache;
+import com.baidu.springai.manager.QrCodeRenderer;
+import com.baidu.springai.manager.QrCodeTicketPool;
+import com.baidu.springai.manager.RateLimiter;
+import com.baidu.springai.manager.SceneIdAllocator;
+import com.baidu.springai.manager.WeChatApiGuard;
+import com.baidu.springai.manager.WeChatEventQueue;
+import com.baidu.springai.manager.WeChatMessageDeduplicator;
+import com.baidu.springai.manager.WeChatTokenManager;
 import com.baidu.springai.service.WeiXinLoginService;
 import com.baidu.springai.utils.WeChatApiUtil;
+import com.baidu.springai.utils.WeChatReplyWriter;
 import com.baidu.springai.utils.XmlUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 登录服务实现类
@@ -28,76 +57,293 @@ import java.util.Map;
 @Slf4j
 public class WeiXinLoginServiceImpl implements WeiXinLoginService {
 
+    /**
+     * 固定的回复内容，预编译为UTF-8字节
+     */
+    private static final byte[] LOGIN_SUCCESS_REPLY = WeChatReplyWriter.precompile("登录操作成功，请返回网页查看状态");
+    private static final byte[] SUBSCRIBE_REPLY = WeChatReplyWriter.precompile("感谢您的关注！");
+    private static final byte[] RECEIVED_REPLY = WeChatReplyWriter.precompile("已收到您的消息");
+
+    /**
+     * 二维码图片接口地址，批量创建非inline模式下返回
+     */
+    private static final String QRCODE_IMAGE_PATH = "/api/v1/wechat/qrcode/image?ticket=";
+    
     @Autowired
     private WeChatConfig weChatConfig;
     
-    private final Map<String, String> loginStateMap = new HashMap<>();
-    // 添加场景ID到票据的映射
-    private final Map<String, String> sceneToTicketMap = new HashMap<>();
+    @Autowired
+    private WeChatTokenManager weChatTokenManager;
+    
+    @Autowired
+    private LoginSessionStore loginSessionStore;
+    
+    @Autowired
+    private LoginStatusNotifier loginStatusNotifier;
+    
+    @Autowired
+    private QrCodeTicketPool qrCodeTicketPool;
+    
+    @Autowired
+    private QrCodeImageCache qrCodeImageCache;
+    
+    @Autowired
+    private QrCodeRenderer qrCodeRenderer;
+    
+    @Autowired
+    private SceneIdAllocator sceneIdAllocator;
+    
+    @Autowired
+    private WeChatEventQueue weChatEventQueue;
+    
+    @Autowired
+    private WeChatMessageDeduplicator weChatMessageDeduplicator;
+    
+    @Autowired
+    private WeChatApiGuard weChatApiGuard;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private LoginMetrics loginMetrics;
+    
+    @Autowired
+    private BlockingIoExecutors blockingIoExecutors;
+    
+    private ExecutorService batchExecutor;
+
+    @PostConstruct
+    public void init() {
+        qrCodeTicketPool.start(this::prefetchQrCode);
+        weChatEventQueue.start(this::handleEventMessage);
+        batchExecutor = blockingIoExecutors.newFixedThreadPool("qrcode-batch-", weChatConfig.getQrcodeBatchParallelism());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
 
     @Override
     public String createQrCodeTicket() {
-        WeChatAccessToken accessToken = WeChatApiUtil.getAccessToken(weChatConfig.getAppId(), weChatConfig.getAppSecret());
-        if (!accessToken.isSuccess()) {
-            throw new BusinessException("获取微信access_token失败: " + accessToken.getErrmsg());
+        return createQrCode().getTicket();
+    }
+    
+    @Override
+    public QrCodeTicket createQrCode() {
+        QrCodeTicket qrCodeTicket = qrCodeTicketPool.poll();
+        if (qrCodeTicket == null) {
+            qrCodeTicket = requestQrCode();
         }
-
-        int sceneId = generateUniqueSceneId();
-        String ticket = WeChatApiUtil.createQrCode(accessToken.getAccessToken(), sceneId);
         
-        // 建立场景ID和票据的映射关系
-        sceneToTicketMap.put(String.valueOf(sceneId), ticket);
-        // 初始化登录状态
-        loginStateMap.put(ticket, null);
+        // 登记登录会话，同时建立场景ID和票据的映射关系
+        LoginSession session = loginSessionStore.register(qrCodeTicket.getTicket(),
+            String.valueOf(qrCodeTicket.getSceneId()), qrCodeTicket.getUrl(), qrCodeTicket.getExpireTime());
+        if (qrCodeTicket.getImage() != null) {
+            qrCodeImageCache.put(qrCodeTicket.getTicket(), qrCodeTicket.getImage(), session.getExpireTime());
+        }
         
-        return ticket;
+        return qrCodeTicket;
+    }
+    
+    @Override
+    public void validateBatchCount(int count) {
+        if (count < 1 || count > weChatConfig.getQrcodeBatchMaxSize()) {
+            throw BusinessException.badRequest("批量数量须在1到" + weChatConfig.getQrcodeBatchMaxSize() + "之间");
+        }
+    }
+    
+    @Override
+    public List<QrCodeBatchItem> createQrCodes(int count, boolean inlineImage) {
+        validateBatchCount(count);
+        
+        // 先取预热池中的票据，不足部分并发调用微信接口；inline模式下同时获取图片
+        List<QrCodeTicket> pooled = new ArrayList<>(count);
+        QrCodeTicket qrCodeTicket;
+        while (pooled.size() < count && (qrCodeTicket = qrCodeTicketPool.poll()) != null) {
+            pooled.add(qrCodeTicket);
+        }
+        Supplier<QrCodeTicket> factory = inlineImage ? this::prefetchQrCode : this::requestQrCode;
+        List<CompletableFuture<QrCodeTicket>> futures = new ArrayList<>(count - pooled.size());
+        for (int i = pooled.size(); i < count; i++) {
+            futures.add(CompletableFuture.supplyAsync(factory, batchExecutor));
+        }
+        
+        List<QrCodeTicket> created = new ArrayList<>(pooled);
+        String[] errors = new String[count];
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                created.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("批量创建二维码第{}项失败: {}", pooled.size() + i, cause.getMessage());
+                created.add(null);
+                errors[pooled.size() + i] = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+            }
+        }
+        
+        // 成功的票据一次性登记
+        List<QrCodeTicket> succeeded = new ArrayList<>(count);
+        for (QrCodeTicket each : created) {
+            if (each != null) {
+                succeeded.add(each);
+            }
+        }
+        List<LoginSession> sessions = loginSessionStore.registerAll(succeeded);
+        
+        List<QrCodeBatchItem> items = new ArrayList<>(count);
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            QrCodeTicket each = created.get(i);
+            if (each == null) {
+                items.add(QrCodeBatchItem.builder().index(i).success(false).error(errors[i]).build());
+                continue;
+            }
+            LoginSession session = sessions.get(next++);
+            String ticket = each.getTicket();
+            if (each.getImage() != null) {
+                qrCodeImageCache.put(ticket, each.getImage(), session.getExpireTime());
+            }
+            QrCodeBatchItem.QrCodeBatchItemBuilder item = QrCodeBatchItem.builder().index(i).success(true)
+                .qrCodeId(ticket).expireTime(session.getExpireTime());
+            if (inlineImage) {
+                QrCodeImage image = qrCodeImageCache.getImage(ticket, session.getExpireTime(),
+                    () -> loadQrCodeImage(ticket, session));
+                item.qrCodeImage("data:" + image.getContentType() + ";base64,"
+                    + new String(image.getBase64(), StandardCharsets.US_ASCII));
+            } else {
+                item.imageUrl(QRCODE_IMAGE_PATH + URLEncoder.encode(ticket, StandardCharsets.UTF_8));
+            }
+            items.add(item.build());
+        }
+        return items;
+    }
+    
+    @Override
+    public QrCodeImage getQrCodeImage(String ticket) {
+        validateTicket(ticket);
+        // 只为本服务签发且未过期的票据加载图片，任意票据字符串不会触发showqrcode下载，也不会挤占缓存
+        LoginSession session = loginSessionStore.get(ticket);
+        if (session == null) {
+            throw BusinessException.notFound("二维码不存在或已过期");
+        }
+        return qrCodeImageCache.getImage(ticket, session.getExpireTime(),
+            () -> loadQrCodeImage(ticket, session));
+    }
+    
+    @Override
+    public QrCodeImage getQrCodeSvg(String ticket) {
+        validateTicket(ticket);
+        LoginSession session = loginSessionStore.get(ticket);
+        if (session == null || session.getQrcodeUrl() == null) {
+            throw BusinessException.notFound("二维码不存在或已过期");
+        }
+        // 与PNG共用图片缓存，每个票据只渲染一次
+        return qrCodeImageCache.getSvg(ticket, session.getExpireTime(),
+            () -> new QrCodeImage(qrCodeRenderer.renderSvg(session.getQrcodeUrl()).getBytes(StandardCharsets.US_ASCII),
+                QrCodeRenderer.SVG_CONTENT_TYPE));
     }
     
     @Override
     public String checkLoginStatus(String ticket) {
-        return loginStateMap.get(ticket);
+        LoginSession session = loginSessionStore.get(ticket);
+        return session != null ? session.getOpenId() : null;
+    }
+
+    @Override
+    public LoginSession getLoginSession(String ticket) {
+        return loginSessionStore.get(ticket);
+    }
+
+    @Override
+    public void getLoginSession(String ticket, Consumer<LoginSession> callback) {
+        loginSessionStore.getOrAwaitReplica(ticket, callback);
+    }
+
+    @Override
+    public void addLoginStatusListener(String ticket, Consumer<LoginSession> listener) {
+        loginStatusNotifier.subscribe(ticket, listener);
+    }
+
+    @Override
+    public void removeLoginStatusListener(String ticket, Consumer<LoginSession> listener) {
+        loginStatusNotifier.unsubscribe(ticket, listener);
     }
 
     @Override
     public void saveLoginState(String ticket, String openid) {
-        loginStateMap.put(ticket, openid);
+        if (!loginSessionStore.markLoggedIn(ticket, openid)) {
+            loginMetrics.countLogin(LoginMetrics.LOGIN_SESSION_MISSING);
+            log.warn("登录会话不存在或已过期: ticket={}", ticket);
+            return;
+        }
+        loginMetrics.countLogin(LoginMetrics.LOGIN_SUCCESS);
         log.info("保存登录状态: ticket={}, openid={}", ticket, openid);
     }
 
     @Override
-    public String handleWeChatMessage(String requestBody, HttpServletRequest request) {
-        if (requestBody == null || requestBody.isEmpty()) {
+    public WeChatReply handleWeChatMessage(HttpServletRequest request) {
+        WeChatMessage message = parseWeChatMessage(request);
+        if (message == null) {
             String echostr = request.getParameter("echostr");
-            return echostr != null ? echostr : "success";
+            return echostr != null ? WeChatReply.raw(echostr) : WeChatReply.empty();
         }
-
-        WeChatMessage message = parseWeChatMessage(requestBody);
-        
+        return weChatMessageDeduplicator.process(message, this::dispatchMessage);
+    }
+    
+    /**
+     * 按消息类型分发处理
+     */
+    private WeChatReply dispatchMessage(WeChatMessage message) {
+        loginMetrics.countMessage(message);
         if ("event".equals(message.getMsgType())) {
+            // 不需要被动回复的事件异步处理，立即应答；队列未启用或已满时按原方式同步处理
+            if (!needsPassiveReply(message) && weChatEventQueue.offer(message)) {
+                return WeChatReply.empty();
+            }
             return handleEventMessage(message);
         } else if ("text".equals(message.getMsgType())) {
-            return XmlUtil.buildWeChatXmlResponse(
-                message.getFromUserName(), message.getToUserName(), 
+            return WeChatReply.text(message.getFromUserName(), message.getToUserName(),
                 "你发送的内容是：" + message.getContent());
         } else {
-            return XmlUtil.buildWeChatXmlResponse(
-                message.getFromUserName(), message.getToUserName(), "已收到您的消息");
+            return WeChatReply.text(message.getFromUserName(), message.getToUserName(), RECEIVED_REPLY);
+        }
+    }
+    
+    /**
+     * 直接从请求输入流解析微信消息
+     *
+     * @return 微信消息，请求体为空时返回null
+     */
+    private WeChatMessage parseWeChatMessage(HttpServletRequest request) {
+        try {
+            PushbackInputStream body = new PushbackInputStream(request.getInputStream(), 1);
+            int first = body.read();
+            if (first == -1) {
+                return null;
+            }
+            body.unread(first);
+            long startNanos = System.nanoTime();
+            WeChatMessage message = XmlUtil.parseWeChatMessage(body);
+            loginMetrics.recordXmlParse(startNanos);
+            return message;
+        } catch (IOException e) {
+            throw BusinessException.badRequest("读取微信消息失败: " + e.getMessage());
         }
     }
     
     /**
-     * 解析微信消息
+     * 扫码和关注事件的回复内容对用户可见，需要同步处理
      */
-    private WeChatMessage parseWeChatMessage(String requestBody) {
-        Map<String, String> xmlMap = XmlUtil.parseWeChatXmlMessage(
-            new ByteArrayInputStream(requestBody.getBytes(StandardCharsets.UTF_8)));
-        return WeChatMessage.fromMap(xmlMap);
+    private boolean needsPassiveReply(WeChatMessage message) {
+        return "SCAN".equalsIgnoreCase(message.getEvent()) || "subscribe".equalsIgnoreCase(message.getEvent());
     }
     
     /**
      * 处理事件消息
      */
-    private String handleEventMessage(WeChatMessage message) {
+    private WeChatReply handleEventMessage(WeChatMessage message) {
         String event = message.getEvent();
         String eventKey = message.getEventKey();
         String fromUser = message.getFromUserName();
@@ -111,24 +357,90 @@ public class WeiXinLoginServiceImpl implements WeiXinLoginService {
                     eventKey.substring("qrscene_".length()) : eventKey;
                 
                 // 通过场景ID找到对应的票据
-                String ticket = sceneToTicketMap.get(sceneValue);
+                String ticket = loginSessionStore.findTicketByScene(sceneValue);
                 if (ticket != null) {
                     saveLoginState(ticket, fromUser);
-                    return XmlUtil.buildWeChatXmlResponse(fromUser, toUser, "登录操作成功，请返回网页查看状态");
+                    return WeChatReply.text(fromUser, toUser, LOGIN_SUCCESS_REPLY);
                 }
+                loginMetrics.countLogin(LoginMetrics.LOGIN_UNKNOWN_SCENE);
             }
         }
         
         return switch (event.toLowerCase()) {
-            case "subscribe" -> XmlUtil.buildWeChatXmlResponse(fromUser, toUser, "感谢您的关注！");
-            default -> XmlUtil.buildEmptyWeChatXmlResponse();
+            case "subscribe" -> WeChatReply.text(fromUser, toUser, SUBSCRIBE_REPLY);
+            default -> WeChatReply.empty();
         };
     }
     
     /**
-     * 生成唯一的场景ID
+     * 验证票据参数
+     */
+    private void validateTicket(String ticket) {
+        if (ticket == null || ticket.isEmpty()) {
+            throw new IllegalArgumentException("票据参数不能为空");
+        }
+    }
+    
+    /**
+     * 加载二维码图片：本地渲染模式下且已知二维码内容时直接渲染PNG，否则从showqrcode下载
+     */
+    private QrCodeImage loadQrCodeImage(String ticket, LoginSession session) {
+        if (isLocalRender() && session.getQrcodeUrl() != null) {
+            return renderQrCodeImage(session.getQrcodeUrl());
+        }
+        return new QrCodeImage(downloadQrCodeImage(ticket), WeChatConstants.QRCODE_REMOTE_CONTENT_TYPE);
+    }
+    
+    private QrCodeImage renderQrCodeImage(String url) {
+        return new QrCodeImage(qrCodeRenderer.renderPng(url), QrCodeRenderer.PNG_CONTENT_TYPE);
+    }
+    
+    private boolean isLocalRender() {
+        return WeChatConstants.QRCODE_RENDER_MODE_LOCAL.equalsIgnoreCase(weChatConfig.getQrcodeRenderMode());
+    }
+    
+    /**
+     * 调用微信接口创建二维码票据，每次实际调用（含access_token失效后的重试）都消耗一次全局配额。
+     * 不做对冲：重复的qrcode/create会在微信侧多生成一个二维码并多消耗一次每日配额
      */
-    private int generateUniqueSceneId() {
-        return Math.max((int) (System.currentTimeMillis() % 1_000_000_000L), 1);
+    private QrCodeTicket requestQrCode() {
+        int sceneId = sceneIdAllocator.allocate();
+        QrCodeTicket qrCodeTicket;
+        try {
+            qrCodeTicket = weChatTokenManager.executeWithToken(accessToken -> {
+                rateLimiter.acquireQuota();
+                return weChatApiGuard.call(WeChatApiGuard.QRCODE_CREATE, false,
+                    () -> WeChatApiUtil.createQrCodeAsync(accessToken, sceneId));
+            });
+        } catch (RuntimeException e) {
+            // 没有拿到票据，不会有人扫描该场景ID的二维码，可立即复用
+            sceneIdAllocator.recycle(sceneId, 0L);
+            throw e;
+        }
+        // 二维码在微信侧过期后才复用场景ID，避免旧二维码被扫描时登录到新会话
+        sceneIdAllocator.recycle(sceneId, qrCodeTicket.getExpireTime());
+        return qrCodeTicket;
+    }
+    
+    /**
+     * 从showqrcode下载二维码图片，经调用保护（可对冲）
+     */
+    private byte[] downloadQrCodeImage(String ticket) {
+        return weChatApiGuard.call(WeChatApiGuard.QRCODE_DOWNLOAD, true,
+            () -> WeChatApiUtil.downloadQrCodeImageAsync(ticket));
+    }
+    
+    /**
+     * 预生成二维码票据及图片，供预热池使用
+     */
+    private QrCodeTicket prefetchQrCode() {
+        QrCodeTicket qrCodeTicket = requestQrCode();
+        if (isLocalRender() && qrCodeTicket.getUrl() != null) {
+            qrCodeTicket.setImage(renderQrCodeImage(qrCodeTicket.getUrl()));
+        } else {
+            qrCodeTicket.setImage(new QrCodeImage(downloadQrCodeImage(qrCodeTicket.getTicket()),
+                WeChatConstants.QRCODE_REMOTE_CONTENT_TYPE));
+        }
+        return qrCodeTicket;
     }
 }
@@ -0,0 +1,64 @@
+package com.baidu.springai.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 有界对象池，用于热路径上可复用的计算器和缓冲区（签名计算器、回复缓冲区、二维码渲染上下文）
+ * 不按线程缓存：启用虚拟线程时每个请求都在新线程上执行，ThreadLocal中的对象用一次就作废。
+ * 池中对象只在一次CPU计算期间被借出，同时借出的数量受CPU核数而不是请求线程数限制，
+ * 默认容量为核数的两倍；池空时新建，池满时归还的对象交给丢弃回调（如释放本地内存）后丢弃
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public final class BoundedPool<T> {
+
+    /**
+     * 默认容量
+     */
+    public static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final BlockingQueue<T> pool;
+
+    private final Supplier<T> factory;
+
+    private final Consumer<T> discard;
+
+    public BoundedPool(Supplier<T> factory) {
+        this(DEFAULT_CAPACITY, factory, item -> { });
+    }
+
+    public BoundedPool(Supplier<T> factory, Consumer<T> discard) {
+        this(DEFAULT_CAPACITY, factory, discard);
+    }
+
+    public BoundedPool(int capacity, Supplier<T> factory, Consumer<T> discard) {
+        this.pool = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        this.factory = factory;
+        this.discard = discard;
+    }
+
+    /**
+     * 借出对象，池空时新建
+     *
+     * @return 对象
+     */
+    public T acquire() {
+        T item = pool.poll();
+        return item != null ? item : factory.get();
+    }
+
+    /**
+     * 归还对象，池满时丢弃
+     *
+     * @param item 对象
+     */
+    public void release(T item) {
+        if (!pool.offer(item)) {
+            discard.accept(item);
+        }
+    }
+}
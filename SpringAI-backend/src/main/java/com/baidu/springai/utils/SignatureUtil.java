@@ -1,8 +1,8 @@
 package com.baidu.springai.utils;
 
-import com.baidu.springai.exception.BusinessException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -10,16 +10,38 @@ import java.util.Arrays;
 /**
  * 微信签名验证工具类
  * 用于验证微信服务器发送的消息签名
- * 
+ * 每个webhook请求都要验证，计算在池化复用的MessageDigest和缓冲区上完成，
+ * 摘要与签名逐字节比较十六进制值且比较时间与不匹配的位置无关，整个过程不产生中间字符串
+ *
  * @author baidu
  * @version 1.0
  */
 @Slf4j
 public class SignatureUtil {
 
+    private static final int SHA1_LENGTH = 20;
+
+    /**
+     * 十六进制字符对应的值，非十六进制字符为0x10，与任何半字节比较都不相等
+     */
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) 0x10);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private static final BoundedPool<Verifier> VERIFIER_POOL = new BoundedPool<>(Verifier::new);
+
     /**
      * 验证微信签名
-     * 
+     *
      * @param signature 微信加密签名
      * @param timestamp 时间戳
      * @param nonce 随机数
@@ -31,75 +53,99 @@ public class SignatureUtil {
             log.warn("微信签名验证参数不完整");
             return false;
         }
-        
-        // 将token、timestamp、nonce三个参数进行字典序排序
-        String[] params = {token, timestamp, nonce};
-        Arrays.sort(params);
-        
-        // 将三个参数字符串拼接成一个字符串进行sha1加密
-        StringBuilder content = new StringBuilder();
-        for (String param : params) {
-            content.append(param);
-        }
-        
-        String encryptedStr = sha1Encrypt(content.toString());
-        
-        // 开发者获得加密后的字符串可与signature对比，标识该请求来源于微信
-        boolean isValid = encryptedStr != null && encryptedStr.equals(signature.toUpperCase());
-        
-        if (isValid) {
-            log.info("微信签名验证成功");
-        } else {
-            log.warn("微信签名验证失败，期望: {}, 实际: {}", encryptedStr, signature);
+
+        // 将token、timestamp、nonce三个参数进行字典序排序，拼接后进行sha1加密，与signature对比
+        Verifier verifier = VERIFIER_POOL.acquire();
+        boolean isValid = verifier.verify(signature, token, timestamp, nonce);
+        VERIFIER_POOL.release(verifier);
+        if (!isValid) {
+            log.debug("微信签名验证失败: signature={}, timestamp={}, nonce={}", signature, timestamp, nonce);
         }
-        
         return isValid;
     }
-    
+
     /**
-     * SHA1加密
-     * 
-     * @param content 待加密内容
-     * @return 加密后的字符串
-     * @throws BusinessException 如果加密过程中出现错误
+     * 验证微信签名及时间戳新鲜度，用于每个webhook消息推送
+     *
+     * @param signature 微信加密签名
+     * @param timestamp 时间戳（秒）
+     * @param nonce 随机数
+     * @param token 开发者令牌
+     * @param toleranceSeconds 时间戳与本机时间允许的最大偏差（秒）
+     * @return 验证结果
      */
-    private static String sha1Encrypt(String content) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            byte[] digest = md.digest(content.getBytes());
-            return bytesToHexString(digest);
-        } catch (NoSuchAlgorithmException e) {
-            log.error("SHA1加密算法不存在", e);
-            // 这里不抛出异常，因为验证签名方法需要返回false而不是抛出异常
-            return null;
+    public static boolean verifyWeChatSignature(String signature, String timestamp, String nonce, String token,
+                                                long toleranceSeconds) {
+        if (!isFresh(timestamp, toleranceSeconds)) {
+            log.debug("微信消息时间戳超出允许范围: timestamp={}", timestamp);
+            return false;
         }
+        return verifyWeChatSignature(signature, timestamp, nonce, token);
     }
 
-    /**
-     * 字节数组转换为十六进制字符串
-     * 
-     * @param bytes 字节数组
-     * @return 十六进制字符串
-     */
-    private static String bytesToHexString(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(byteToHex(b));
+    private static boolean isFresh(String timestamp, long toleranceSeconds) {
+        if (timestamp == null || timestamp.isEmpty() || timestamp.length() > 18) {
+            return false;
+        }
+        long seconds = 0;
+        for (int i = 0; i < timestamp.length(); i++) {
+            char c = timestamp.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            seconds = seconds * 10 + (c - '0');
         }
-        return result.toString();
+        return Math.abs(System.currentTimeMillis() / 1000 - seconds) <= toleranceSeconds;
     }
 
     /**
-     * 单个字节转换为十六进制字符串
-     * 
-     * @param b 字节
-     * @return 十六进制字符串
+     * 池化复用的签名计算器
      */
-    private static String byteToHex(byte b) {
-        char[] hexDigits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
-        char[] hexChars = new char[2];
-        hexChars[0] = hexDigits[(b >>> 4) & 0x0F];
-        hexChars[1] = hexDigits[b & 0x0F];
-        return new String(hexChars);
+    private static final class Verifier {
+        private final MessageDigest digest;
+        private final byte[] hash = new byte[SHA1_LENGTH];
+        private final Utf8Buffer content = new Utf8Buffer(256);
+
+        private Verifier() {
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA1加密算法不存在", e);
+            }
+        }
+
+        private boolean verify(String signature, String a, String b, String c) {
+            if (signature.length() != SHA1_LENGTH * 2) {
+                return false;
+            }
+            // 三个参数排序，不创建数组
+            String t;
+            if (a.compareTo(b) > 0) { t = a; a = b; b = t; }
+            if (b.compareTo(c) > 0) { t = b; b = c; c = t; }
+            if (a.compareTo(b) > 0) { t = a; a = b; b = t; }
+
+            content.reset();
+            content.writeUtf8(a);
+            content.writeUtf8(b);
+            content.writeUtf8(c);
+            digest.reset();
+            digest.update(content.array(), 0, content.length());
+            try {
+                digest.digest(hash, 0, SHA1_LENGTH);
+            } catch (DigestException e) {
+                return false;
+            }
+
+            int diff = 0;
+            for (int i = 0; i < SHA1_LENGTH; i++) {
+                diff |= hexValue(signature.charAt(i * 2)) ^ ((hash[i] >> 4) & 0x0F);
+                diff |= hexValue(signature.charAt(i * 2 + 1)) ^ (hash[i] & 0x0F);
+            }
+            return diff == 0;
+        }
+
+        private static int hexValue(char c) {
+            return c < 128 ? HEX_VALUES[c] : 0x10;
+        }
     }
 }
@@ -0,0 +1,124 @@
+package com.baidu.springai.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 可复用的UTF-8字节缓冲区
+ * 字符串直接按UTF-8编码追加到缓冲区，不经过String.getBytes产生的中间数组；
+ * 编码结果与String.getBytes(StandardCharsets.UTF_8)一致，不成对的代理字符编码为'?'
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public final class Utf8Buffer {
+
+    private byte[] bytes;
+
+    private int length;
+
+    public Utf8Buffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    /**
+     * 清空内容，保留已分配的空间
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int capacity() {
+        return bytes.length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * 追加字节片段
+     */
+    public void write(byte[] segment) {
+        ensureCapacity(segment.length);
+        System.arraycopy(segment, 0, bytes, length, segment.length);
+        length += segment.length;
+    }
+
+    /**
+     * 按UTF-8编码追加字符串，null不追加
+     */
+    public void writeUtf8(String value) {
+        if (value != null) {
+            writeUtf8(value, 0, value.length());
+        }
+    }
+
+    /**
+     * 按UTF-8编码追加字符串的[start, end)部分
+     */
+    public void writeUtf8(String value, int start, int end) {
+        ensureCapacity((end - start) * 3);
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * 追加非负整数的十进制表示
+     */
+    public void writeLong(long value) {
+        ensureCapacity(20);
+        if (value == 0) {
+            bytes[length++] = '0';
+            return;
+        }
+        int start = length;
+        while (value > 0) {
+            bytes[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte tmp = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = tmp;
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -1,18 +1,34 @@
 package com.baidu.springai.utils;
 
-import cn.hutool.http.HttpUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.QrCodeTicket;
 import com.baidu.springai.domain.WeChatAccessToken;
 import com.baidu.springai.exception.BusinessException;
+import com.baidu.springai.exception.WeChatApiException;
+import com.baidu.springai.manager.LoginMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import com.baidu.springai.config.WeChatConfig;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 微信API工具类
  * 提供微信相关的API调用功能
+ * 请求通过共享的HttpClient发出（连接复用、按接口设置超时），接口根地址取自配置；
+ * 每个接口都有同步和异步（CompletableFuture）两种调用方式，调用耗时及微信错误码记录到登录链路指标
  * 
  * @author baidu
  * @version 1.0
@@ -23,34 +39,191 @@ public class WeChatApiUtil {
     
     private static WeChatConfig weChatConfig;
     
+    private static HttpClient httpClient;
+    
+    private static LoginMetrics loginMetrics;
+    
     @Autowired
     public void setWeChatConfig(WeChatConfig weChatConfig) {
         WeChatApiUtil.weChatConfig = weChatConfig;
     }
+    
+    @Autowired
+    public void setHttpClient(HttpClient weChatHttpClient) {
+        WeChatApiUtil.httpClient = weChatHttpClient;
+    }
+    
+    @Autowired
+    public void setLoginMetrics(LoginMetrics loginMetrics) {
+        WeChatApiUtil.loginMetrics = loginMetrics;
+    }
 
     /**
      * 获取微信访问令牌
      */
     public static WeChatAccessToken getAccessToken(String appId, String appSecret) {
-        validateParams(appId, appSecret);
-        
-        String url = String.format(weChatConfig.getApiTokenUrl(), appId.trim(), appSecret.trim());
-        String response = HttpUtil.get(url);
-        
-        return parseAccessTokenResponse(response);
+        HttpRequest request = buildAccessTokenRequest(appId, appSecret);
+        return parseAccessTokenResponse(checkStatus(send(LoginMetrics.API_TOKEN, request,
+                HttpResponse.BodyHandlers.ofString())));
+    }
+    
+    /**
+     * 异步获取微信访问令牌
+     */
+    public static CompletableFuture<WeChatAccessToken> getAccessTokenAsync(String appId, String appSecret) {
+        HttpRequest request = buildAccessTokenRequest(appId, appSecret);
+        return sendAsync(LoginMetrics.API_TOKEN, request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> parseAccessTokenResponse(checkStatus(response)));
     }
 
     /**
      * 创建微信二维码
+     * 返回票据、二维码内容url及过期时间
+     */
+    public static QrCodeTicket createQrCode(String accessToken, int sceneId) {
+        HttpRequest request = buildQrCodeHttpRequest(accessToken, sceneId);
+        long createTime = System.currentTimeMillis();
+        return parseQrCodeResponse(checkStatus(send(LoginMetrics.API_QRCODE_CREATE, request,
+                HttpResponse.BodyHandlers.ofString())), sceneId, createTime);
+    }
+    
+    /**
+     * 异步创建微信二维码
+     */
+    public static CompletableFuture<QrCodeTicket> createQrCodeAsync(String accessToken, int sceneId) {
+        HttpRequest request = buildQrCodeHttpRequest(accessToken, sceneId);
+        long createTime = System.currentTimeMillis();
+        return sendAsync(LoginMetrics.API_QRCODE_CREATE, request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> parseQrCodeResponse(checkStatus(response), sceneId, createTime));
+    }
+    
+    /**
+     * 下载二维码图片
      */
-    public static String createQrCode(String accessToken, int sceneId) {
+    public static byte[] downloadQrCodeImage(String ticket) {
+        HttpRequest request = buildDownloadRequest(ticket);
+        return checkImage(checkStatus(send(LoginMetrics.API_QRCODE_DOWNLOAD, request,
+                HttpResponse.BodyHandlers.ofByteArray())));
+    }
+    
+    /**
+     * 异步下载二维码图片
+     */
+    public static CompletableFuture<byte[]> downloadQrCodeImageAsync(String ticket) {
+        HttpRequest request = buildDownloadRequest(ticket);
+        return sendAsync(LoginMetrics.API_QRCODE_DOWNLOAD, request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> checkImage(checkStatus(response)));
+    }
+    
+    private static HttpRequest buildAccessTokenRequest(String appId, String appSecret) {
+        validateParams(appId, appSecret);
+        String url = String.format(weChatConfig.getApiTokenUrl(), encode(appId.trim()), encode(appSecret.trim()));
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(weChatConfig.getApiTokenTimeoutMillis()))
+                .GET()
+                .build();
+    }
+    
+    private static HttpRequest buildQrCodeHttpRequest(String accessToken, int sceneId) {
         validateQrCodeParams(accessToken, sceneId);
-        
-        String url = String.format(weChatConfig.getApiQrcodeUrl(), accessToken.trim());
-        JSONObject requestJson = buildQrCodeRequest(sceneId);
-        
-        String responseBody = HttpUtil.post(url, requestJson.toString());
-        return parseQrCodeResponse(responseBody);
+        String url = String.format(weChatConfig.getApiQrcodeUrl(), encode(accessToken.trim()));
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(weChatConfig.getApiQrcodeTimeoutMillis()))
+                .header("Content-Type", "application/json;charset=UTF-8")
+                .POST(HttpRequest.BodyPublishers.ofString(buildQrCodeRequest(sceneId).toString(), StandardCharsets.UTF_8))
+                .build();
+    }
+    
+    private static HttpRequest buildDownloadRequest(String ticket) {
+        if (ticket == null || ticket.trim().isEmpty()) {
+            throw new IllegalArgumentException("票据参数不能为空");
+        }
+        String url = String.format(weChatConfig.getQrcodeUrlTemplate(), encode(ticket.trim()));
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(weChatConfig.getQrcodeDownloadTimeoutMillis()))
+                .GET()
+                .build();
+    }
+    
+    /**
+     * 同步发送请求，超时、I/O错误统一转换为业务异常
+     */
+    private static <T> HttpResponse<T> send(String endpoint, HttpRequest request,
+                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        long startNanos = System.nanoTime();
+        try {
+            HttpResponse<T> response = httpClient.send(request, bodyHandler);
+            recordApi(endpoint, startNanos, response.statusCode() / 100 == 2);
+            return response;
+        } catch (IOException e) {
+            recordApi(endpoint, startNanos, false);
+            throw translate(request, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw BusinessException.serverError("调用微信接口被中断: " + request.uri().getPath(), e);
+        }
+    }
+    
+    /**
+     * 异步发送请求，失败时以业务异常结束
+     */
+    private static <T> CompletableFuture<HttpResponse<T>> sendAsync(String endpoint, HttpRequest request,
+                                                                   HttpResponse.BodyHandler<T> bodyHandler) {
+        long startNanos = System.nanoTime();
+        return httpClient.sendAsync(request, bodyHandler).whenComplete((response, e) ->
+                recordApi(endpoint, startNanos, e == null && response.statusCode() / 100 == 2)
+        ).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException) {
+                throw translate(request, (IOException) cause);
+            }
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+        });
+    }
+    
+    /**
+     * 记录接口耗时：HTTP交换完成且状态为2xx即为成功，微信返回的错误码另行计数
+     */
+    private static void recordApi(String endpoint, long startNanos, boolean success) {
+        if (loginMetrics != null) {
+            loginMetrics.recordApi(endpoint, startNanos, success);
+        }
+    }
+    
+    private static void countErrcode(String endpoint, int errcode) {
+        if (loginMetrics != null) {
+            loginMetrics.countErrcode(endpoint, errcode);
+        }
+    }
+    
+    private static BusinessException translate(HttpRequest request, IOException e) {
+        String path = request.uri().getPath();
+        if (e instanceof HttpTimeoutException) {
+            log.warn("调用微信接口超时: {}", path);
+            return BusinessException.serverError("调用微信接口超时: " + path, e);
+        }
+        log.warn("调用微信接口失败: {}, {}", path, e.getMessage());
+        return BusinessException.serverError("调用微信接口失败: " + path, e);
+    }
+    
+    private static <T> HttpResponse<T> checkStatus(HttpResponse<T> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw BusinessException.serverError("微信接口HTTP状态异常[" + response.statusCode() + "]: "
+                    + response.uri().getPath());
+        }
+        return response;
+    }
+    
+    private static byte[] checkImage(HttpResponse<byte[]> response) {
+        byte[] imageBytes = response.body();
+        if (imageBytes == null || imageBytes.length == 0) {
+            throw BusinessException.serverError("二维码图片不存在或已过期");
+        }
+        return imageBytes;
+    }
+    
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
     
     /**
@@ -77,8 +250,8 @@ public class WeChatApiUtil {
     /**
      * 解析访问令牌响应
      */
-    private static WeChatAccessToken parseAccessTokenResponse(String response) {
-        JSONObject jsonObject = JSONUtil.parseObj(response);
+    private static WeChatAccessToken parseAccessTokenResponse(HttpResponse<String> response) {
+        JSONObject jsonObject = JSONUtil.parseObj(response.body());
         
         WeChatAccessToken.WeChatAccessTokenBuilder builder = WeChatAccessToken.builder();
         
@@ -98,6 +271,7 @@ public class WeChatApiUtil {
         WeChatAccessToken tokenResponse = builder.build();
         
         if (!tokenResponse.isSuccess()) {
+            countErrcode(LoginMetrics.API_TOKEN, tokenResponse.getErrcode() != null ? tokenResponse.getErrcode() : -1);
             log.error("获取微信访问令牌失败，错误码: {}, 错误信息: {}", 
                 tokenResponse.getErrcode(), tokenResponse.getErrmsg());
         }
@@ -125,16 +299,25 @@ public class WeChatApiUtil {
     /**
      * 解析二维码响应
      */
-    private static String parseQrCodeResponse(String responseBody) {
+    private static QrCodeTicket parseQrCodeResponse(HttpResponse<String> response, int sceneId, long createTime) {
+        String responseBody = response.body();
         JSONObject responseJson = JSONUtil.parseObj(responseBody);
         
         if (responseJson.containsKey("ticket")) {
-            return responseJson.getStr("ticket");
+            int expireSeconds = responseJson.getInt("expire_seconds", weChatConfig.getQrcodeExpireSeconds());
+            return QrCodeTicket.builder()
+                    .ticket(responseJson.getStr("ticket"))
+                    .url(responseJson.getStr("url"))
+                    .sceneId(sceneId)
+                    .createTime(createTime)
+                    .expireTime(createTime + expireSeconds * 1000L)
+                    .build();
         } else if (responseJson.containsKey("errcode")) {
             int errCode = responseJson.getInt("errcode");
             String errMsg = responseJson.getStr("errmsg");
+            countErrcode(LoginMetrics.API_QRCODE_CREATE, errCode);
             log.error("微信二维码API返回错误，错误码: {}, 错误信息: {}", errCode, errMsg);
-            throw BusinessException.serverError(String.format("微信二维码API错误[%d]: %s", errCode, errMsg));
+            throw new WeChatApiException(errCode, String.format("微信二维码API错误[%d]: %s", errCode, errMsg));
         } else {
             log.error("微信二维码API返回未知格式: {}", responseBody);
             throw BusinessException.serverError("微信二维码API返回未知格式: " + responseBody);
@@ -0,0 +1,189 @@
+package com.baidu.springai.utils;
+
+import com.baidu.springai.domain.WeChatReply;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 微信被动回复写出工具类
+ * 回复模板预先编译为UTF-8字节片段，只对可变部分（收发方、CreateTime、内容）做CDATA转义和UTF-8编码，
+ * 整条回复在池化的缓冲区中拼好后一次写入响应流，不经过String.format和中间字符串
+ *
+ * @author baidu
+ * @version 1.0
+ */
+public final class WeChatReplyWriter {
+
+    private WeChatReplyWriter() {}
+
+    public static final String CONTENT_TYPE = "application/xml;charset=UTF-8";
+
+    /**
+     * 图文消息最多的文章数
+     */
+    private static final int MAX_ARTICLES = 8;
+
+    private static final byte[] HEAD_TO = bytes("<xml><ToUserName><![CDATA[");
+    private static final byte[] HEAD_FROM = bytes("]]></ToUserName><FromUserName><![CDATA[");
+    private static final byte[] HEAD_CREATE_TIME = bytes("]]></FromUserName><CreateTime>");
+    private static final byte[] HEAD_MSG_TYPE = bytes("</CreateTime><MsgType><![CDATA[");
+
+    private static final byte[] TEXT_BODY = bytes("text]]></MsgType><Content><![CDATA[");
+    private static final byte[] TEXT_TAIL = bytes("]]></Content></xml>");
+
+    private static final byte[] IMAGE_BODY = bytes("image]]></MsgType><Image><MediaId><![CDATA[");
+    private static final byte[] IMAGE_TAIL = bytes("]]></MediaId></Image></xml>");
+
+    private static final byte[] NEWS_BODY = bytes("news]]></MsgType><ArticleCount>");
+    private static final byte[] NEWS_ARTICLES = bytes("</ArticleCount><Articles>");
+    private static final byte[] ITEM_TITLE = bytes("<item><Title><![CDATA[");
+    private static final byte[] ITEM_DESCRIPTION = bytes("]]></Title><Description><![CDATA[");
+    private static final byte[] ITEM_PIC_URL = bytes("]]></Description><PicUrl><![CDATA[");
+    private static final byte[] ITEM_URL = bytes("]]></PicUrl><Url><![CDATA[");
+    private static final byte[] ITEM_TAIL = bytes("]]></Url></item>");
+    private static final byte[] NEWS_TAIL = bytes("</Articles></xml>");
+
+    /**
+     * CDATA中出现"]]>"时拆成两段
+     */
+    private static final byte[] CDATA_SPLIT = bytes("]]]]><![CDATA[>");
+
+    /**
+     * 超过该大小的缓冲区（如长图文回复）不放回池中
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 16 * 1024;
+
+    private static final BoundedPool<Utf8Buffer> BUFFER_POOL = new BoundedPool<>(() -> new Utf8Buffer(1024));
+
+    /**
+     * 预编译固定的回复内容
+     *
+     * @param content 回复内容
+     * @return CDATA转义后的UTF-8字节
+     */
+    public static byte[] precompile(String content) {
+        Utf8Buffer buffer = new Utf8Buffer(content == null ? 0 : content.length() * 3);
+        writeCdata(buffer, content);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 将回复写入HTTP响应
+     *
+     * @param reply 回复
+     * @param response HTTP响应
+     */
+    public static void write(WeChatReply reply, HttpServletResponse response) throws IOException {
+        Utf8Buffer buffer = BUFFER_POOL.acquire();
+        try {
+            encode(reply, buffer);
+            response.setContentType(CONTENT_TYPE);
+            response.setContentLength(buffer.length());
+            buffer.writeTo(response.getOutputStream());
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * 将回复写入输出流
+     *
+     * @param reply 回复
+     * @param out 输出流
+     */
+    public static void write(WeChatReply reply, OutputStream out) throws IOException {
+        Utf8Buffer buffer = BUFFER_POOL.acquire();
+        try {
+            encode(reply, buffer);
+            buffer.writeTo(out);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    private static void releaseBuffer(Utf8Buffer buffer) {
+        if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            BUFFER_POOL.release(buffer);
+        }
+    }
+
+    private static void encode(WeChatReply reply, Utf8Buffer buffer) {
+        buffer.reset();
+        if (reply.getType() == WeChatReply.Type.RAW) {
+            buffer.writeUtf8(reply.getRaw());
+            return;
+        }
+
+        buffer.write(HEAD_TO);
+        writeCdata(buffer, reply.getToUserName());
+        buffer.write(HEAD_FROM);
+        writeCdata(buffer, reply.getFromUserName());
+        buffer.write(HEAD_CREATE_TIME);
+        buffer.writeLong(System.currentTimeMillis() / 1000);
+        buffer.write(HEAD_MSG_TYPE);
+
+        switch (reply.getType()) {
+            case TEXT:
+                buffer.write(TEXT_BODY);
+                if (reply.getEncodedContent() != null) {
+                    buffer.write(reply.getEncodedContent());
+                } else {
+                    writeCdata(buffer, reply.getContent());
+                }
+                buffer.write(TEXT_TAIL);
+                break;
+            case IMAGE:
+                buffer.write(IMAGE_BODY);
+                writeCdata(buffer, reply.getMediaId());
+                buffer.write(IMAGE_TAIL);
+                break;
+            case NEWS:
+                List<WeChatReply.Article> articles = reply.getArticles();
+                int count = articles == null ? 0 : Math.min(articles.size(), MAX_ARTICLES);
+                buffer.write(NEWS_BODY);
+                buffer.writeLong(count);
+                buffer.write(NEWS_ARTICLES);
+                for (int i = 0; i < count; i++) {
+                    WeChatReply.Article article = articles.get(i);
+                    buffer.write(ITEM_TITLE);
+                    writeCdata(buffer, article.getTitle());
+                    buffer.write(ITEM_DESCRIPTION);
+                    writeCdata(buffer, article.getDescription());
+                    buffer.write(ITEM_PIC_URL);
+                    writeCdata(buffer, article.getPicUrl());
+                    buffer.write(ITEM_URL);
+                    writeCdata(buffer, article.getUrl());
+                    buffer.write(ITEM_TAIL);
+                }
+                buffer.write(NEWS_TAIL);
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的回复类型: " + reply.getType());
+        }
+    }
+
+    /**
+     * 写入CDATA内容，"]]>"拆成两段CDATA
+     */
+    private static void writeCdata(Utf8Buffer buffer, String value) {
+        if (value == null) {
+            return;
+        }
+        int from = 0;
+        int split;
+        while ((split = value.indexOf("]]>", from)) >= 0) {
+            buffer.writeUtf8(value, from, split);
+            buffer.write(CDATA_SPLIT);
+            from = split + 3;
+        }
+        buffer.writeUtf8(value, from, value.length());
+    }
+
+    private static byte[] bytes(String segment) {
+        return segment.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -3,16 +3,12 @@ package com.baidu.springai.utils;
 import com.baidu.springai.domain.WeChatMessage;
 import com.baidu.springai.exception.BusinessException;
 import lombok.extern.slf4j.Slf4j;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.ByteArrayInputStream;
-import java.util.HashMap;
-import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
 
 /**
  * XML处理工具类
@@ -25,111 +21,112 @@ import java.util.Map;
 public class XmlUtil {
 
     /**
-     * 解析微信XML消息
-     * 
+     * 共享的StAX工厂，配置完成后创建读取器是线程安全的；禁用DTD和外部实体以防XXE
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * 以StAX流式解析微信XML消息
+     * 直接读取请求输入流，一次遍历填充消息实体，未使用的字段跳过而不生成字符串
+     *
      * @param inputStream XML输入流
-     * @return 解析后的消息Map
+     * @return 微信消息
      * @throws BusinessException 如果解析XML失败
      */
-    public static Map<String, String> parseWeChatXmlMessage(ByteArrayInputStream inputStream) {
+    public static WeChatMessage parseWeChatMessage(InputStream inputStream) {
         if (inputStream == null) {
             throw BusinessException.badRequest("XML输入流不能为空");
         }
-        
-        Map<String, String> xmlMap = new HashMap<>();
+
+        WeChatMessage message = new WeChatMessage();
+        XMLStreamReader reader = null;
         try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document document = db.parse(inputStream);
-            Element root = document.getDocumentElement();
-            
-            NodeList nodeList = root.getChildNodes();
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                Node node = nodeList.item(i);
-                if (node instanceof Element) {
-                    Element element = (Element) node;
-                    String nodeName = element.getNodeName();
-                    String nodeValue = element.getFirstChild() != null ? 
-                        element.getFirstChild().getNodeValue() : "";
-                    
-                    xmlMap.put(nodeName, nodeValue);
-                }
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            reader.nextTag();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                parseMessageField(message, reader);
             }
-            
-            log.info("解析微信XML消息成功，消息类型: {}, 事件类型: {}", 
-                xmlMap.get("MsgType"), xmlMap.get("Event"));
-                
-        } catch (Exception e) {
+        } catch (XMLStreamException e) {
             log.error("解析微信XML消息失败", e);
-            throw BusinessException.serverError("解析微信XML消息失败: " + e.getMessage());
+            throw BusinessException.badRequest("解析微信XML消息失败: " + e.getMessage());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // 关闭失败不影响已解析的结果
+                }
+            }
         }
-        return xmlMap;
+        log.debug("解析微信XML消息成功，消息类型: {}, 事件类型: {}", message.getMsgType(), message.getEvent());
+        return message;
     }
-    
+
     /**
-     * 解析消息字段
+     * 解析消息字段，读取器位于字段的开始标签，返回时位于其结束标签
      * 
      * @param message 消息实体
-     * @param fieldName 字段名
-     * @param fieldValue 字段值
+     * @param reader XML读取器
      */
-    private static void parseMessageField(WeChatMessage message, String fieldName, String fieldValue) {
-        switch (fieldName) {
+    private static void parseMessageField(WeChatMessage message, XMLStreamReader reader) throws XMLStreamException {
+        switch (reader.getLocalName()) {
             case "ToUserName":
-                message.setToUserName(fieldValue);
+                message.setToUserName(reader.getElementText());
                 break;
             case "FromUserName":
-                message.setFromUserName(fieldValue);
+                message.setFromUserName(reader.getElementText());
                 break;
             case "CreateTime":
-                message.setCreateTime(fieldValue);
+                message.setCreateTime(reader.getElementText());
                 break;
             case "MsgType":
-                message.setMsgType(fieldValue);
+                message.setMsgType(reader.getElementText());
                 break;
             case "Content":
-                message.setContent(fieldValue);
+                message.setContent(reader.getElementText());
                 break;
             case "Event":
-                message.setEvent(fieldValue);
+                message.setEvent(reader.getElementText());
                 break;
             case "EventKey":
-                message.setEventKey(fieldValue);
+                message.setEventKey(reader.getElementText());
                 break;
             case "Ticket":
-                message.setTicket(fieldValue);
+                message.setTicket(reader.getElementText());
+                break;
+            case "MsgId":
+                message.setMsgId(reader.getElementText());
                 break;
             default:
-                // 忽略未知字段
+                // 忽略未使用的字段
+                skipElement(reader);
                 break;
         }
     }
 
     /**
-     * 构建微信XML响应消息
-     * 
-     * @param toUserName 接收用户
-     * @param fromUserName 发送用户
-     * @param content 消息内容
-     * @return XML格式的响应消息
+     * 跳过当前元素（含子元素）
      */
-    public static String buildWeChatXmlResponse(String toUserName, String fromUserName, String content) {
-        long createTime = System.currentTimeMillis() / 1000;
-        
-        String xmlResponse = String.format(
-            "<xml>" +
-            "<ToUserName><![CDATA[%s]]></ToUserName>" +
-            "<FromUserName><![CDATA[%s]]></FromUserName>" +
-            "<CreateTime>%d</CreateTime>" +
-            "<MsgType><![CDATA[text]]></MsgType>" +
-            "<Content><![CDATA[%s]]></Content>" +
-            "</xml>",
-            toUserName, fromUserName, createTime, content
-        );
-        
-        return xmlResponse;
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
     }
-    
+
     /**
      * 构建空的微信XML响应
      * 用于不需要回复消息的场景
@@ -0,0 +1,35 @@
+-- 场景ID号段租约：多节点从同一游标租用互不重叠的场景ID号段
+CREATE TABLE IF NOT EXISTS scene_id_lease (
+    name        VARCHAR(64) NOT NULL COMMENT '号段名称',
+    next_id     BIGINT      NOT NULL COMMENT '下一个可租用的ID',
+    update_time DATETIME    NOT NULL COMMENT '更新时间',
+    PRIMARY KEY (name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '场景ID号段租约';
+
+-- 扫码登录会话：内存会话存储的持久化副本，异步批量写入
+CREATE TABLE IF NOT EXISTS login_session (
+    ticket      VARCHAR(128)  NOT NULL COMMENT '二维码票据',
+    scene_id    VARCHAR(16)   NOT NULL COMMENT '场景ID',
+    qrcode_url  VARCHAR(255)  NULL COMMENT '二维码内容url',
+    open_id     VARCHAR(64)   NULL COMMENT '扫码用户openid',
+    create_time BIGINT        NOT NULL COMMENT '创建时间（毫秒）',
+    expire_time BIGINT        NOT NULL COMMENT '过期时间（毫秒）',
+    update_time DATETIME      NOT NULL COMMENT '更新时间',
+    PRIMARY KEY (ticket),
+    KEY idx_scene_id (scene_id),
+    KEY idx_expire_time (expire_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '扫码登录会话';
+
+-- 登录会话变更表：集群模式下各节点写入会话快照，并按序号增量读取其他节点的变更
+CREATE TABLE IF NOT EXISTS login_session_event (
+    seq         BIGINT        NOT NULL AUTO_INCREMENT COMMENT '事件序号',
+    node_id     VARCHAR(64)   NOT NULL COMMENT '产生事件的节点ID',
+    ticket      VARCHAR(128)  NOT NULL COMMENT '二维码票据',
+    scene_id    VARCHAR(16)   NOT NULL COMMENT '场景ID',
+    qrcode_url  VARCHAR(255)  NULL COMMENT '二维码内容url',
+    open_id     VARCHAR(64)   NULL COMMENT '扫码用户openid',
+    create_time BIGINT        NOT NULL COMMENT '会话创建时间（毫秒）',
+    expire_time BIGINT        NOT NULL COMMENT '会话过期时间（毫秒）',
+    PRIMARY KEY (seq),
+    KEY idx_expire_time (expire_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '登录会话变更事件';
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.domain.LoginSessionEvent;
+import com.baidu.springai.mapper.LoginSessionEventMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 登录会话集群复制测试
+ * 事件表用内存实现代替，同步周期由测试直接调用sync推进；序号空洞模拟先分配序号、后提交的事务
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class LoginSessionReplicatorTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    private static final long GAP_RETRY_MILLIS = 5000L;
+
+    private final InMemoryEventMapper mapper = new InMemoryEventMapper();
+
+    private LoginSessionReplicator replicator;
+
+    private LoginSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        WeChatConfig config = new WeChatConfig();
+        config.setClusterEnabled(true);
+        config.setClusterNodeId("node-a");
+        // 自动同步周期设得足够长，测试中只由sync(now)推进
+        config.setClusterSyncIntervalMillis(TimeUnit.HOURS.toMillis(1));
+        config.setClusterGapRetryMillis(GAP_RETRY_MILLIS);
+        config.setClusterReplicaWaitMillis(200);
+        replicator = new LoginSessionReplicator();
+        ReflectionTestUtils.setField(replicator, "weChatConfig", config);
+        ReflectionTestUtils.setField(replicator, "loginSessionEventMapper", mapper);
+        LoginSessionRepository repository = new LoginSessionRepository();
+        ReflectionTestUtils.setField(repository, "weChatConfig", config);
+        store = new LoginSessionStore();
+        ReflectionTestUtils.setField(store, "weChatConfig", config);
+        ReflectionTestUtils.setField(store, "loginStatusNotifier", new LoginStatusNotifier());
+        ReflectionTestUtils.setField(store, "loginSessionRepository", repository);
+        ReflectionTestUtils.setField(store, "loginSessionReplicator", replicator);
+        store.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+        replicator.shutdown();
+    }
+
+    /**
+     * 空洞不阻塞之后的事件；较早的事务提交后在下一个同步周期补上
+     */
+    @Test
+    void eventsAfterAGapApplyImmediatelyAndTheGapIsAppliedOnceCommitted() {
+        long now = System.currentTimeMillis();
+        mapper.commit(event(1, "ticket-1", now));
+        mapper.commit(event(3, "ticket-3", now));
+
+        replicator.sync(now);
+        assertNotNull(store.get("ticket-1"));
+        assertNotNull(store.get("ticket-3"));
+        assertEquals(1, replicator.getStats().get("missingSeqs"));
+
+        mapper.commit(event(2, "ticket-2", now));
+        replicator.sync(now + 20);
+        assertNotNull(store.get("ticket-2"));
+        assertEquals(0, replicator.getStats().get("missingSeqs"));
+        assertEquals(1L, replicator.getStats().get("recoveredGapCount"));
+        assertEquals(0L, replicator.getStats().get("skippedGapCount"));
+    }
+
+    /**
+     * 已登录的快照晚于等待中的快照到达时，本地会话被标记为已登录；更早的等待中快照再到达也不会让状态倒退
+     */
+    @Test
+    void lateGapEventDoesNotRollBackState() {
+        long now = System.currentTimeMillis();
+        mapper.commit(event(1, "ticket-1", now));
+        LoginSessionEvent loggedIn = event(3, "ticket-1", now);
+        loggedIn.setOpenId("open-id");
+        mapper.commit(loggedIn);
+        replicator.sync(now);
+        assertEquals("open-id", store.get("ticket-1").getOpenId());
+
+        mapper.commit(event(2, "ticket-1", now));
+        replicator.sync(now + 20);
+        assertEquals("open-id", store.get("ticket-1").getOpenId());
+    }
+
+    @Test
+    void gapIsSkippedAfterTheRetryWindow() {
+        long now = System.currentTimeMillis();
+        mapper.commit(event(1, "ticket-1", now));
+        mapper.commit(event(3, "ticket-3", now));
+        replicator.sync(now);
+
+        replicator.sync(now + GAP_RETRY_MILLIS - 1);
+        assertEquals(1, replicator.getStats().get("missingSeqs"));
+        replicator.sync(now + GAP_RETRY_MILLIS);
+        assertEquals(0, replicator.getStats().get("missingSeqs"));
+        assertEquals(1L, replicator.getStats().get("skippedGapCount"));
+
+        // 放弃后才提交的事件不再补读
+        mapper.commit(event(2, "ticket-2", now));
+        replicator.sync(now + GAP_RETRY_MILLIS + 20);
+        assertNull(store.get("ticket-2"));
+    }
+
+    /**
+     * 其他节点刚创建的票据在本节点还没有时，不立即答复为不存在，复制到达后得到等待中的会话
+     */
+    @Test
+    void unknownTicketWaitsForReplication() throws Exception {
+        CompletableFuture<LoginSession> lookup = new CompletableFuture<>();
+        store.getOrAwaitReplica("ticket-new", lookup::complete);
+        assertFalse(lookup.isDone());
+
+        long now = System.currentTimeMillis();
+        mapper.commit(event(1, "ticket-new", now));
+        replicator.sync(now);
+
+        LoginSession session = lookup.get(1, TimeUnit.SECONDS);
+        assertNotNull(session);
+        assertFalse(session.isLoggedIn());
+        assertEquals(1L, store.getStats().get("replicaArrivedCount"));
+    }
+
+    @Test
+    void ticketThatNeverReplicatesIsReportedMissingAfterTheWait() throws Exception {
+        CompletableFuture<LoginSession> lookup = new CompletableFuture<>();
+        long start = System.nanoTime();
+        store.getOrAwaitReplica("ticket-unknown", lookup::complete);
+
+        assertNull(lookup.get(2, TimeUnit.SECONDS));
+        assertFalse(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200);
+    }
+
+    private static LoginSessionEvent event(long seq, String ticket, long now) {
+        return LoginSessionEvent.builder()
+                .seq(seq)
+                .nodeId("node-b")
+                .ticket(ticket)
+                .sceneId("scene-" + ticket)
+                .qrcodeUrl("http://weixin.qq.com/q/" + ticket)
+                .createTime(now)
+                .expireTime(now + 10 * MINUTE)
+                .build();
+    }
+
+    /**
+     * 内存中的事件表，commit即事务提交后对读取可见
+     */
+    private static final class InMemoryEventMapper implements LoginSessionEventMapper {
+        private final List<LoginSessionEvent> committed = new CopyOnWriteArrayList<>();
+
+        private void commit(LoginSessionEvent event) {
+            committed.add(event);
+        }
+
+        @Override
+        public int batchInsert(List<LoginSessionEvent> events) {
+            return events.size();
+        }
+
+        @Override
+        public List<LoginSessionEvent> selectAfter(long afterSeq, int limit) {
+            List<LoginSessionEvent> result = new ArrayList<>();
+            committed.stream()
+                    .filter(event -> event.getSeq() > afterSeq)
+                    .sorted(Comparator.comparing(LoginSessionEvent::getSeq))
+                    .limit(limit)
+                    .forEach(result::add);
+            return result;
+        }
+
+        @Override
+        public List<LoginSessionEvent> selectBySeqs(Collection<Long> seqs) {
+            return committed.stream().filter(event -> seqs.contains(event.getSeq())).toList();
+        }
+
+        @Override
+        public long selectMaxSeq() {
+            return committed.stream().mapToLong(LoginSessionEvent::getSeq).max().orElse(0);
+        }
+
+        @Override
+        public int deleteExpired(long before, int limit) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.LoginSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 登录会话存储的过期与淘汰测试
+ * 不启动时间轮线程，由测试通过advanceTo推进时间轮；持久化与集群复制保持默认关闭
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class LoginSessionStoreTest {
+
+    private static final long SECOND = 1000L;
+
+    private static final long MINUTE = 60 * SECOND;
+
+    private static final long HOUR = 60 * MINUTE;
+
+    /**
+     * 时间轮一圈约17分钟，以下有效期分别落在主时间轮第一圈、第二圈和溢出轮上
+     */
+    @Test
+    void expiresSessionsLongerThanOneRevolution() {
+        LoginSessionStore store = newStore(100);
+        long now = System.currentTimeMillis();
+        store.register("short", "1", null, now + 10 * SECOND);
+        store.register("second-round", "2", null, now + 25 * MINUTE);
+        store.register("overflow", "3", null, now + 3 * HOUR);
+
+        store.advanceTo(now + 12 * SECOND);
+        assertNull(store.get("short"));
+        assertNotNull(store.get("second-round"));
+        assertNotNull(store.get("overflow"));
+
+        store.advanceTo(now + 27 * MINUTE);
+        assertNull(store.get("second-round"));
+        assertNotNull(store.get("overflow"));
+        assertEquals("overflow", store.findTicketByScene("3"));
+
+        store.advanceTo(now + 3 * HOUR - 10 * SECOND);
+        assertNotNull(store.get("overflow"));
+
+        store.advanceTo(now + 3 * HOUR + 2 * SECOND);
+        assertNull(store.get("overflow"));
+        assertNull(store.findTicketByScene("3"));
+        assertEquals(0, store.size());
+        assertEquals(3L, store.getStats().get("expiredCount"));
+    }
+
+    @Test
+    void evictsInExpiryOrder() {
+        LoginSessionStore store = newStore(3);
+        long now = System.currentTimeMillis();
+        store.register("a", "1", null, now + 300 * SECOND);
+        store.register("b", "2", null, now + 100 * SECOND);
+        store.register("c", "3", null, now + 200 * SECOND);
+
+        store.register("d", "4", null, now + 400 * SECOND);
+        assertNull(store.get("b"));
+        assertNotNull(store.get("a"));
+        assertNotNull(store.get("c"));
+
+        store.register("e", "5", null, now + 500 * SECOND);
+        assertNull(store.get("c"));
+
+        store.register("f", "6", null, now + 50 * SECOND);
+        assertNull(store.get("a"));
+
+        // f比游标更早到期，登记后游标回退，下一次淘汰的就是f
+        store.register("g", "7", null, now + 600 * SECOND);
+        assertNull(store.get("f"));
+        assertNotNull(store.get("d"));
+        assertNotNull(store.get("e"));
+        assertEquals(3, store.size());
+        assertEquals(4L, store.getStats().get("evictedCount"));
+    }
+
+    /**
+     * 溢出轮上的会话按圈淘汰，主时间轮上的会话总是先于溢出轮上的会话被淘汰
+     */
+    @Test
+    void evictsOverflowSessionsByRound() {
+        LoginSessionStore store = newStore(2);
+        long now = System.currentTimeMillis();
+        store.register("six-hours", "1", null, now + 6 * HOUR);
+        store.register("three-hours", "2", null, now + 3 * HOUR);
+
+        store.register("five-minutes", "3", null, now + 5 * MINUTE);
+        assertNull(store.get("three-hours"));
+        assertNotNull(store.get("six-hours"));
+
+        store.register("one-hour", "4", null, now + HOUR);
+        assertNull(store.get("five-minutes"));
+        assertNotNull(store.get("six-hours"));
+        assertNotNull(store.get("one-hour"));
+    }
+
+    @Test
+    void concurrentRegistersStayWithinCapacity() throws Exception {
+        int capacity = 64;
+        int threads = 8;
+        int perThread = 2000;
+        LoginSessionStore store = newStore(capacity);
+        long now = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                int maxSeen = 0;
+                for (int i = 0; i < perThread; i++) {
+                    String id = thread + "-" + i;
+                    store.register(id, id, null, now + HOUR + (i % 600) * SECOND);
+                    maxSeen = Math.max(maxSeen, store.size());
+                }
+                return maxSeen;
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> future : futures) {
+            assertTrue(future.get(30, TimeUnit.SECONDS) <= capacity);
+        }
+        executor.shutdown();
+
+        Map<String, Object> stats = store.getStats();
+        assertEquals(capacity, store.size());
+        assertEquals(capacity, store.sceneIndexSize());
+        assertEquals((long) threads * perThread - capacity, stats.get("evictedCount"));
+    }
+
+    /**
+     * 启用持久化时，不存在的票据和场景ID短时间内只回源一次，格式不合法的直接不回源
+     */
+    @Test
+    void missesSkipTheDatabaseUntilTheMissCacheExpires() {
+        CountingRepository repository = new CountingRepository();
+        LoginSessionStore store = newStore(100, repository);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 10; i++) {
+            assertNull(store.get("gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL0unknown"));
+            assertNull(store.findTicketByScene("123456"));
+        }
+        assertEquals(2, repository.lookups.get());
+
+        assertNull(store.get("../../etc/passwd"));
+        assertNull(store.get("x".repeat(300)));
+        assertNull(store.findTicketByScene("1 OR 1=1"));
+        assertEquals(2, repository.lookups.get());
+        assertEquals(3L, store.getStats().get("malformedCount"));
+
+        // 同一票据登记后总是先命中内存
+        store.register("gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL0unknown", "123456", null, now + HOUR);
+        assertNotNull(store.get("gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL0unknown"));
+
+        store.advanceTo(now + 3 * SECOND);
+        assertNull(store.get("gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL0other"));
+        assertNull(store.get("gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL0other"));
+        assertEquals(3, repository.lookups.get());
+        assertEquals(1, store.getStats().get("missCacheSize"));
+    }
+
+    private static LoginSessionStore newStore(int capacity) {
+        return newStore(capacity, new LoginSessionRepository());
+    }
+
+    private static LoginSessionStore newStore(int capacity, LoginSessionRepository repository) {
+        WeChatConfig config = new WeChatConfig();
+        config.setSessionMaxSize(capacity);
+        config.setLoginWindowSeconds(0);
+        config.setQrcodeExpireSeconds(2592000);
+        ReflectionTestUtils.setField(repository, "weChatConfig", config);
+        LoginSessionReplicator replicator = new LoginSessionReplicator();
+        ReflectionTestUtils.setField(replicator, "weChatConfig", config);
+        LoginSessionStore store = new LoginSessionStore();
+        ReflectionTestUtils.setField(store, "weChatConfig", config);
+        ReflectionTestUtils.setField(store, "loginStatusNotifier", new LoginStatusNotifier());
+        ReflectionTestUtils.setField(store, "loginSessionRepository", repository);
+        ReflectionTestUtils.setField(store, "loginSessionReplicator", replicator);
+        return store;
+    }
+
+    /**
+     * 启用持久化、数据库中没有任何会话的仓库，只记录回源次数
+     */
+    private static final class CountingRepository extends LoginSessionRepository {
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void save(LoginSession session) {
+        }
+
+        @Override
+        public LoginSession load(String ticket) {
+            lookups.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public String findTicketByScene(String sceneId) {
+            lookups.incrementAndGet();
+            return null;
+        }
+    }
+}
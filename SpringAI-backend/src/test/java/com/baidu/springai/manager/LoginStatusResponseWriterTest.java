@@ -0,0 +1,92 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.domain.LoginSession;
+import com.baidu.springai.domain.LoginStatusResponse;
+import com.baidu.springai.resp.Response;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * 预编码登录状态JSON测试：与Jackson按non_empty序列化Response<LoginStatusResponse>的结果逐字节一致
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class LoginStatusResponseWriterTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    private static final long[] TIMESTAMPS = {0L, 7L, 1_760_716_800_123L, Long.MAX_VALUE};
+
+    /**
+     * 与application.properties中spring.jackson.default-property-inclusion=non_empty一致
+     */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .serializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .build();
+
+    private final LoginStatusResponseWriter writer = new LoginStatusResponseWriter();
+
+    LoginStatusResponseWriterTest() {
+        ReflectionTestUtils.setField(writer, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void waitingMatchesJackson() throws Exception {
+        assertSameAsJackson(newSession(), "等待扫码", LoginStatusResponse.builder().status("waiting").build());
+    }
+
+    @Test
+    void expiredMatchesJackson() throws Exception {
+        assertSameAsJackson(null, "二维码已过期", LoginStatusResponse.builder().status("expired").build());
+    }
+
+    @Test
+    void successMatchesJackson() throws Exception {
+        assertSuccessSameAsJackson("oAbC-123_xyzOpenId");
+    }
+
+    /**
+     * 需要转义的openId：引号、反斜杠、控制字符、DEL、非ASCII和代理对
+     */
+    @Test
+    void openIdThatNeedsEscapingMatchesJackson() throws Exception {
+        assertSuccessSameAsJackson("o\"quoted\\slash");
+        assertSuccessSameAsJackson("tab\tnewline\ncontrol\u0001");
+        assertSuccessSameAsJackson("del\u007F");
+        assertSuccessSameAsJackson("用户-é-😀");
+        assertSuccessSameAsJackson("</script>");
+    }
+
+    private void assertSuccessSameAsJackson(String openId) throws Exception {
+        LoginSession session = newSession();
+        session.setOpenId(openId);
+        LoginStatusResponse expected = LoginStatusResponse.builder()
+                .status("success")
+                .userInfo(LoginStatusResponse.UserInfo.builder().openId(openId).build())
+                .build();
+        assertSameAsJackson(session, "登录成功", expected);
+    }
+
+    private void assertSameAsJackson(LoginSession session, String message, LoginStatusResponse data) throws Exception {
+        for (long timestamp : TIMESTAMPS) {
+            Response<LoginStatusResponse> response = Response.success(message, data);
+            response.setTimestamp(timestamp);
+            byte[] expected = objectMapper.writeValueAsBytes(response);
+            assertArrayEquals(expected, writer.toJson(session, timestamp),
+                    () -> new String(expected, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static LoginSession newSession() {
+        long now = System.currentTimeMillis();
+        return new LoginSession("ticket", "scene", "http://weixin.qq.com/q/ticket", now, now + 10 * MINUTE);
+    }
+}
@@ -0,0 +1,227 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * SSE推送测试：不读数据的客户端不能拖住其他连接的推送
+ * 启动真实的Tomcat，卡住的客户端只建立连接、从不读取响应，服务端写满socket缓冲区后阻塞在写操作上
+ *
+ * @author baidu
+ * @version 1.0
+ */
+@SpringBootTest(classes = LoginStatusStreamManagerTest.StreamApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "server.tomcat.connection-timeout=3s",
+                "wechat.sse-sender-threads=2",
+                "wechat.sse-heartbeat-seconds=60"
+        })
+class LoginStatusStreamManagerTest {
+
+    private static final long WRITE_TIMEOUT_MILLIS = 3000;
+
+    /**
+     * 每个卡住的连接排队的事件总量远大于回环socket的收发缓冲区
+     */
+    private static final String LARGE_EVENT = "x".repeat(256 * 1024);
+
+    private static final int LARGE_EVENTS = 64;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LoginStatusStreamManager manager;
+
+    /**
+     * 已开始异步处理的连接：此时SseEmitter已初始化，之后的发送直接写socket，而不是先缓存到初始化时由请求线程写出
+     */
+    private static final Map<String, SseEmitter> STARTED_EMITTERS = new ConcurrentHashMap<>();
+
+    /**
+     * 一个卡住的连接排了很多事件，也只占用一个发送线程，另一个线程照常推送
+     */
+    @Test
+    void stuckStreamOccupiesOnlyOneSender() throws Exception {
+        try (Socket stuck = connectWithoutReading("stuck-a")) {
+            SseEmitter stuckEmitter = awaitEmitter("stuck-a");
+            for (int i = 0; i < LARGE_EVENTS; i++) {
+                manager.sendStatus(stuckEmitter, LARGE_EVENT, false);
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+
+            long elapsed = pushToHealthyClient("healthy-a");
+            assertTrue(elapsed < WRITE_TIMEOUT_MILLIS / 2, "推送被卡住的连接拖延了" + elapsed + "ms");
+        }
+    }
+
+    /**
+     * 卡住的连接数达到发送线程数时，写超时后连接被放弃、线程释放，其他连接的推送在写超时内恢复
+     */
+    @Test
+    void writeTimeoutReleasesSendersHeldByClientsThatNeverRead() throws Exception {
+        long failuresBefore = (long) manager.getStats().get("sendFailureCount");
+        try (Socket first = connectWithoutReading("stuck-b1"); Socket second = connectWithoutReading("stuck-b2")) {
+            for (String id : new String[]{"stuck-b1", "stuck-b2"}) {
+                SseEmitter emitter = awaitEmitter(id);
+                for (int i = 0; i < LARGE_EVENTS; i++) {
+                    manager.sendStatus(emitter, LARGE_EVENT, false);
+                }
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+
+            long elapsed = pushToHealthyClient("healthy-b");
+            assertTrue(elapsed >= WRITE_TIMEOUT_MILLIS / 2 && elapsed < WRITE_TIMEOUT_MILLIS * 2,
+                    "推送应在写超时释放发送线程后恢复: " + elapsed + "ms");
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WRITE_TIMEOUT_MILLIS * 2);
+            while ((long) manager.getStats().get("sendFailureCount") < failuresBefore + 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            assertEquals(failuresBefore + 2, manager.getStats().get("sendFailureCount"));
+        }
+    }
+
+    /**
+     * 正常读取的客户端：推送一个事件并结束连接
+     *
+     * @return 从提交推送到客户端收到事件的毫秒数
+     */
+    private long pushToHealthyClient(String id) throws Exception {
+        try (Socket socket = connect(id)) {
+            SseEmitter emitter = awaitEmitter(id);
+            long start = System.nanoTime();
+            manager.sendStatus(emitter, "hello-" + id, true);
+            socket.setSoTimeout((int) (WRITE_TIMEOUT_MILLIS * 3));
+            InputStream in = socket.getInputStream();
+            StringBuilder received = new StringBuilder();
+            byte[] buffer = new byte[4096];
+            // 响应是分块传输的，data字段名和值可能在不同的块里
+            while (!received.toString().contains("hello-" + id)) {
+                int n;
+                try {
+                    n = in.read(buffer);
+                } catch (SocketTimeoutException e) {
+                    fail("客户端没有收到推送: " + received);
+                    return -1;
+                }
+                if (n < 0) {
+                    fail("连接在收到推送前关闭: " + received);
+                }
+                received.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 只发请求、从不读取的客户端，接收缓冲区尽量小
+     */
+    private Socket connectWithoutReading(String id) throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(1024);
+        socket.connect(new InetSocketAddress("127.0.0.1", port));
+        sendRequest(socket, id);
+        return socket;
+    }
+
+    private Socket connect(String id) throws IOException {
+        Socket socket = new Socket("127.0.0.1", port);
+        sendRequest(socket, id);
+        return socket;
+    }
+
+    private static void sendRequest(Socket socket, String id) throws IOException {
+        String request = "GET /stream?id=" + id + " HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n";
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+    }
+
+    private SseEmitter awaitEmitter(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            SseEmitter emitter = STARTED_EMITTERS.get(id);
+            if (emitter != null) {
+                return emitter;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return fail("SSE连接未建立: " + id);
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class
+    })
+    @EnableConfigurationProperties(WeChatConfig.class)
+    @Import({LoginStatusStreamManager.class, StreamController.class})
+    static class StreamApplication implements WebMvcConfigurer {
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new AsyncHandlerInterceptor() {
+                @Override
+                public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                           Object handler) {
+                    SseEmitter emitter = (SseEmitter) request.getAttribute(StreamController.EMITTER_ATTRIBUTE);
+                    STARTED_EMITTERS.put(request.getParameter("id"), emitter);
+                }
+            });
+        }
+    }
+
+    @RestController
+    static class StreamController {
+
+        private static final String EMITTER_ATTRIBUTE = StreamController.class.getName() + ".emitter";
+
+        @Autowired
+        private LoginStatusStreamManager manager;
+
+        @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        public SseEmitter stream(HttpServletRequest request) {
+            SseEmitter emitter = manager.open(TimeUnit.MINUTES.toMillis(1), () -> { });
+            request.setAttribute(EMITTER_ATTRIBUTE, emitter);
+            return emitter;
+        }
+    }
+}
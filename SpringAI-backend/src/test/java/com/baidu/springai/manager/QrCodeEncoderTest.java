@@ -0,0 +1,92 @@
+package com.baidu.springai.manager;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 二维码编码测试：编码结果必须与zxing的Encoder.encode逐模块一致，包括按罚分择优选出的掩码
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class QrCodeEncoderTest {
+
+    private static final String TICKET_URL = "http://weixin.qq.com/q/02kxQ8gXKEc0f1wyqcNBcU";
+
+    private static final String PRINTABLE =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 $%*+-./:=?&_~#@!";
+
+    @Test
+    void ticketUrlMatchesZxingForEveryLevelAndMask() throws WriterException {
+        QrCodeEncoder encoder = new QrCodeEncoder();
+        for (ErrorCorrectionLevel level : ErrorCorrectionLevel.values()) {
+            for (int mask = -1; mask < 8; mask++) {
+                assertSameAsZxing(encoder, TICKET_URL, level, mask);
+            }
+        }
+    }
+
+    /**
+     * 随机长度覆盖版本1到40（含有版本信息、多个纠错块分组的版本），编码器实例复用以覆盖缓冲区复用
+     */
+    @Test
+    void randomByteModeContentMatchesZxing() throws WriterException {
+        QrCodeEncoder encoder = new QrCodeEncoder();
+        Random random = new Random(20261017L);
+        ErrorCorrectionLevel[] levels = ErrorCorrectionLevel.values();
+        for (int i = 0; i < 300; i++) {
+            int length = i < 200 ? 1 + random.nextInt(120) : 1 + random.nextInt(1200);
+            StringBuilder content = new StringBuilder("x");
+            for (int j = 1; j < length; j++) {
+                content.append(PRINTABLE.charAt(random.nextInt(PRINTABLE.length())));
+            }
+            ErrorCorrectionLevel level = levels[random.nextInt(levels.length)];
+            int mask = random.nextInt(3) == 0 ? random.nextInt(8) : -1;
+            assertSameAsZxing(encoder, content.toString(), level, mask);
+        }
+    }
+
+    /**
+     * 数字、字母数字模式和非ASCII内容交给zxing编码
+     */
+    @Test
+    void otherModesFallBackToZxing() throws WriterException {
+        QrCodeEncoder encoder = new QrCodeEncoder();
+        assertSameAsZxing(encoder, "0123456789012345", ErrorCorrectionLevel.M, -1);
+        assertSameAsZxing(encoder, "HTTP://WEIXIN.QQ.COM/Q/ABC", ErrorCorrectionLevel.L, -1);
+        assertSameAsZxing(encoder, "扫码登录 " + TICKET_URL, ErrorCorrectionLevel.H, 3);
+    }
+
+    @Test
+    void contentBeyondCapacityIsRejected() {
+        QrCodeEncoder encoder = new QrCodeEncoder();
+        String content = "x".repeat(3000);
+        assertThrows(WriterException.class, () -> encoder.encode(content, ErrorCorrectionLevel.H, -1));
+    }
+
+    private static void assertSameAsZxing(QrCodeEncoder encoder, String content, ErrorCorrectionLevel level, int mask)
+            throws WriterException {
+        Map<EncodeHintType, ?> hints = mask >= 0 ? Map.of(EncodeHintType.QR_MASK_PATTERN, mask) : null;
+        ByteMatrix expected = Encoder.encode(content, level, hints).getMatrix();
+        encoder.encode(content, level, mask);
+        int size = expected.getWidth();
+        assertEquals(size, encoder.size(), content);
+        byte[] modules = encoder.modules();
+        for (int y = 0; y < size; y++) {
+            byte[] row = new byte[size];
+            System.arraycopy(modules, y * size, row, 0, size);
+            assertArrayEquals(expected.getArray()[y], row, () -> level + " mask " + mask + ": " + content);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.domain.QrCodeImage;
+import com.baidu.springai.resp.Response;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 二维码响应写出测试：手工拼出的信封与Jackson序列化Response的结果逐字节一致
+ * 写出器使用当前时间作为时间戳，比较时从输出中取回时间戳填入期望的Response
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class QrCodeResponseWriterTest {
+
+    private static final String TICKET =
+            "gQH47joAAAAAAAAAASxodHRwOi8vd2VpeGluLnFxLmNvbS9xL2taZ2Z3TVRtNzJXV1Brb3ZhYmJJAAIEZ23sUwMEmm3sUw==";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .serializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .build();
+
+    private final QrCodeResponseWriter writer = new QrCodeResponseWriter();
+
+    private final QrCodeImage png = new QrCodeImage(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, 1, 2, (byte) 0xFF},
+            QrCodeRenderer.PNG_CONTENT_TYPE);
+
+    QrCodeResponseWriterTest() {
+        ReflectionTestUtils.setField(writer, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void qrCodeResponseMatchesJackson() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.writeQrCodeResponse(response, "获取二维码成功", TICKET, png);
+
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("qrCodeId", TICKET);
+        data.put("qrCodeImage", dataUri(png));
+        assertSameAsJackson(response, "获取二维码成功", data);
+    }
+
+    @Test
+    void base64ResponseMatchesJackson() throws Exception {
+        QrCodeImage svg = new QrCodeImage("<svg/>".getBytes(StandardCharsets.US_ASCII), QrCodeRenderer.SVG_CONTENT_TYPE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.writeBase64Response(response, "获取二维码图片成功", svg);
+
+        assertSameAsJackson(response, "获取二维码图片成功", dataUri(svg));
+    }
+
+    /**
+     * 需要转义的消息和票据：引号、反斜杠、控制字符和代理对
+     */
+    @Test
+    void escapedMessageAndTicketMatchJackson() throws Exception {
+        String message = "\"引号\"\\反斜杠\t控制\u0001😀";
+        String ticket = "t\"i\\c/k\ne😀t";
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.writeQrCodeResponse(response, message, ticket, png);
+
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("qrCodeId", ticket);
+        data.put("qrCodeImage", dataUri(png));
+        assertSameAsJackson(response, message, data);
+    }
+
+    private void assertSameAsJackson(MockHttpServletResponse response, String message, Object data) throws Exception {
+        byte[] actual = response.getContentAsByteArray();
+        assertEquals(actual.length, response.getContentLength());
+        Response<Object> expected = Response.success(message, data);
+        expected.setTimestamp(objectMapper.readTree(actual).get("timestamp").asLong());
+        byte[] expectedBytes = objectMapper.writeValueAsBytes(expected);
+        assertArrayEquals(expectedBytes, actual, () -> new String(expectedBytes, StandardCharsets.UTF_8));
+    }
+
+    private static String dataUri(QrCodeImage image) {
+        return "data:" + image.getContentType() + ";base64," + Base64.getEncoder().encodeToString(image.getBytes());
+    }
+}
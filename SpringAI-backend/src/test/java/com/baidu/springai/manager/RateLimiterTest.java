@@ -0,0 +1,175 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.exception.RateLimitException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 二维码创建限流测试：全局每日配额与每秒平滑速率分开判定，X-Forwarded-For按可信代理层数取地址
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class RateLimiterTest {
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ZoneOffset BEIJING = ZoneOffset.ofHours(8);
+
+    /**
+     * 默认配置下（每日100000次、每秒200次、突发200次），一波登录高峰在突发量内全部放行，
+     * 被拒绝的请求只需等到下一个速率间隔，而不是按每日配额折算成每秒1次多
+     */
+    @Test
+    void spikeIsLimitedOnlyByThePerSecondRate() {
+        RateLimiter limiter = newLimiter(new WeChatConfig());
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = 0;
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(0, limiter.tryAcquireQuota(1, nowMillis, nowNanos));
+        }
+        long waitNanos = limiter.tryAcquireQuota(1, nowMillis, nowNanos);
+        assertTrue(waitNanos > 0 && waitNanos <= TimeUnit.MILLISECONDS.toNanos(5));
+
+        // 一秒后速率桶又补满，继续放行一个突发量
+        for (int i = 0; i < 200; i++) {
+            assertEquals(0, limiter.tryAcquireQuota(1, nowMillis, nowNanos + SECOND_NANOS));
+        }
+        assertEquals(400L, limiter.getStats().get("globalQuotaUsedToday"));
+    }
+
+    @Test
+    void spikeWithoutSmoothingIsLimitedOnlyByTheDailyQuota() {
+        WeChatConfig config = new WeChatConfig();
+        config.setRateLimitGlobalDailyQuota(5000);
+        config.setRateLimitGlobalPermitsPerSecond(0);
+        RateLimiter limiter = newLimiter(config);
+        long nowMillis = millis(2026, 10, 17, 12, 0);
+
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(0, limiter.tryAcquireQuota(1, nowMillis, 0));
+        }
+        assertTrue(limiter.tryAcquireQuota(1, nowMillis, 0) > 0);
+    }
+
+    /**
+     * 配额用完后等待时间为到北京时间次日零点，零点后重新计数
+     */
+    @Test
+    void dailyQuotaResetsAtBeijingMidnight() {
+        WeChatConfig config = new WeChatConfig();
+        config.setRateLimitGlobalDailyQuota(3);
+        config.setRateLimitGlobalPermitsPerSecond(0);
+        RateLimiter limiter = newLimiter(config);
+        long nowMillis = millis(2026, 10, 17, 23, 30);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquireQuota(1, nowMillis, 0));
+        }
+        assertEquals(TimeUnit.MINUTES.toNanos(30), limiter.tryAcquireQuota(1, nowMillis, 0));
+
+        long nextDay = millis(2026, 10, 18, 0, 0);
+        assertEquals(0, limiter.tryAcquireQuota(1, nextDay, 0));
+        assertEquals(0, limiter.tryAcquireQuota(2, nextDay, 0));
+        assertTrue(limiter.tryAcquireQuota(1, nextDay, 0) > 0);
+    }
+
+    @Test
+    void rateRejectionDoesNotConsumeDailyQuota() {
+        WeChatConfig config = new WeChatConfig();
+        config.setRateLimitGlobalDailyQuota(2);
+        config.setRateLimitGlobalPermitsPerSecond(1);
+        config.setRateLimitGlobalBurst(1);
+        RateLimiter limiter = newLimiter(config);
+        long nowMillis = System.currentTimeMillis();
+
+        assertEquals(0, limiter.tryAcquireQuota(1, nowMillis, 0));
+        assertTrue(limiter.tryAcquireQuota(1, nowMillis, 0) > 0);
+        assertEquals(1L, limiter.getStats().get("globalQuotaUsedToday"));
+
+        assertEquals(0, limiter.tryAcquireQuota(1, nowMillis, SECOND_NANOS));
+        assertEquals(2L, limiter.getStats().get("globalQuotaUsedToday"));
+    }
+
+    /**
+     * 客户端每次改写最左边的地址也绕不过限流，代理追加的地址才是限流键
+     */
+    @Test
+    void forwardedForUsesTheAddressAppendedByTheTrustedProxy() {
+        WeChatConfig config = clientRuleConfig();
+        config.setRateLimitTrustForwardedFor(true);
+        RateLimiter limiter = newLimiter(config);
+
+        assertDoesNotThrow(() -> limiter.acquire(RateLimiter.QRCODE, request("1.1.1.1, 203.0.113.7"), 1));
+        assertThrows(RateLimitException.class,
+                () -> limiter.acquire(RateLimiter.QRCODE, request("2.2.2.2, 203.0.113.7"), 1));
+        assertThrows(RateLimitException.class,
+                () -> limiter.acquire(RateLimiter.QRCODE, request("203.0.113.7"), 1));
+        assertDoesNotThrow(() -> limiter.acquire(RateLimiter.QRCODE, request("1.1.1.1, 203.0.113.8"), 1));
+    }
+
+    @Test
+    void forwardedForSkipsOneEntryPerTrustedProxyHop() {
+        WeChatConfig config = clientRuleConfig();
+        config.setRateLimitTrustForwardedFor(true);
+        config.setRateLimitTrustedProxyHops(2);
+        RateLimiter limiter = newLimiter(config);
+
+        assertDoesNotThrow(() -> limiter.acquire(RateLimiter.QRCODE, request("9.9.9.9, 203.0.113.7, 10.0.0.1"), 1));
+        assertThrows(RateLimitException.class,
+                () -> limiter.acquire(RateLimiter.QRCODE, request("8.8.8.8,203.0.113.7, 10.0.0.2"), 1));
+        assertDoesNotThrow(() -> limiter.acquire(RateLimiter.QRCODE, request("9.9.9.9, 203.0.113.9, 10.0.0.1"), 1));
+        // 只有一个地址时取最左边的一个
+        assertDoesNotThrow(() -> limiter.acquire(RateLimiter.QRCODE, request("198.51.100.1"), 1));
+        assertThrows(RateLimitException.class,
+                () -> limiter.acquire(RateLimiter.QRCODE, request("198.51.100.1"), 1));
+    }
+
+    @Test
+    void forwardedForIsIgnoredUnlessTrusted() {
+        RateLimiter limiter = newLimiter(clientRuleConfig());
+
+        assertDoesNotThrow(() -> limiter.acquire(RateLimiter.QRCODE, request("1.1.1.1"), 1));
+        assertThrows(RateLimitException.class,
+                () -> limiter.acquire(RateLimiter.QRCODE, request("2.2.2.2"), 1));
+    }
+
+    private static WeChatConfig clientRuleConfig() {
+        WeChatConfig config = new WeChatConfig();
+        WeChatConfig.RateLimitRule rule = new WeChatConfig.RateLimitRule();
+        rule.setPermitsPerMinute(1);
+        rule.setBurst(1);
+        config.getRateLimitRules().put(RateLimiter.QRCODE, rule);
+        return config;
+    }
+
+    private static RateLimiter newLimiter(WeChatConfig config) {
+        RateLimiter limiter = new RateLimiter();
+        ReflectionTestUtils.setField(limiter, "weChatConfig", config);
+        limiter.init();
+        return limiter;
+    }
+
+    private static MockHttpServletRequest request(String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toInstant(BEIJING).toEpochMilli();
+    }
+}
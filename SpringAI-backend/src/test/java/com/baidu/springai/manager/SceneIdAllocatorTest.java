@@ -0,0 +1,76 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.config.WeChatConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 场景ID分配器测试：启动后立即可分配，号段用尽时等待预租而不是报错
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class SceneIdAllocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SceneIdAllocator allocator;
+
+    @AfterEach
+    void tearDown() {
+        allocator.shutdown();
+    }
+
+    @Test
+    void allocatesRightAfterInit() {
+        allocator = newAllocator(1000);
+        assertEquals(1, allocator.allocate());
+        assertEquals(1L, allocator.getStats().get("leaseCount"));
+    }
+
+    /**
+     * 号段很小时预租跟不上分配，请求线程等待新号段；分配出的ID不重复
+     */
+    @Test
+    void waitsForTheNextLeaseWhenTheRangeRunsOut() throws Exception {
+        allocator = newAllocator(2);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 250; i++) {
+                    ids.add(allocator.allocate());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, ids.size());
+        assertEquals(0L, allocator.getStats().get("exhaustedCount"));
+        assertTrue((long) allocator.getStats().get("leaseCount") >= 500);
+    }
+
+    private SceneIdAllocator newAllocator(int leaseSize) {
+        WeChatConfig config = new WeChatConfig();
+        config.setSceneIdStore(WeChatConstants.SCENE_ID_STORE_FILE);
+        config.setSceneIdLeaseFile(tempDir.resolve("scene-id.lease").toString());
+        config.setSceneIdLeaseSize(leaseSize);
+        SceneIdAllocator allocator = new SceneIdAllocator();
+        ReflectionTestUtils.setField(allocator, "weChatConfig", config);
+        allocator.init();
+        return allocator;
+    }
+}
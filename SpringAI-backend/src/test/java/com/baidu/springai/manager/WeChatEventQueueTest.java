@@ -0,0 +1,200 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.BlockingIoExecutors;
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.WeChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 微信事件异步处理队列测试：环形队列的容量、顺序和多生产者多消费者下的不丢不重，以及队列满时改为同步处理
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class WeChatEventQueueTest {
+
+    private WeChatEventQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void capacityRoundsUpToAPowerOfTwo() {
+        assertEquals(2, new WeChatEventQueue.RingBuffer<Integer>(1).capacity());
+        assertEquals(8, new WeChatEventQueue.RingBuffer<Integer>(8).capacity());
+        assertEquals(16, new WeChatEventQueue.RingBuffer<Integer>(9).capacity());
+    }
+
+    /**
+     * 单线程下先进先出；满时拒绝，取出一个后又能放入；位置多次绕回后槽位序号仍正确
+     */
+    @Test
+    void fifoUntilFullAcrossWrapAround() {
+        WeChatEventQueue.RingBuffer<Integer> ring = new WeChatEventQueue.RingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 1000; round++) {
+            while (ring.offer(next)) {
+                next++;
+            }
+            assertEquals(expected + 4, next);
+            assertEquals(expected, ring.poll());
+            expected++;
+            assertTrue(ring.offer(next++));
+            assertFalse(ring.offer(-1));
+            while (expected < next) {
+                assertEquals(expected++, ring.poll());
+            }
+            assertNull(ring.poll());
+        }
+    }
+
+    /**
+     * 多个生产者和消费者并发读写小容量队列：每个元素恰好被取出一次，同一生产者的元素按放入顺序被取出
+     */
+    @Test
+    void concurrentProducersAndConsumersSeeEveryElementOnce() throws Exception {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 100_000;
+        WeChatEventQueue.RingBuffer<Integer> ring = new WeChatEventQueue.RingBuffer<>(64);
+        AtomicIntegerArray seen = new AtomicIntegerArray(producers * perProducer);
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                int[] lastByProducer = new int[producers];
+                Arrays.fill(lastByProducer, -1);
+                while (consumed.get() < producers * perProducer) {
+                    Integer value = ring.poll();
+                    if (value == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    seen.incrementAndGet(value);
+                    consumed.incrementAndGet();
+                    int producer = value / perProducer;
+                    if (value <= lastByProducer[producer]) {
+                        outOfOrder.set(true);
+                    }
+                    lastByProducer[producer] = value;
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(thread.isAlive(), "队列读写未在时限内完成");
+        }
+
+        assertEquals(producers * perProducer, consumed.get());
+        for (int i = 0; i < seen.length(); i++) {
+            assertEquals(1, seen.get(i), "元素" + i);
+        }
+        assertFalse(outOfOrder.get(), "同一生产者的元素被乱序取出");
+        assertNull(ring.poll());
+    }
+
+    /**
+     * 工作线程都在处理、队列已满时入队失败，调用方同步处理；处理异常不影响工作线程继续消费
+     */
+    @Test
+    void fullQueueFallsBackAndWorkersSurviveFailures() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger handled = new AtomicInteger();
+        queue = newQueue(2, 1);
+        queue.start(message -> {
+            await(release);
+            handled.incrementAndGet();
+            if ("fail".equals(message.getEvent())) {
+                throw new IllegalStateException("处理失败");
+            }
+        });
+
+        // 一个事件在工作线程中处理，两个在队列中
+        assertTrue(queue.offer(event("fail")));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while ((int) queue.getStats().get("depth") > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertTrue(queue.offer(event("SCAN")));
+        assertTrue(queue.offer(event("SCAN")));
+        assertFalse(queue.offer(event("SCAN")));
+        assertEquals(1L, queue.getStats().get("syncFallbackCount"));
+
+        release.countDown();
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) queue.getStats().get("processedCount") < 3 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(3, handled.get());
+        assertEquals(3L, queue.getStats().get("enqueuedCount"));
+        assertEquals(1L, queue.getStats().get("failureCount"));
+        assertTrue(queue.offer(event("SCAN")));
+    }
+
+    @Test
+    void disabledQueueRejectsEverything() {
+        queue = new WeChatEventQueue();
+        WeChatConfig config = new WeChatConfig();
+        config.setWebhookAsyncEnabled(false);
+        ReflectionTestUtils.setField(queue, "weChatConfig", config);
+        queue.start(message -> { });
+        assertFalse(queue.offer(event("SCAN")));
+        assertEquals(false, queue.getStats().get("enabled"));
+    }
+
+    private static WeChatEventQueue newQueue(int capacity, int workers) {
+        WeChatConfig config = new WeChatConfig();
+        config.setWebhookAsyncEnabled(true);
+        config.setWebhookQueueCapacity(capacity);
+        config.setWebhookWorkers(workers);
+        WeChatEventQueue queue = new WeChatEventQueue();
+        ReflectionTestUtils.setField(queue, "weChatConfig", config);
+        ReflectionTestUtils.setField(queue, "blockingIoExecutors", new BlockingIoExecutors(false));
+        return queue;
+    }
+
+    private static WeChatMessage event(String event) {
+        return WeChatMessage.builder().msgType("event").event(event).fromUserName("user").build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.baidu.springai.manager;
+
+import com.baidu.springai.config.WeChatConfig;
+import com.baidu.springai.domain.WeChatMessage;
+import com.baidu.springai.domain.WeChatReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 微信消息去重测试：消息指纹的区分度，以及重推在首次处理完成前到达时的应答
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class WeChatMessageDeduplicatorTest {
+
+    private static final long IN_FLIGHT_WAIT_MILLIS = 500L;
+
+    private final WeChatConfig config = new WeChatConfig();
+
+    private final AtomicInteger handled = new AtomicInteger();
+
+    private WeChatMessageDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        config.setWebhookDedupCapacity(1024);
+        config.setWebhookDedupInFlightWaitMillis(IN_FLIGHT_WAIT_MILLIS);
+        deduplicator = new WeChatMessageDeduplicator();
+        ReflectionTestUtils.setField(deduplicator, "weChatConfig", config);
+        deduplicator.init();
+    }
+
+    @Test
+    void sameMsgIdIsADuplicate() {
+        WeChatReply first = deduplicator.process(text("1001", "hello"), this::reply);
+        WeChatReply retried = deduplicator.process(text("1001", "hello"), this::reply);
+        assertSame(first, retried);
+        assertEquals(1, handled.get());
+
+        deduplicator.process(text("1002", "hello"), this::reply);
+        assertEquals(2, handled.get());
+    }
+
+    /**
+     * CreateTime只精确到秒：同一用户同一秒内的不同事件不能被当作重推
+     */
+    @Test
+    void eventsInTheSameSecondAreDistinguishedByTypeEventAndKey() {
+        deduplicator.process(event("event", "SCAN", "100123"), this::reply);
+        deduplicator.process(event("event", "LOCATION", null), this::reply);
+        deduplicator.process(event("event", "SCAN", "100124"), this::reply);
+        deduplicator.process(event("event", "subscribe", "qrscene_100123"), this::reply);
+        assertEquals(4, handled.get());
+
+        deduplicator.process(event("event", "SCAN", "100123"), this::reply);
+        deduplicator.process(event("event", "LOCATION", null), this::reply);
+        assertEquals(4, handled.get());
+    }
+
+    /**
+     * 相邻字段之间有分隔，字段值拼接相同的两个事件指纹不同
+     */
+    @Test
+    void fieldBoundariesAreSeparated() {
+        deduplicator.process(event("event", "SCAN", "1"), this::reply);
+        deduplicator.process(event("event", "SCAN1", ""), this::reply);
+        assertEquals(2, handled.get());
+    }
+
+    @Test
+    void messagesWithoutIdentifiersAreNeverDeduplicated() {
+        WeChatMessage anonymous = WeChatMessage.builder().msgType("text").content("hi").build();
+        deduplicator.process(anonymous, this::reply);
+        deduplicator.process(anonymous, this::reply);
+        assertEquals(2, handled.get());
+        assertEquals(0L, deduplicator.getStats().get("checkedCount"));
+    }
+
+    /**
+     * 首次处理超过微信的5秒超时、重推已到达：重推等待首次处理并以同一回复应答
+     */
+    @Test
+    void retryDuringProcessingGetsTheFirstReply() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WeChatReply slowReply = WeChatReply.text("user", "mp", "首次处理的回复");
+        CompletableFuture<WeChatReply> first = CompletableFuture.supplyAsync(() ->
+                deduplicator.process(text("2001", "slow"), message -> {
+                    started.countDown();
+                    await(release);
+                    return slowReply;
+                }));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        CompletableFuture<WeChatReply> retry = CompletableFuture.supplyAsync(() ->
+                deduplicator.process(text("2001", "slow"), this::reply));
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(retry.isDone());
+        release.countDown();
+
+        assertSame(slowReply, retry.get(1, TimeUnit.SECONDS));
+        assertSame(slowReply, first.get(1, TimeUnit.SECONDS));
+        assertEquals(0, handled.get());
+        assertEquals(1L, deduplicator.getStats().get("inFlightDuplicateCount"));
+    }
+
+    @Test
+    void retryAnswersEmptyWhenTheFirstProcessingOutlastsTheWait() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<WeChatReply> first = CompletableFuture.supplyAsync(() ->
+                deduplicator.process(text("3001", "stuck"), message -> {
+                    started.countDown();
+                    await(release);
+                    return reply(message);
+                }));
+        started.await(1, TimeUnit.SECONDS);
+
+        long start = System.nanoTime();
+        WeChatReply retried = deduplicator.process(text("3001", "stuck"), this::reply);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+        first.get(1, TimeUnit.SECONDS);
+
+        assertEquals("success", retried.getRaw());
+        assertFalse(waited < IN_FLIGHT_WAIT_MILLIS);
+        assertEquals(1L, deduplicator.getStats().get("inFlightTimeoutCount"));
+    }
+
+    /**
+     * 首次处理失败时记录被清除，正在等待的重推重新处理
+     */
+    @Test
+    void retryReprocessesWhenTheFirstProcessingFails() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<WeChatReply> first = CompletableFuture.supplyAsync(() ->
+                deduplicator.process(text("4001", "fails"), message -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("处理失败");
+                }));
+        started.await(1, TimeUnit.SECONDS);
+
+        CompletableFuture<WeChatReply> retry = CompletableFuture.supplyAsync(() ->
+                deduplicator.process(text("4001", "fails"), this::reply));
+        TimeUnit.MILLISECONDS.sleep(100);
+        release.countDown();
+
+        assertEquals(WeChatReply.Type.TEXT, retry.get(1, TimeUnit.SECONDS).getType());
+        assertEquals(1, handled.get());
+        assertThrows(Exception.class, () -> first.get(1, TimeUnit.SECONDS));
+    }
+
+    private WeChatReply reply(WeChatMessage message) {
+        handled.incrementAndGet();
+        return WeChatReply.text(message.getFromUserName(), message.getToUserName(), "收到");
+    }
+
+    private static WeChatMessage text(String msgId, String content) {
+        return WeChatMessage.builder()
+                .toUserName("mp")
+                .fromUserName("user")
+                .createTime("1760716800")
+                .msgType("text")
+                .content(content)
+                .msgId(msgId)
+                .build();
+    }
+
+    private static WeChatMessage event(String msgType, String event, String eventKey) {
+        return WeChatMessage.builder()
+                .toUserName("mp")
+                .fromUserName("user")
+                .createTime("1760716800")
+                .msgType(msgType)
+                .event(event)
+                .eventKey(eventKey)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.baidu.springai.utils;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 微信签名验证测试：以commons-codec对排序拼接后的参数计算的SHA-1为准
+ *
+ * @author baidu
+ * @version 1.0
+ */
+class SignatureUtilTest {
+
+    private static final String TOKEN = "springai-token";
+
+    @Test
+    void acceptsSha1OfSortedConcatenation() {
+        assertTrue(SignatureUtil.verifyWeChatSignature(expected(TOKEN, "1760716800", "385917462"),
+                "1760716800", "385917462", TOKEN));
+        assertTrue(SignatureUtil.verifyWeChatSignature(expected(TOKEN, "1760716800", "385917462").toUpperCase(),
+                "1760716800", "385917462", TOKEN));
+    }
+
+    /**
+     * 非ASCII参数按UTF-8编码参与计算，覆盖2、3、4字节字符和不成对的代理字符
+     */
+    @Test
+    void nonAsciiTokensMatchUtf8Digest() {
+        String[][] cases = {
+                {"令牌-é", "1760716800", "随机数"},
+                {"😀emoji", "1760716800", "nonce"},
+                {"broken\uD83D", "\uDE00tail", "nonce"},
+                {"Ωmega", "αlpha", "zeta"}
+        };
+        for (String[] params : cases) {
+            String signature = expected(params[0], params[1], params[2]);
+            assertTrue(SignatureUtil.verifyWeChatSignature(signature, params[1], params[2], params[0]),
+                    () -> String.join(",", params));
+        }
+    }
+
+    /**
+     * 随机参数覆盖超过计算器初始缓冲区的长度，计算器池化复用
+     */
+    @Test
+    void randomParametersMatchSha1Hex() {
+        Random random = new Random(20261017L);
+        for (int i = 0; i < 500; i++) {
+            String token = randomString(random, random.nextInt(i < 450 ? 40 : 400));
+            String timestamp = String.valueOf(1_700_000_000L + random.nextInt(100_000_000));
+            String nonce = randomString(random, random.nextInt(20));
+            String signature = expected(token, timestamp, nonce);
+            assertTrue(SignatureUtil.verifyWeChatSignature(signature, timestamp, nonce, token), token);
+            assertFalse(SignatureUtil.verifyWeChatSignature(flip(signature, random.nextInt(signature.length())),
+                    timestamp, nonce, token), token);
+        }
+    }
+
+    @Test
+    void rejectsWrongSignatures() {
+        String signature = expected(TOKEN, "1760716800", "385917462");
+        assertFalse(SignatureUtil.verifyWeChatSignature(signature, "1760716801", "385917462", TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature(signature, "1760716800", "385917462", TOKEN + "x"));
+        assertFalse(SignatureUtil.verifyWeChatSignature(signature.substring(1), "1760716800", "385917462", TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature(signature + "0", "1760716800", "385917462", TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature("g" + signature.substring(1), "1760716800", "385917462", TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature("٠" + signature.substring(1), "1760716800", "385917462",
+                TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature("", "1760716800", "385917462", TOKEN));
+    }
+
+    @Test
+    void nullOrEmptyParameters() {
+        String signature = expected(TOKEN, "1760716800", "385917462");
+        assertFalse(SignatureUtil.verifyWeChatSignature(null, "1760716800", "385917462", TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature(signature, null, "385917462", TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature(signature, "1760716800", null, TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature(signature, "1760716800", "385917462", null));
+
+        // 空字符串是合法参数，按空串参与排序和拼接
+        assertTrue(SignatureUtil.verifyWeChatSignature(expected("", "", ""), "", "", ""));
+        assertTrue(SignatureUtil.verifyWeChatSignature(expected(TOKEN, "", "nonce"), "", "nonce", TOKEN));
+        assertFalse(SignatureUtil.verifyWeChatSignature(expected(TOKEN, "", "nonce"), "nonce", "", TOKEN + "x"));
+    }
+
+    @Test
+    void timestampOutsideToleranceIsRejected() {
+        String now = String.valueOf(System.currentTimeMillis() / 1000);
+        String stale = String.valueOf(System.currentTimeMillis() / 1000 - 600);
+        assertTrue(SignatureUtil.verifyWeChatSignature(expected(TOKEN, now, "n"), now, "n", TOKEN, 300));
+        assertFalse(SignatureUtil.verifyWeChatSignature(expected(TOKEN, stale, "n"), stale, "n", TOKEN, 300));
+        assertFalse(SignatureUtil.verifyWeChatSignature(expected(TOKEN, "", "n"), "", "n", TOKEN, 300));
+        assertFalse(SignatureUtil.verifyWeChatSignature(expected(TOKEN, "-1", "n"), "-1", "n", TOKEN, 300));
+    }
+
+    private static String expected(String token, String timestamp, String nonce) {
+        String[] params = {token, timestamp, nonce};
+        Arrays.sort(params);
+        return DigestUtils.sha1Hex(String.join("", params));
+    }
+
+    private static String flip(String signature, int index) {
+        char c = signature.charAt(index);
+        return signature.substring(0, index) + (c == '0' ? '1' : '0') + signature.substring(index + 1);
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                value.append((char) (0x21 + random.nextInt(0x5E)));
+            } else if (kind < 8) {
+                value.append((char) (0x4E00 + random.nextInt(0x5000)));
+            } else if (kind < 9) {
+                value.append((char) (0x80 + random.nextInt(0x700)));
+            } else {
+                value.appendCodePoint(0x1F600 + random.nextInt(0x40));
+            }
+        }
+        return value.toString();
+    }
+}